@@ -1,14 +1,18 @@
 package com.example.carparkingapi.action;
 
 import com.example.carparkingapi.domain.Admin;
+import com.example.carparkingapi.model.AuthenticatedUser;
+import com.example.carparkingapi.model.Role;
 import com.example.carparkingapi.repository.AdminRepository;
 import lombok.RequiredArgsConstructor;
 import org.jetbrains.annotations.NotNull;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.AuditorAware;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 
+import java.util.Objects;
 import java.util.Optional;
 
 @Component
@@ -17,10 +21,23 @@ public class SpringSecurityAuditorAware implements AuditorAware<Admin> {
 
     private final AdminRepository adminRepository;
 
+    @Value("${security.authorization.stateless:false}")
+    private boolean statelessAuthorization;
+
+    /**
+     * With {@code security.authorization.stateless} an admin token is trusted as it is and the auditor is a reference
+     * built from its id, like the admin of the action itself; other principals are looked up by username.
+     */
     @Override
     public @NotNull Optional<Admin> getCurrentAuditor() {
         return Optional.ofNullable(SecurityContextHolder.getContext().getAuthentication())
                 .filter(Authentication::isAuthenticated)
-                .flatMap(authentication -> adminRepository.findAdminByUsername(authentication.getName()));
+                .flatMap(authentication -> {
+                    if (statelessAuthorization && authentication.getPrincipal() instanceof AuthenticatedUser user
+                            && user.getRole() == Role.ADMIN && Objects.nonNull(user.getId())) {
+                        return Optional.of(adminRepository.getReferenceById(user.getId()));
+                    }
+                    return adminRepository.findAdminByUsername(authentication.getName());
+                });
     }
 }
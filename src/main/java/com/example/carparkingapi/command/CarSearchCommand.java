@@ -0,0 +1,50 @@
+package com.example.carparkingapi.command;
+
+import com.example.carparkingapi.model.Fuel;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.constraints.Positive;
+import javax.validation.constraints.PositiveOrZero;
+import java.time.LocalDate;
+import java.util.Set;
+
+/**
+ * Criteria of a car search, every criterion left out matches all cars.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CarSearchCommand {
+
+    @PositiveOrZero(message = "Minimal price must be positive or zero")
+    private Double minPrice;
+
+    @PositiveOrZero(message = "Maximal price must be positive or zero")
+    private Double maxPrice;
+
+    private Set<Fuel> fuels;
+
+    private String brandPrefix;
+
+    private String modelPrefix;
+
+    private LocalDate producedFrom;
+
+    private LocalDate producedTo;
+
+    @Positive(message = "Minimal length must be positive")
+    private Integer minLength;
+
+    @Positive(message = "Maximal length must be positive")
+    private Integer maxLength;
+
+    @Positive(message = "Minimal width must be positive")
+    private Integer minWidth;
+
+    @Positive(message = "Maximal width must be positive")
+    private Integer maxWidth;
+
+    private Boolean parked;
+}
@@ -0,0 +1,19 @@
+package com.example.carparkingapi.command;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.constraints.Positive;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ParkingSpotCommand {
+
+    @Positive(message = "spot length must be positive, cannot be null or blank")
+    private int length;
+
+    @Positive(message = "spot width must be positive, cannot be null or blank")
+    private int width;
+}
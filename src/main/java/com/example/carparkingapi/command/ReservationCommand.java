@@ -0,0 +1,24 @@
+package com.example.carparkingapi.command;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.constraints.Future;
+import javax.validation.constraints.FutureOrPresent;
+import javax.validation.constraints.NotNull;
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ReservationCommand {
+
+    @NotNull(message = "Reservation start cannot be null")
+    @FutureOrPresent(message = "Reservation cannot start in the past")
+    private LocalDateTime reservedFrom;
+
+    @NotNull(message = "Reservation end cannot be null")
+    @Future(message = "Reservation end must be in the future")
+    private LocalDateTime reservedTo;
+}
@@ -1,6 +1,7 @@
 package com.example.carparkingapi.config;
 
 import com.example.carparkingapi.exception.not.found.*;
+import com.example.carparkingapi.exception.other.InvalidCursorException;
 import com.example.carparkingapi.exception.other.InvalidFieldNameException;
 import com.example.carparkingapi.exception.parking.*;
 import com.example.carparkingapi.exception.security.InvalidCredentialsException;
@@ -29,7 +30,8 @@ import java.util.stream.Collectors;
 public class GlobalExceptionHandler extends ResponseEntityExceptionHandler {
 
     @ExceptionHandler(value = {CarNotFoundException.class, ParkingNotFoundException.class, UsernameNotFoundException.class,
-            CustomerNotFoundException.class, AdminNotFoundException.class, NoCarsFoundException.class, UserNotFoundException.class})
+            CustomerNotFoundException.class, AdminNotFoundException.class, NoCarsFoundException.class, UserNotFoundException.class,
+            ParkingSpotNotFoundException.class, ReservationNotFoundException.class})
     protected ResponseEntity<ApiError> handleNotFoundException(RuntimeException runtimeException) {
         return new ResponseEntity<>(new ApiError(HttpStatus.NOT_FOUND, runtimeException.getMessage()),
                 HttpStatus.NOT_FOUND);
@@ -43,13 +45,14 @@ public class GlobalExceptionHandler extends ResponseEntityExceptionHandler {
     }
 
     @ExceptionHandler(value = {CarParkingStatusException.class, FullParkingException.class,
-            ParkingSpaceToSmallException.class, LPGNotAllowedException.class, NoMoreElectricPlacesException.class})
+            ParkingSpaceToSmallException.class, LPGNotAllowedException.class, NoMoreElectricPlacesException.class,
+            WaitlistFullException.class, InvalidReservationException.class})
     protected ResponseEntity<ApiError> handleParkingActionException(RuntimeException runtimeException) {
         return new ResponseEntity<>(new ApiError(HttpStatus.BAD_REQUEST, runtimeException.getMessage()),
                 HttpStatus.BAD_REQUEST);
     }
 
-    @ExceptionHandler(value = {InvalidFieldNameException.class})
+    @ExceptionHandler(value = {InvalidFieldNameException.class, InvalidCursorException.class})
     protected ResponseEntity<ApiError> handleInvalidFieldNameException(RuntimeException runtimeException) {
         return new ResponseEntity<>(new ApiError(HttpStatus.BAD_REQUEST, runtimeException.getMessage()),
                 HttpStatus.BAD_REQUEST);
@@ -0,0 +1,31 @@
+package com.example.carparkingapi.config.jpa;
+
+import com.example.carparkingapi.service.dictionary.CarNameDictionary;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+
+import javax.persistence.AttributeConverter;
+import javax.persistence.Converter;
+import java.util.Objects;
+
+/**
+ * Stores {@code Car.brand} as the id of the brand in the {@code car_brand} dictionary. Query parameters naming an
+ * unknown brand become {@link CarNameDictionary#UNKNOWN_ID} and match no car.
+ */
+@Converter
+@RequiredArgsConstructor
+public class CarBrandConverter implements AttributeConverter<String, Integer> {
+
+    // looked up on first use, Hibernate creates this while the transaction manager the dictionary needs is built
+    private final ObjectProvider<CarNameDictionary> carNameDictionary;
+
+    @Override
+    public Integer convertToDatabaseColumn(String brand) {
+        return Objects.isNull(brand) ? null : carNameDictionary.getObject().brandId(brand);
+    }
+
+    @Override
+    public String convertToEntityAttribute(Integer id) {
+        return Objects.isNull(id) ? null : carNameDictionary.getObject().brandName(id);
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.carparkingapi.config.jpa;
+
+import com.example.carparkingapi.domain.Car;
+import com.example.carparkingapi.service.dictionary.CarNameDictionary;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+
+import javax.persistence.PrePersist;
+
+/**
+ * Registers the brand and model of a new car in the dictionaries when it is handed to the repository, for cars
+ * saved without going through the services, which register names themselves. Names are never registered while
+ * a flush is running, changed names have to be registered before the car is saved.
+ */
+@RequiredArgsConstructor
+public class CarNameListener {
+
+    // looked up on first use, Hibernate creates this while the transaction manager the dictionary needs is built
+    private final ObjectProvider<CarNameDictionary> carNameDictionary;
+
+    @PrePersist
+    public void registerNames(Car car) {
+        carNameDictionary.getObject().register(car.getBrand(), car.getModel());
+    }
+}
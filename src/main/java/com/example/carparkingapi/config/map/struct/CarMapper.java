@@ -11,6 +11,7 @@ public interface CarMapper {
     CarDTO carToCarDTO(Car car);
 
     @Mapping(target = "parking", ignore = true)
+    @Mapping(target = "parkingSpot", ignore = true)
     @Mapping(target = "id", ignore = true)
     @Mapping(target = "customer", ignore = true)
     Car carCommandToCar(CarCommand carCommand);
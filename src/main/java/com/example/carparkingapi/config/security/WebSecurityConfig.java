@@ -82,6 +82,7 @@ public class WebSecurityConfig {
                                 .antMatchers(HttpMethod.PUT, ADMIN_URL).hasAuthority(ADMIN)
                                 .antMatchers(HttpMethod.DELETE, ADMIN_URL).hasAuthority(ADMIN)
                                 .antMatchers(HttpMethod.POST, AUTH_URL).permitAll()
+                                .antMatchers(HttpMethod.GET, AUTH_URL).permitAll()
                                 .anyRequest()
                                 .authenticated()
                                 .and()
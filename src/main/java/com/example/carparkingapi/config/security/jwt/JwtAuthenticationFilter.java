@@ -1,7 +1,8 @@
 package com.example.carparkingapi.config.security.jwt;
 
-import com.example.carparkingapi.domain.Customer;
+import com.example.carparkingapi.model.AuthenticatedUser;
 import com.example.carparkingapi.model.Role;
+import com.example.carparkingapi.service.CustomUserDetailsService;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
 import lombok.RequiredArgsConstructor;
@@ -19,6 +20,9 @@ import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.util.Objects;
+import java.util.Optional;
+
+import static com.example.carparkingapi.config.security.jwt.JwtService.USER_ID_CLAIM;
 
 @Service
 @RequiredArgsConstructor
@@ -26,6 +30,12 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtService jwtService;
 
+    private final VerifiedTokenCache verifiedTokenCache;
+
+    private final TokenRevocationRegistry tokenRevocationRegistry;
+
+    private final CustomUserDetailsService customUserDetailsService;
+
     @Override
     protected void doFilterInternal(HttpServletRequest request,
                                     @NotNull HttpServletResponse response,
@@ -45,11 +55,32 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         String jsonWebToken = authenticationHeader.substring(7);
         try {
-            String userLogin = jwtService.extractUserLogin(jsonWebToken);
-            if (Objects.nonNull(userLogin) && SecurityContextHolder.getContext().getAuthentication() == null &&
-                    (jwtService.isTokenValid(jsonWebToken, getUserDetails(jsonWebToken)))) {
-                    setAuthenticationContext(jsonWebToken, request);
+            Optional<UserDetails> cachedUserDetails = verifiedTokenCache.get(jsonWebToken);
+            if (cachedUserDetails.isPresent()) {
+                if (SecurityContextHolder.getContext().getAuthentication() == null) {
+                    setAuthenticationContext(cachedUserDetails.get(), request);
+                }
+                filterChain.doFilter(request, response);
+                return;
+            }
 
+            Claims claims = jwtService.extractAllClaims(jsonWebToken);
+            String userLogin = jwtService.extractUserLogin(claims);
+            if (Objects.nonNull(userLogin) && SecurityContextHolder.getContext().getAuthentication() == null) {
+                AuthenticatedUser userDetails = getUserDetails(claims);
+                if (tokenRevocationRegistry.isRevoked(userDetails.getUsername(), claims.getIssuedAt())) {
+                    response.sendError(HttpServletResponse.SC_UNAUTHORIZED, "Unauthorized: JWT token revoked");
+                    return;
+                }
+                // checked before the token is cached, later requests with it skip the query
+                if (Objects.nonNull(userDetails.getId()) && !customUserDetailsService.exists(userDetails)) {
+                    response.sendError(HttpServletResponse.SC_UNAUTHORIZED, "Unauthorized: account does not exist");
+                    return;
+                }
+                if (jwtService.isTokenValid(claims, userDetails)) {
+                    verifiedTokenCache.put(jsonWebToken, userDetails, claims.getIssuedAt(), claims.getExpiration());
+                    setAuthenticationContext(userDetails, request);
+                }
             }
         } catch (ExpiredJwtException e) {
             request.setAttribute("expired", e.getMessage());
@@ -65,9 +96,8 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
-    private UserDetails getUserDetails(String jsonWebToken) {
-        Claims claims = jwtService.extractAllClaims(jsonWebToken);
-        String username = jwtService.extractUserLogin(jsonWebToken);
+    private AuthenticatedUser getUserDetails(Claims claims) {
+        String username = jwtService.extractUserLogin(claims);
         String roleString = claims.get("role", String.class);
         Role role;
         if (roleString != null) {
@@ -77,15 +107,10 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             throw new NullPointerException("Role is null");
         }
 
-        Customer userDetails = new Customer();
-        userDetails.setUsername(username);
-        userDetails.setRole(role);
-
-        return userDetails;
+        return new AuthenticatedUser(claims.get(USER_ID_CLAIM, Long.class), username, role);
     }
 
-    private void setAuthenticationContext(String jsonWebToken, HttpServletRequest request) {
-        UserDetails userDetails = getUserDetails(jsonWebToken);
+    private void setAuthenticationContext(UserDetails userDetails, HttpServletRequest request) {
         UsernamePasswordAuthenticationToken authenticationToken =
                 new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
         authenticationToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
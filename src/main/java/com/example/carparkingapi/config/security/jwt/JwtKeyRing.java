@@ -0,0 +1,304 @@
+package com.example.carparkingapi.config.security.jwt;
+
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.MessageDigest;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.SecureRandom;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Clock;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import static com.example.carparkingapi.config.security.jwt.JwtService.TOKEN_VALIDITY;
+
+/**
+ * ES256 key pairs shared by all nodes through the {@code jwt_key} table. Tokens are signed with the newest key that
+ * is not retired and carry its id in the {@code kid} header; public keys are kept by id so tokens are verified with
+ * the key they were signed with, by every node and across restarts.
+ * <p>
+ * Every {@code security.jwt.key-refresh-interval-ms} the public keys are reloaded. A {@code kid} missing from the
+ * ring reloads them at most once per {@code security.jwt.key-miss-reload-interval-ms}, so a key rotated in on
+ * another node is found right away while made-up ids are answered from memory.
+ * <p>
+ * Only nodes with {@code security.jwt.signing-enabled} read private keys, and only the one they sign with; they store
+ * them encrypted with AES-GCM under {@code security.jwt.key-encryption-secret}. Once the newest key is older than
+ * {@code security.jwt.key-rotation-interval-ms} a signing node stores a new pair and retires the older ones. A retired
+ * public key stays until the last token signed with it has expired, then it is deleted. When nodes rotate at the
+ * same moment, the key with the latest creation time (then the greatest id) wins and the others are retired.
+ * Verifying nodes need neither the secret nor the private keys, they never write to the table.
+ */
+@Component
+public class JwtKeyRing {
+
+    private static final Logger logger = LogManager.getLogger(JwtKeyRing.class);
+
+    private static final String PUBLIC_COLUMNS = "id, public_key, created_at, retired_at";
+
+    private static final Comparator<StoredKey> CREATION_ORDER = Comparator.comparingLong(StoredKey::createdAt)
+            .thenComparing(StoredKey::keyId);
+
+    private static final String CIPHER = "AES/GCM/NoPadding";
+
+    private static final int IV_BYTES = 12;
+
+    private static final int TAG_BITS = 128;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final boolean signingEnabled;
+
+    private final SecretKeySpec encryptionKey;
+
+    private final long rotationIntervalMillis;
+
+    private final long missReloadIntervalMillis;
+
+    private final Clock clock;
+
+    private final SecureRandom secureRandom = new SecureRandom();
+
+    private final Map<String, StoredKey> verificationKeys = new ConcurrentHashMap<>();
+
+    private final AtomicLong lastMissReload = new AtomicLong(Long.MIN_VALUE);
+
+    private volatile SigningKey signingKey;
+
+    @Autowired
+    public JwtKeyRing(JdbcTemplate jdbcTemplate,
+                      @Value("${security.jwt.signing-enabled:true}") boolean signingEnabled,
+                      @Value("${security.jwt.key-encryption-secret:}") String keyEncryptionSecret,
+                      @Value("${security.jwt.key-rotation-interval-ms:21600000}") long rotationIntervalMillis,
+                      @Value("${security.jwt.key-miss-reload-interval-ms:5000}") long missReloadIntervalMillis) {
+        this(jdbcTemplate, signingEnabled, keyEncryptionSecret, rotationIntervalMillis, missReloadIntervalMillis,
+                Clock.systemUTC());
+    }
+
+    JwtKeyRing(JdbcTemplate jdbcTemplate, boolean signingEnabled, String keyEncryptionSecret,
+               long rotationIntervalMillis, long missReloadIntervalMillis, Clock clock) {
+        if (signingEnabled && (Objects.isNull(keyEncryptionSecret) || keyEncryptionSecret.isBlank())) {
+            throw new IllegalStateException("security.jwt.key-encryption-secret is required to sign tokens");
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.signingEnabled = signingEnabled;
+        this.encryptionKey = signingEnabled ? encryptionKey(keyEncryptionSecret) : null;
+        this.rotationIntervalMillis = rotationIntervalMillis;
+        this.missReloadIntervalMillis = missReloadIntervalMillis;
+        this.clock = clock;
+        refresh();
+    }
+
+    public SigningKey getSigningKey() {
+        if (Objects.isNull(signingKey)) {
+            throw new IllegalStateException("Tokens are not signed on this node, security.jwt.signing-enabled is off");
+        }
+        return signingKey;
+    }
+
+    /**
+     * Returns the public key that verifies the tokens issued right now, the newest key on a verifying node.
+     */
+    public PublicKey getVerificationKey() {
+        if (Objects.nonNull(signingKey)) {
+            return getVerificationKey(signingKey.keyId());
+        }
+        return verificationKeys.values().stream()
+                .max(CREATION_ORDER)
+                .map(StoredKey::publicKey)
+                .orElseThrow(() -> new JwtException("No signing key stored yet"));
+    }
+
+    public PublicKey getVerificationKey(String keyId) {
+        if (Objects.isNull(keyId)) {
+            throw new JwtException("Missing signing key id");
+        }
+        StoredKey storedKey = verificationKeys.get(keyId);
+        if (Objects.isNull(storedKey) && reloadAfterMiss()) {
+            storedKey = verificationKeys.get(keyId);
+        }
+        if (Objects.isNull(storedKey) || storedKey.isExpired(clock.millis())) {
+            throw new JwtException("Unknown signing key id " + keyId);
+        }
+        return storedKey.publicKey();
+    }
+
+    public Map<String, PublicKey> getVerificationKeys() {
+        long now = clock.millis();
+        return verificationKeys.values().stream()
+                .filter(storedKey -> !storedKey.isExpired(now))
+                .collect(Collectors.toUnmodifiableMap(StoredKey::keyId, StoredKey::publicKey));
+    }
+
+    @Scheduled(fixedDelayString = "${security.jwt.key-refresh-interval-ms:60000}",
+            initialDelayString = "${security.jwt.key-refresh-interval-ms:60000}")
+    public synchronized void refresh() {
+        if (!signingEnabled) {
+            load(loadPublicKeys());
+            return;
+        }
+        long now = clock.millis();
+        jdbcTemplate.update("delete from jwt_key where retired_at < ?", now - TOKEN_VALIDITY.toMillis());
+
+        List<StoredKey> storedKeys = loadPublicKeys();
+        StoredKey newest = storedKeys.stream()
+                .filter(storedKey -> Objects.isNull(storedKey.retiredAt()))
+                .max(CREATION_ORDER)
+                .orElse(null);
+        SigningKey newestSigningKey;
+        if (Objects.isNull(newest) || newest.createdAt() <= now - rotationIntervalMillis) {
+            KeyPair keyPair = Keys.keyPairFor(SignatureAlgorithm.ES256);
+            newest = new StoredKey(UUID.randomUUID().toString(), keyPair.getPublic(), now, null);
+            newestSigningKey = new SigningKey(newest.keyId(), keyPair.getPrivate());
+            store(newest, keyPair.getPrivate());
+            storedKeys.add(newest);
+            logger.info("Stored new signing key {}", newest.keyId());
+        } else if (Objects.nonNull(signingKey) && signingKey.keyId().equals(newest.keyId())) {
+            newestSigningKey = signingKey;
+        } else {
+            newestSigningKey = new SigningKey(newest.keyId(), loadPrivateKey(newest.keyId()));
+        }
+        jdbcTemplate.update("update jwt_key set retired_at = ? where retired_at is null " +
+                        "and (created_at < ? or (created_at = ? and id < ?))",
+                now, newest.createdAt(), newest.createdAt(), newest.keyId());
+
+        load(storedKeys);
+        if (newestSigningKey != signingKey) {
+            signingKey = newestSigningKey;
+            logger.info("Signing tokens with key {}, {} keys accepted for verification", newest.keyId(),
+                    verificationKeys.size());
+        }
+    }
+
+    /**
+     * Reloads the public keys for an id the ring does not know, unless that was done less than
+     * {@code security.jwt.key-miss-reload-interval-ms} ago.
+     */
+    private boolean reloadAfterMiss() {
+        long now = clock.millis();
+        long last = lastMissReload.get();
+        if (now < last + missReloadIntervalMillis || !lastMissReload.compareAndSet(last, now)) {
+            return false;
+        }
+        synchronized (this) {
+            load(loadPublicKeys());
+        }
+        return true;
+    }
+
+    private void load(List<StoredKey> storedKeys) {
+        verificationKeys.keySet().retainAll(storedKeys.stream().map(StoredKey::keyId).toList());
+        storedKeys.forEach(storedKey -> verificationKeys.put(storedKey.keyId(), storedKey));
+    }
+
+    private List<StoredKey> loadPublicKeys() {
+        return jdbcTemplate.query("select " + PUBLIC_COLUMNS + " from jwt_key", JwtKeyRing::mapKey);
+    }
+
+    private void store(StoredKey storedKey, PrivateKey privateKey) {
+        jdbcTemplate.update("insert into jwt_key (id, public_key, private_key, created_at) values (?, ?, ?, ?)",
+                storedKey.keyId(), encode(storedKey.publicKey().getEncoded()),
+                encode(encrypt(storedKey.keyId(), privateKey.getEncoded())), storedKey.createdAt());
+    }
+
+    private PrivateKey loadPrivateKey(String keyId) {
+        String encrypted = jdbcTemplate.queryForObject("select private_key from jwt_key where id = ?", String.class,
+                keyId);
+        try {
+            return KeyFactory.getInstance("EC").generatePrivate(new PKCS8EncodedKeySpec(decrypt(keyId,
+                    decode(encrypted))));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Could not read signing key " + keyId, e);
+        }
+    }
+
+    /**
+     * The key id is authenticated along with the ciphertext, a private key copied to another row does not decrypt.
+     */
+    private byte[] encrypt(String keyId, byte[] privateKey) {
+        try {
+            byte[] iv = new byte[IV_BYTES];
+            secureRandom.nextBytes(iv);
+            Cipher cipher = Cipher.getInstance(CIPHER);
+            cipher.init(Cipher.ENCRYPT_MODE, encryptionKey, new GCMParameterSpec(TAG_BITS, iv));
+            cipher.updateAAD(keyId.getBytes(StandardCharsets.UTF_8));
+            byte[] ciphertext = cipher.doFinal(privateKey);
+            return ByteBuffer.allocate(IV_BYTES + ciphertext.length).put(iv).put(ciphertext).array();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Could not encrypt signing key " + keyId, e);
+        }
+    }
+
+    private byte[] decrypt(String keyId, byte[] encrypted) throws GeneralSecurityException {
+        Cipher cipher = Cipher.getInstance(CIPHER);
+        cipher.init(Cipher.DECRYPT_MODE, encryptionKey, new GCMParameterSpec(TAG_BITS, encrypted, 0, IV_BYTES));
+        cipher.updateAAD(keyId.getBytes(StandardCharsets.UTF_8));
+        return cipher.doFinal(encrypted, IV_BYTES, encrypted.length - IV_BYTES);
+    }
+
+    private static SecretKeySpec encryptionKey(String secret) {
+        try {
+            return new SecretKeySpec(MessageDigest.getInstance("SHA-256")
+                    .digest(secret.getBytes(StandardCharsets.UTF_8)), "AES");
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static StoredKey mapKey(ResultSet resultSet, int rowNumber) throws SQLException {
+        try {
+            return new StoredKey(resultSet.getString("id"),
+                    KeyFactory.getInstance("EC").generatePublic(
+                            new X509EncodedKeySpec(decode(resultSet.getString("public_key")))),
+                    resultSet.getLong("created_at"),
+                    resultSet.getObject("retired_at", Long.class));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Could not read verification key " + resultSet.getString("id"), e);
+        }
+    }
+
+    private static String encode(byte[] key) {
+        return Base64.getEncoder().encodeToString(key);
+    }
+
+    private static byte[] decode(String key) {
+        return Base64.getDecoder().decode(key);
+    }
+
+    public record SigningKey(String keyId, PrivateKey privateKey) {
+    }
+
+    private record StoredKey(String keyId, PublicKey publicKey, long createdAt, Long retiredAt) {
+
+        private boolean isExpired(long now) {
+            return Objects.nonNull(retiredAt) && retiredAt < now - TOKEN_VALIDITY.toMillis();
+        }
+    }
+}
@@ -1,81 +1,113 @@
 package com.example.carparkingapi.config.security.jwt;
 
+import com.example.carparkingapi.domain.Admin;
+import com.example.carparkingapi.domain.Customer;
+import com.example.carparkingapi.dto.VerificationKeyDTO;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
-import io.jsonwebtoken.io.Decoders;
-import io.jsonwebtoken.security.Keys;
-import org.springframework.beans.factory.annotation.Value;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
 import java.security.Key;
+import java.time.Duration;
+import java.util.Base64;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
-import java.util.function.Function;
 import java.util.stream.Collectors;
 
+/**
+ * Issues and verifies the JSON Web Tokens. Tokens are signed with ES256 by the {@link JwtKeyRing} and name their
+ * key in the {@code kid} header; the single parser resolves that key from the ring. A token is verified a single
+ * time per request by {@link #extractAllClaims} and the filter works with the resulting claims.
+ */
 @Service
 public class JwtService {
 
-    @Value(value = "${jwtSigningKey}")
-    private String jwtSigningKey;
+    public static final Duration TOKEN_VALIDITY = Duration.ofHours(24);
 
-    protected String extractUserLogin(String jsonWebToken) {
-        return extractClaim(jsonWebToken, Claims::getSubject);
+    public static final String USER_ID_CLAIM = "uid";
+
+    private final JwtKeyRing jwtKeyRing;
+
+    private final JwtParser jwtParser;
+
+    public JwtService(JwtKeyRing jwtKeyRing) {
+        this.jwtKeyRing = jwtKeyRing;
+        this.jwtParser = Jwts.parserBuilder()
+                .setSigningKeyResolver(new SigningKeyResolverAdapter() {
+                    @Override
+                    public Key resolveSigningKey(JwsHeader header, Claims claims) {
+                        return jwtKeyRing.getVerificationKey(header.getKeyId());
+                    }
+                })
+                .build();
     }
 
-    protected <T> T extractClaim(String jsonWebToken, Function<Claims, T> claimsResolver) {
-        final Claims claims = extractAllClaims(jsonWebToken);
-        return claimsResolver.apply(claims);
+    protected String extractUserLogin(Claims claims) {
+        return claims.getSubject();
     }
 
+    /**
+     * Verifies the signature and expiration of the token and returns its claims.
+     */
     protected Claims extractAllClaims(String jsonWebToken) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSignInKey())
-                .build()
-                .parseClaimsJws(jsonWebToken)
-                .getBody();
+        return jwtParser.parseClaimsJws(jsonWebToken).getBody();
     }
 
+    /**
+     * Returns the public key that verifies the tokens issued right now.
+     */
     public Key getSignInKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(jwtSigningKey);
-        return Keys.hmacShaKeyFor(keyBytes);
+        return jwtKeyRing.getVerificationKey();
     }
 
-    protected boolean isTokenValid(String jsonWebToken, UserDetails userDetails) {
-        String[] jwtSubject = extractUserLogin(jsonWebToken).split(",");
-        final String role = (String) extractClaim(jsonWebToken, claims -> claims.get("role"));
-        return jwtSubject[0].equals(userDetails.getUsername()) &&
-                !isTokenExpired(jsonWebToken) &&
-                Objects.equals(role, userDetails.getAuthorities().iterator().next().getAuthority());
+    public List<VerificationKeyDTO> getVerificationKeys() {
+        return jwtKeyRing.getVerificationKeys().entrySet().stream()
+                .map(entry -> new VerificationKeyDTO(entry.getKey(), SignatureAlgorithm.ES256.getValue(),
+                        Base64.getEncoder().encodeToString(entry.getValue().getEncoded())))
+                .toList();
     }
 
-    private boolean isTokenExpired(String jsonWebToken) {
-        return extractExpiration(jsonWebToken).before(new Date());
+    protected boolean isTokenValid(Claims claims, UserDetails userDetails) {
+        String[] jwtSubject = extractUserLogin(claims).split(",");
+        final String role = claims.get("role", String.class);
+        return jwtSubject[0].equals(userDetails.getUsername()) &&
+                !isTokenExpired(claims) &&
+                Objects.equals(role, userDetails.getAuthorities().iterator().next().getAuthority());
     }
 
-    private Date extractExpiration(String jsonWebToken) {
-        return extractClaim(jsonWebToken, Claims::getExpiration);
+    private boolean isTokenExpired(Claims claims) {
+        return claims.getExpiration().before(new Date());
     }
 
-
     public String generateToken(UserDetails userDetails) {
 
-        Map<String, String> extraClaims = new HashMap<>();
+        Map<String, Object> extraClaims = new HashMap<>();
         extraClaims.put("role", userDetails.getAuthorities().stream()
                 .map(GrantedAuthority::getAuthority)
                 .collect(Collectors.joining(",")));
+        if (userDetails instanceof Customer customer) {
+            extraClaims.put(USER_ID_CLAIM, customer.getId());
+        } else if (userDetails instanceof Admin admin) {
+            extraClaims.put(USER_ID_CLAIM, admin.getId());
+        }
 
+        JwtKeyRing.SigningKey signingKey = jwtKeyRing.getSigningKey();
         return Jwts.builder()
+                .setHeaderParam(JwsHeader.KEY_ID, signingKey.keyId())
                 .setClaims(extraClaims)
                 .setSubject(userDetails.getUsername())
                 .setIssuedAt(new Date(System.currentTimeMillis()))
-                .setExpiration(new Date(System.currentTimeMillis() + 1000 * 60 * 60 * 24))
-                .signWith(getSignInKey(), SignatureAlgorithm.HS512)
+                .setExpiration(new Date(System.currentTimeMillis() + TOKEN_VALIDITY.toMillis()))
+                .signWith(signingKey.privateKey(), SignatureAlgorithm.ES256)
                 .compact();
     }
 }
@@ -0,0 +1,165 @@
+package com.example.carparkingapi.config.security.jwt;
+
+import com.example.carparkingapi.event.AccountChangedEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.BinaryOperator;
+
+import static com.example.carparkingapi.config.security.jwt.JwtService.TOKEN_VALIDITY;
+
+/**
+ * Revocation epochs of accounts: a token issued to the account before its epoch is rejected. Locking or disabling
+ * an account moves its epoch to now and stores it in {@code customer.revoked_before}, so it survives restarts and
+ * reaches the other nodes, which read the epochs written since the newest one they know every
+ * {@code security.jwt.revocation.refresh-interval-ms}. A Bloom filter over the usernames with an epoch answers the
+ * common case, an account that was never revoked, without touching the map or the database. Epochs older than the
+ * token validity can no longer reject anything and are dropped every {@code security.jwt.revocation.prune-interval-ms},
+ * which also rebuilds the filter.
+ */
+@Component
+public class TokenRevocationRegistry {
+
+    private static final int HASHES = 3;
+
+    /**
+     * How far before the newest known epoch a refresh reads again, for epochs written by a node whose clock is
+     * behind or committed after a later one.
+     */
+    private static final long REFRESH_OVERLAP_MILLIS = 60_000;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final int bits;
+
+    private final Map<String, Instant> epochs = new ConcurrentHashMap<>();
+
+    private volatile AtomicLongArray filter;
+
+    private long newestEpochMillis;
+
+    public TokenRevocationRegistry(JdbcTemplate jdbcTemplate,
+                                   @Value("${security.jwt.revocation.bloom-bits:65536}") int bits) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.bits = Math.max(bits - bits % Long.SIZE, Long.SIZE);
+        this.filter = new AtomicLongArray(this.bits / Long.SIZE);
+        this.newestEpochMillis = oldestLiveEpochMillis();
+        refresh();
+    }
+
+    /**
+     * Returns whether the token was issued before the last revocation of the account. Tokens carry their issue time
+     * in whole seconds, so epochs are rounded up to the next second.
+     */
+    public boolean isRevoked(String username, Date issuedAt) {
+        if (!mightContain(filter, username)) {
+            return false;
+        }
+        Instant epoch = epochs.get(username);
+        return Objects.nonNull(epoch) && (Objects.isNull(issuedAt) || issuedAt.toInstant().isBefore(epoch));
+    }
+
+    @EventListener
+    public void onAccountChanged(AccountChangedEvent event) {
+        if (event.isAccessRevoked()) {
+            revoke(event.getUsername());
+        }
+    }
+
+    /**
+     * Gives the accounts that were made inactive before their epochs were stored one, so the tokens issued to them
+     * before are rejected as well.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void revokeInactiveAccounts() {
+        jdbcTemplate.update("update customer set revoked_before = ? where revoked_before is null " +
+                        "and (account_non_locked = ? or account_enabled = ? or account_non_expired = ? " +
+                        "or credentials_non_expired = ?)",
+                nextEpoch().toEpochMilli(), false, false, false, false);
+        refresh();
+    }
+
+    @Scheduled(fixedDelayString = "${security.jwt.revocation.refresh-interval-ms:10000}",
+            initialDelayString = "${security.jwt.revocation.refresh-interval-ms:10000}")
+    public synchronized void refresh() {
+        long since = Math.max(newestEpochMillis - REFRESH_OVERLAP_MILLIS, oldestLiveEpochMillis());
+        jdbcTemplate.query("select username, revoked_before from customer where revoked_before > ?",
+                resultSet -> {
+                    long epochMillis = resultSet.getLong("revoked_before");
+                    record(resultSet.getString("username"), Instant.ofEpochMilli(epochMillis));
+                    newestEpochMillis = Math.max(newestEpochMillis, epochMillis);
+                }, since);
+    }
+
+    @Scheduled(fixedDelayString = "${security.jwt.revocation.prune-interval-ms:3600000}")
+    public synchronized void prune() {
+        Instant expired = Instant.ofEpochMilli(oldestLiveEpochMillis());
+        epochs.values().removeIf(epoch -> epoch.isBefore(expired));
+        AtomicLongArray rebuilt = new AtomicLongArray(bits / Long.SIZE);
+        epochs.keySet().forEach(username -> add(rebuilt, username));
+        filter = rebuilt;
+    }
+
+    private synchronized void revoke(String username) {
+        Instant epoch = nextEpoch();
+        jdbcTemplate.update("update customer set revoked_before = ? where username = ?", epoch.toEpochMilli(),
+                username);
+        record(username, epoch);
+        newestEpochMillis = Math.max(newestEpochMillis, epoch.toEpochMilli());
+    }
+
+    private void record(String username, Instant epoch) {
+        // the epoch goes in first, a reader that finds the username in the filter also finds its epoch
+        epochs.merge(username, epoch, BinaryOperator.maxBy(Comparator.naturalOrder()));
+        add(filter, username);
+    }
+
+    private Instant nextEpoch() {
+        return Instant.now().plusSeconds(1).truncatedTo(ChronoUnit.SECONDS);
+    }
+
+    private long oldestLiveEpochMillis() {
+        return System.currentTimeMillis() - TOKEN_VALIDITY.toMillis();
+    }
+
+    private void add(AtomicLongArray target, String username) {
+        int hash = username.hashCode();
+        int step = mix(hash);
+        for (int i = 0; i < HASHES; i++) {
+            int bit = Math.floorMod(hash + i * step, bits);
+            target.getAndUpdate(bit / Long.SIZE, word -> word | 1L << (bit % Long.SIZE));
+        }
+    }
+
+    private boolean mightContain(AtomicLongArray target, String username) {
+        int hash = username.hashCode();
+        int step = mix(hash);
+        for (int i = 0; i < HASHES; i++) {
+            int bit = Math.floorMod(hash + i * step, bits);
+            if ((target.get(bit / Long.SIZE) & 1L << (bit % Long.SIZE)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Second hash of the double hashing scheme, odd so that the probes never collapse onto one bit.
+     */
+    private static int mix(int hash) {
+        int mixed = hash * 0x9E3779B9;
+        return (mixed ^ mixed >>> 16) | 1;
+    }
+}
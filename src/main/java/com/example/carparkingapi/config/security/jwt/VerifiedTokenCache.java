@@ -0,0 +1,120 @@
+package com.example.carparkingapi.config.security.jwt;
+
+import com.example.carparkingapi.event.AccountChangedEvent;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.Ticker;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Date;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tokens that already passed verification, so a client repeating the same bearer token is authenticated with a
+ * lookup instead of a signature check. Entries are keyed by the SHA-256 digest of the token, live until the token
+ * expires but at most {@code security.jwt.cache.ttl-seconds}, and are evicted, least recently and least frequently
+ * used first, above {@code security.jwt.cache.max-size}. Reads do not lock the cache. Locking or disabling an account
+ * evicts all of its tokens, and tokens revoked in the {@link TokenRevocationRegistry} are never returned.
+ */
+@Component
+public class VerifiedTokenCache {
+
+    private final TokenRevocationRegistry tokenRevocationRegistry;
+
+    private final long ttlMillis;
+
+    private final Cache<String, VerifiedToken> tokens;
+
+    @Autowired
+    public VerifiedTokenCache(TokenRevocationRegistry tokenRevocationRegistry,
+                              @Value("${security.jwt.cache.max-size:10000}") int maxSize,
+                              @Value("${security.jwt.cache.ttl-seconds:300}") long ttlSeconds) {
+        this(tokenRevocationRegistry, maxSize, ttlSeconds, Ticker.systemTicker());
+    }
+
+    VerifiedTokenCache(TokenRevocationRegistry tokenRevocationRegistry, int maxSize, long ttlSeconds,
+                       Ticker ticker) {
+        this.tokenRevocationRegistry = tokenRevocationRegistry;
+        this.ttlMillis = ttlSeconds * 1000;
+        this.tokens = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new TokenExpiry())
+                .ticker(ticker)
+                // evictions are a few map operations, done by the request that caused them
+                .executor(Runnable::run)
+                .build();
+    }
+
+    public Optional<UserDetails> get(String jsonWebToken) {
+        String digest = digest(jsonWebToken);
+        VerifiedToken verifiedToken = tokens.getIfPresent(digest);
+        if (verifiedToken == null) {
+            return Optional.empty();
+        }
+        if (tokenRevocationRegistry.isRevoked(verifiedToken.userDetails().getUsername(), verifiedToken.issuedAt())) {
+            tokens.invalidate(digest);
+            return Optional.empty();
+        }
+        return Optional.of(verifiedToken.userDetails());
+    }
+
+    public void put(String jsonWebToken, UserDetails userDetails, Date issuedAt, Date expiration) {
+        long lifetimeMillis = Math.min(expiration.getTime() - System.currentTimeMillis(), ttlMillis);
+        if (lifetimeMillis <= 0) {
+            return;
+        }
+        tokens.put(digest(jsonWebToken), new VerifiedToken(userDetails, issuedAt,
+                TimeUnit.MILLISECONDS.toNanos(lifetimeMillis)));
+    }
+
+    @EventListener
+    public void onAccountChanged(AccountChangedEvent event) {
+        tokens.asMap().values().removeIf(verifiedToken ->
+                verifiedToken.userDetails().getUsername().equals(event.getUsername()));
+    }
+
+    private static String digest(String jsonWebToken) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256")
+                    .digest(jsonWebToken.getBytes(StandardCharsets.US_ASCII)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private record VerifiedToken(UserDetails userDetails, Date issuedAt, long lifetimeNanos) {
+    }
+
+    /**
+     * Each entry expires after its own lifetime, fixed when it is put; reads do not extend it.
+     */
+    private static final class TokenExpiry implements Expiry<String, VerifiedToken> {
+
+        @Override
+        public long expireAfterCreate(String digest, VerifiedToken verifiedToken, long currentTime) {
+            return verifiedToken.lifetimeNanos();
+        }
+
+        @Override
+        public long expireAfterUpdate(String digest, VerifiedToken verifiedToken, long currentTime,
+                                      long currentDuration) {
+            return verifiedToken.lifetimeNanos();
+        }
+
+        @Override
+        public long expireAfterRead(String digest, VerifiedToken verifiedToken, long currentTime,
+                                    long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
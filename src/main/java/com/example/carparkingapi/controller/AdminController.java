@@ -1,14 +1,18 @@
 package com.example.carparkingapi.controller;
 
 import com.example.carparkingapi.command.CarCommand;
+import com.example.carparkingapi.command.CarSearchCommand;
 import com.example.carparkingapi.command.EditCommand;
 import com.example.carparkingapi.command.ParkingCommand;
+import com.example.carparkingapi.command.ParkingSpotCommand;
 import com.example.carparkingapi.dto.*;
 import com.example.carparkingapi.model.ActionType;
 import com.example.carparkingapi.service.ActionService;
 import com.example.carparkingapi.service.AdminService;
 import com.example.carparkingapi.service.CarService;
 import com.example.carparkingapi.service.ParkingService;
+import com.example.carparkingapi.service.ParkingSpotService;
+import com.example.carparkingapi.service.stream.OccupancyBroadcaster;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
@@ -20,11 +24,15 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.web.PageableDefault;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import javax.validation.Valid;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import static com.example.carparkingapi.util.Constants.*;
 
@@ -42,6 +50,10 @@ public class AdminController {
 
     private final ActionService actionService;
 
+    private final ParkingSpotService parkingSpotService;
+
+    private final OccupancyBroadcaster occupancyBroadcaster;
+
     @Operation(summary = "Update customer")
     @ApiResponse(responseCode = "200", description = "Successful update of customer details",
             content = @Content(mediaType = "application/json",
@@ -78,6 +90,18 @@ public class AdminController {
         return new ResponseEntity<>(adminService.updateParking(parkingId, editCommand), HttpStatus.OK);
     }
 
+    @Operation(summary = "Update parking spot dimensions")
+    @ApiResponse(responseCode = "200", description = "Successful update of parking spot dimensions",
+            content = @Content(mediaType = "application/json",
+                    schema = @Schema(implementation = ParkingSpotDTO.class)))
+    @PutMapping("/parking/{parkingId}/spots/{spotNumber}")
+    public ResponseEntity<ParkingSpotDTO> updateParkingSpot(@PathVariable Long parkingId, @PathVariable int spotNumber,
+                                                            @RequestBody @Valid ParkingSpotCommand parkingSpotCommand) {
+        adminService.verifyAdminAccessAndSaveAction(ActionType.UPDATING_PARKING_SPOT);
+        return new ResponseEntity<>(parkingSpotService.updateSpot(parkingId, spotNumber, parkingSpotCommand),
+                HttpStatus.OK);
+    }
+
     @Operation(summary = "enable customer account")
     @ApiResponse(responseCode = "200", description = "Successful enabling of customer account")
     @PutMapping("/customers/enable-account/{customerId}")
@@ -127,6 +151,17 @@ public class AdminController {
         return new ResponseEntity<>(actionService.getActionsForAdmin(pageable), HttpStatus.OK);
     }
 
+    @Operation(summary = "Get all actions by cursor")
+    @ApiResponse(responseCode = "200", description = "Successful retrieval of a slice of actions, newest first",
+            content = @Content(mediaType = "application/json",
+                    schema = @Schema(implementation = CursorSlice.class)))
+    @GetMapping("/action/all/cursor")
+    public ResponseEntity<CursorSlice<ActionDTO>> getAllActionsByCursor(@RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "15") int size) {
+        adminService.verifyAdminAccessAndSaveAction(ActionType.RETRIEVING_ALL_ACTIONS);
+        return new ResponseEntity<>(actionService.getActionsForAdmin(cursor, size), HttpStatus.OK);
+    }
+
     @Operation(summary = "Get all customers")
     @ApiResponse(responseCode = "200", description = "Successful retrieval of all customers",
             content = @Content(mediaType = "application/json",
@@ -138,6 +173,17 @@ public class AdminController {
         return new ResponseEntity<>(adminService.getAllCustomers(pageable), HttpStatus.OK);
     }
 
+    @Operation(summary = "Get all customers by cursor")
+    @ApiResponse(responseCode = "200", description = "Successful retrieval of a slice of customers",
+            content = @Content(mediaType = "application/json",
+                    schema = @Schema(implementation = CursorSlice.class)))
+    @GetMapping("customers/all/cursor")
+    public ResponseEntity<CursorSlice<CustomerDTO>> getAllCustomersByCursor(@RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "15") int size) {
+        adminService.verifyAdminAccessAndSaveAction(ActionType.RETRIEVING_ALL_CUSTOMERS);
+        return new ResponseEntity<>(adminService.getAllCustomers(cursor, size), HttpStatus.OK);
+    }
+
     @Operation(summary = "Get all cars")
     @ApiResponse(responseCode = "200", description = "Successful retrieval of all cars",
             content = @Content(mediaType = "application/json",
@@ -149,6 +195,40 @@ public class AdminController {
         return new ResponseEntity<>(carService.getAllCars(pageable), HttpStatus.OK);
     }
 
+    @Operation(summary = "Get all cars by cursor")
+    @ApiResponse(responseCode = "200", description = "Successful retrieval of a slice of cars",
+            content = @Content(mediaType = "application/json",
+                    schema = @Schema(implementation = CursorSlice.class)))
+    @GetMapping("/cars/all/cursor")
+    public ResponseEntity<CursorSlice<CarDTO>> getAllCarsByCursor(@RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "15") int size) {
+        adminService.verifyAdminAccessAndSaveAction(ActionType.RETRIEVING_ALL_CARS);
+        return new ResponseEntity<>(carService.getAllCars(cursor, size), HttpStatus.OK);
+    }
+
+    @Operation(summary = "Suggest car names")
+    @ApiResponse(responseCode = "200", description = "Brands, models and brand model names of all cars starting with the prefix",
+            content = @Content(mediaType = "application/json",
+                    schema = @Schema(implementation = CarNameSuggestionDTO.class)))
+    @GetMapping("/cars/suggest")
+    public ResponseEntity<List<CarNameSuggestionDTO>> suggestCarNames(@RequestParam String prefix,
+                                                                      @RequestParam(defaultValue = "10") int limit) {
+        adminService.verifyAdminAccessAndSaveAction(ActionType.SUGGESTING_CAR_NAMES);
+        return new ResponseEntity<>(carService.suggestCarNames(prefix, false, limit), HttpStatus.OK);
+    }
+
+    @Operation(summary = "Search cars")
+    @ApiResponse(responseCode = "200", description = "Successful retrieval of a slice of cars matching all given criteria",
+            content = @Content(mediaType = "application/json",
+                    schema = @Schema(implementation = CursorSlice.class)))
+    @PostMapping("/cars/search")
+    public ResponseEntity<CursorSlice<CarDTO>> searchCars(@RequestBody @Valid CarSearchCommand carSearchCommand,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "15") int size) {
+        adminService.verifyAdminAccessAndSaveAction(ActionType.SEARCHING_CARS);
+        return new ResponseEntity<>(carService.searchCars(carSearchCommand, false, cursor, size), HttpStatus.OK);
+    }
+
     @Operation(summary = "Get all parkings")
     @ApiResponse(responseCode = "200", description = "Successful retrieval of all parkings",
             content = @Content(mediaType = "application/json",
@@ -160,6 +240,26 @@ public class AdminController {
         return new ResponseEntity<>(parkingService.getAllParkings(pageable), HttpStatus.OK);
     }
 
+    @Operation(summary = "Get all parkings by cursor")
+    @ApiResponse(responseCode = "200", description = "Successful retrieval of a slice of parkings",
+            content = @Content(mediaType = "application/json",
+                    schema = @Schema(implementation = CursorSlice.class)))
+    @GetMapping("/parking/all/cursor")
+    public ResponseEntity<CursorSlice<ParkingDTO>> getAllParkingsByCursor(@RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "15") int size) {
+        adminService.verifyAdminAccessAndSaveAction(ActionType.RETRIEVING_ALL_PARKINGS);
+        return new ResponseEntity<>(parkingService.getAllParkings(cursor, size), HttpStatus.OK);
+    }
+
+    @Operation(summary = "Stream parking occupancy")
+    @ApiResponse(responseCode = "200", description = "Server-Sent Events stream of occupancy deltas, " +
+            "each event carries the changed parkings with their taken and taken electric places")
+    @GetMapping(value = "/parking/occupancy/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamParkingOccupancy() {
+        adminService.verifyAdminAccessAndSaveAction(ActionType.STREAMING_PARKING_OCCUPANCY);
+        return occupancyBroadcaster.subscribe();
+    }
+
     @Operation(summary = "saving one car")
     @PostMapping("/cars/save")
     public ResponseEntity<Void> addCar(@RequestBody @Valid CarCommand carCommand) {
@@ -205,12 +305,13 @@ public class AdminController {
 
 
     @Operation(summary = "Park a car")
-    @ApiResponse(responseCode = "200", description = "Successful parking of a car")
+    @ApiResponse(responseCode = "200", description = "Successful parking of a car, returns the assigned spot",
+            content = @Content(mediaType = "application/json",
+                    schema = @Schema(implementation = ParkingSpotDTO.class)))
     @PostMapping("/cars/{carId}/park/{parkingId}")
-    public ResponseEntity<Void> parkCar(@PathVariable Long carId, @PathVariable Long parkingId) {
+    public ResponseEntity<ParkingSpotDTO> parkCar(@PathVariable Long carId, @PathVariable Long parkingId) {
         adminService.verifyAdminAccessAndSaveAction(ActionType.PARKING_CAR);
-        carService.parkCar(carId, parkingId);
-        return new ResponseEntity<>(HttpStatus.OK);
+        return new ResponseEntity<>(carService.parkCar(carId, parkingId), HttpStatus.OK);
     }
 
 
@@ -235,6 +336,18 @@ public class AdminController {
         return new ResponseEntity<>(parkingService.findAllCarsFromParking(parkingId, pageable), HttpStatus.OK);
     }
 
+    @Operation(summary = "Get all cars from parking by cursor")
+    @ApiResponse(responseCode = "200", description = "Successful retrieval of a slice of cars from parking",
+            content = @Content(mediaType = "application/json",
+                    schema = @Schema(implementation = CursorSlice.class)))
+    @GetMapping("/parking/{parkingId}/cars/cursor")
+    public ResponseEntity<CursorSlice<CarDTO>> getAllCarsFromParkingByCursor(@PathVariable Long parkingId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "15") int size) {
+        adminService.verifyAdminAccessAndSaveAction(ActionType.RETRIEVING_ALL_CARS_FROM_PARKING);
+        return new ResponseEntity<>(parkingService.findAllCarsFromParking(parkingId, cursor, size), HttpStatus.OK);
+    }
+
     @Operation(summary = "Count all cars from parking")
     @ApiResponse(responseCode = "200", description = "getting count of all cars in parking",
             content = @Content(mediaType = "application/json",
@@ -242,7 +355,17 @@ public class AdminController {
     @GetMapping("/parking/{parkingId}/cars/count")
     public ResponseEntity<Integer> countAllCarsFromParking(@PathVariable Long parkingId) {
         adminService.verifyAdminAccessAndSaveAction(ActionType.RETRIEVING_CARS_COUNT_FROM_PARKING);
-        return new ResponseEntity<>(parkingService.findById(parkingId).getCars().size(), HttpStatus.OK);
+        return new ResponseEntity<>(parkingService.countCarsFromParking(parkingId), HttpStatus.OK);
+    }
+
+    @Operation(summary = "Count cars in many parkings")
+    @ApiResponse(responseCode = "200", description = "getting count of all cars per given parking",
+            content = @Content(mediaType = "application/json",
+                    schema = @Schema(implementation = Map.class)))
+    @GetMapping("/parking/cars/count")
+    public ResponseEntity<Map<Long, Long>> countAllCarsFromParkings(@RequestParam Set<Long> parkingIds) {
+        adminService.verifyAdminAccessAndSaveAction(ActionType.RETRIEVING_CARS_COUNT_FROM_PARKING);
+        return new ResponseEntity<>(parkingService.countCarsFromParkings(parkingIds), HttpStatus.OK);
     }
 
     @Operation(summary = "Get the most expensive car")
@@ -255,6 +378,16 @@ public class AdminController {
         return new ResponseEntity<>(carService.findMostExpensiveCar(), HttpStatus.OK);
     }
 
+    @Operation(summary = "Get the most expensive cars")
+    @ApiResponse(responseCode = "200", description = "Successful retrieval of up to k most expensive cars",
+            content = @Content(mediaType = "application/json",
+                    schema = @Schema(implementation = CarDTO.class)))
+    @GetMapping("/cars/top")
+    public ResponseEntity<List<CarDTO>> getMostExpensiveCars(@RequestParam(defaultValue = "10") int k) {
+        adminService.verifyAdminAccessAndSaveAction(ActionType.RETRIEVING_MOST_EXPENSIVE_CARS);
+        return new ResponseEntity<>(carService.findMostExpensiveCars(k), HttpStatus.OK);
+    }
+
     @Operation(summary = "Get the most expensive car from parking")
     @ApiResponse(responseCode = "200", description = "Successful retrieval of the most expensive car from given parking",
             content = @Content(mediaType = "application/json",
@@ -264,4 +397,15 @@ public class AdminController {
         adminService.verifyAdminAccessAndSaveAction(ActionType.RETRIEVING_MOST_EXPENSIVE_CAR_FROM_PARKING);
         return new ResponseEntity<>(parkingService.findMostExpensiveCarFromParking(parkingId), HttpStatus.OK);
     }
+
+    @Operation(summary = "Get the most expensive cars from parking")
+    @ApiResponse(responseCode = "200", description = "Successful retrieval of up to n most expensive cars from given parking",
+            content = @Content(mediaType = "application/json",
+                    schema = @Schema(implementation = CarDTO.class)))
+    @GetMapping("/parking/{parkingId}/cars/top")
+    public ResponseEntity<List<CarDTO>> getMostExpensiveCarsFromParking(@PathVariable Long parkingId,
+                                                                        @RequestParam(defaultValue = "10") int n) {
+        adminService.verifyAdminAccessAndSaveAction(ActionType.RETRIEVING_MOST_EXPENSIVE_CARS_FROM_PARKING);
+        return new ResponseEntity<>(parkingService.findMostExpensiveCarsFromParking(parkingId, n), HttpStatus.OK);
+    }
 }
\ No newline at end of file
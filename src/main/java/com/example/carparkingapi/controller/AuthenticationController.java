@@ -4,6 +4,7 @@ import com.example.carparkingapi.command.AdminCommand;
 import com.example.carparkingapi.command.CustomerCommand;
 import com.example.carparkingapi.dto.AdminDTO;
 import com.example.carparkingapi.dto.CustomerDTO;
+import com.example.carparkingapi.dto.VerificationKeyDTO;
 import com.example.carparkingapi.model.AuthenticationRequest;
 import com.example.carparkingapi.model.AuthenticationResponse;
 import com.example.carparkingapi.service.AuthenticationService;
@@ -16,12 +17,14 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
 import javax.validation.Valid;
+import java.util.List;
 
 @RestController
 @RequiredArgsConstructor
@@ -77,4 +80,16 @@ public class AuthenticationController {
     public ResponseEntity<AuthenticationResponse> authenticateAdmin(@RequestBody AuthenticationRequest request) {
         return ResponseEntity.ok(authService.authenticateAdmin(request));
     }
+
+
+    @Operation(summary = "Get token verification keys", description = "The endpoint through which services verifying tokens get the public keys they are signed with")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Got the keys",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = VerificationKeyDTO.class))})
+    })
+    @GetMapping("/keys")
+    public ResponseEntity<List<VerificationKeyDTO>> getVerificationKeys() {
+        return ResponseEntity.ok(authService.getVerificationKeys());
+    }
 }
@@ -1,15 +1,28 @@
 package com.example.carparkingapi.controller;
 
 import com.example.carparkingapi.command.CarCommand;
+import com.example.carparkingapi.command.CarSearchCommand;
+import com.example.carparkingapi.command.ReservationCommand;
 import com.example.carparkingapi.dto.CarDTO;
+import com.example.carparkingapi.dto.CarNameSuggestionDTO;
+import com.example.carparkingapi.dto.CompatibleParkingDTO;
+import com.example.carparkingapi.dto.CursorSlice;
+import com.example.carparkingapi.dto.ParkingSpotDTO;
+import com.example.carparkingapi.dto.ReservationDTO;
+import com.example.carparkingapi.dto.WaitlistPositionDTO;
 import com.example.carparkingapi.model.Fuel;
 import com.example.carparkingapi.service.CarService;
 import com.example.carparkingapi.service.CustomUserDetailsService;
+import com.example.carparkingapi.service.ParkingService;
+import com.example.carparkingapi.service.ReservationService;
+import com.example.carparkingapi.service.WaitlistService;
+import com.example.carparkingapi.service.waitlist.WaitlistEntry;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
@@ -17,9 +30,12 @@ import org.springframework.data.web.PageableDefault;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
 
 import javax.validation.Valid;
 import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CancellationException;
 
 @RestController
 @RequiredArgsConstructor
@@ -28,6 +44,12 @@ public class CustomerController {
 
     private final CarService carService;
     private final CustomUserDetailsService customUserDetailsService;
+    private final ParkingService parkingService;
+    private final WaitlistService waitlistService;
+    private final ReservationService reservationService;
+
+    @Value("${parking.waitlist.poll-timeout-ms:30000}")
+    private long waitlistPollTimeout;
 
     @Operation(summary = "Get all cars by customer")
     @ApiResponse(responseCode = "200", description = "Successful retrieval of all cars by customer",
@@ -40,6 +62,40 @@ public class CustomerController {
         return new ResponseEntity<>(carService.findAllCarsByCustomer(pageable), HttpStatus.OK);
     }
 
+    @Operation(summary = "Get all cars by customer by cursor")
+    @ApiResponse(responseCode = "200", description = "Successful retrieval of a slice of cars by customer, cheapest first",
+            content = @Content(mediaType = "application/json",
+                    schema = @Schema(implementation = CursorSlice.class)))
+    @GetMapping("/cars/cursor")
+    public ResponseEntity<CursorSlice<CarDTO>> getAllCarsByCustomerByCursor(@RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "15") int size) {
+        customUserDetailsService.verifyCustomerAccess();
+        return new ResponseEntity<>(carService.findAllCarsByCustomer(cursor, size), HttpStatus.OK);
+    }
+
+    @Operation(summary = "Suggest car names of a customer")
+    @ApiResponse(responseCode = "200", description = "Brands, models and brand model names of the customer's cars starting with the prefix",
+            content = @Content(mediaType = "application/json",
+                    schema = @Schema(implementation = CarNameSuggestionDTO.class)))
+    @GetMapping("/cars/suggest")
+    public ResponseEntity<List<CarNameSuggestionDTO>> suggestCarNames(@RequestParam String prefix,
+                                                                      @RequestParam(defaultValue = "10") int limit) {
+        customUserDetailsService.verifyCustomerAccess();
+        return new ResponseEntity<>(carService.suggestCarNames(prefix, true, limit), HttpStatus.OK);
+    }
+
+    @Operation(summary = "Search cars of a customer")
+    @ApiResponse(responseCode = "200", description = "Successful retrieval of a slice of the customer's cars matching all given criteria",
+            content = @Content(mediaType = "application/json",
+                    schema = @Schema(implementation = CursorSlice.class)))
+    @PostMapping("/cars/search")
+    public ResponseEntity<CursorSlice<CarDTO>> searchCars(@RequestBody @Valid CarSearchCommand carSearchCommand,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "15") int size) {
+        customUserDetailsService.verifyCustomerAccess();
+        return new ResponseEntity<>(carService.searchCars(carSearchCommand, true, cursor, size), HttpStatus.OK);
+    }
+
     @Operation(summary = "Get all cars by customer and brand")
     @ApiResponse(responseCode = "200", description = "Successful retrieval of all cars by customer and brand",
             content = @Content(mediaType = "application/json",
@@ -52,6 +108,18 @@ public class CustomerController {
         return new ResponseEntity<>(carService.findAllCarsByCustomerAndBrand(brand, pageable), HttpStatus.OK);
     }
 
+    @Operation(summary = "Get all cars by customer and brand by cursor")
+    @ApiResponse(responseCode = "200", description = "Successful retrieval of a slice of cars by customer and brand, cheapest first",
+            content = @Content(mediaType = "application/json",
+                    schema = @Schema(implementation = CursorSlice.class)))
+    @GetMapping("/cars/all/brand/{brand}/cursor")
+    public ResponseEntity<CursorSlice<CarDTO>> getAllCarsByCustomerAndBrandByCursor(@PathVariable String brand,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "15") int size) {
+        customUserDetailsService.verifyCustomerAccess();
+        return new ResponseEntity<>(carService.findAllCarsByCustomerAndBrand(brand, cursor, size), HttpStatus.OK);
+    }
+
     @Operation(summary = "Get all cars by customer and fuel type")
     @ApiResponse(responseCode = "200", description = "Successful retrieval of all cars by customer and fuel type",
             content = @Content(mediaType = "application/json",
@@ -63,14 +131,26 @@ public class CustomerController {
         return new ResponseEntity<>(carService.findAllCarsByCustomerAndFuel(fuel, pageable), HttpStatus.OK);
     }
 
+    @Operation(summary = "Get all cars by customer and fuel type by cursor")
+    @ApiResponse(responseCode = "200", description = "Successful retrieval of a slice of cars by customer and fuel type, cheapest first",
+            content = @Content(mediaType = "application/json",
+                    schema = @Schema(implementation = CursorSlice.class)))
+    @GetMapping("/cars/all/fuel/{fuel}/cursor")
+    public ResponseEntity<CursorSlice<CarDTO>> getAllCarsByCustomerAndFuelByCursor(@PathVariable Fuel fuel,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "15") int size) {
+        customUserDetailsService.verifyCustomerAccess();
+        return new ResponseEntity<>(carService.findAllCarsByCustomerAndFuel(fuel, cursor, size), HttpStatus.OK);
+    }
+
     @Operation(summary = "Get the most expensive car for a customer")
     @ApiResponse(responseCode = "200", description = "Successful retrieval of the most expensive car for a customer",
             content = @Content(mediaType = "application/json",
                     schema = @Schema(implementation = CarDTO.class)))
     @GetMapping("/cars/most-expensive")
-    public ResponseEntity<CarDTO> getMostExpensiveCar(Pageable pageable) {
+    public ResponseEntity<CarDTO> getMostExpensiveCar() {
         customUserDetailsService.verifyCustomerAccess();
-        return new ResponseEntity<>(carService.findMostExpensiveCarForCustomer(pageable), HttpStatus.OK);
+        return new ResponseEntity<>(carService.findMostExpensiveCarForCustomer(), HttpStatus.OK);
     }
 
     @Operation(summary = "Get the most expensive car by brand for a customer")
@@ -78,9 +158,21 @@ public class CustomerController {
             content = @Content(mediaType = "application/json",
                     schema = @Schema(implementation = CarDTO.class)))
     @GetMapping("/cars/most-expensive/{brand}")
-    public ResponseEntity<CarDTO> getMostExpensiveCarByBrand(@PathVariable String brand, Pageable pageable) {
+    public ResponseEntity<CarDTO> getMostExpensiveCarByBrand(@PathVariable String brand) {
+        customUserDetailsService.verifyCustomerAccess();
+        return new ResponseEntity<>(carService.findMostExpensiveCarByCustomerAndBrand(brand), HttpStatus.OK);
+    }
+
+    @Operation(summary = "Get the most expensive cars for a customer")
+    @ApiResponse(responseCode = "200", description = "Successful retrieval of up to k most expensive cars for a customer, optionally by brand and fuel",
+            content = @Content(mediaType = "application/json",
+                    schema = @Schema(implementation = CarDTO.class)))
+    @GetMapping("/cars/top")
+    public ResponseEntity<List<CarDTO>> getMostExpensiveCars(@RequestParam(defaultValue = "10") int k,
+                                                             @RequestParam(required = false) String brand,
+                                                             @RequestParam(required = false) Fuel fuel) {
         customUserDetailsService.verifyCustomerAccess();
-        return new ResponseEntity<>(carService.findMostExpensiveCarByCustomerAndBrand(brand, pageable), HttpStatus.OK);
+        return new ResponseEntity<>(carService.findMostExpensiveCarsForCustomer(k, brand, fuel), HttpStatus.OK);
     }
 
     @Operation(summary = "Save a new car")
@@ -111,11 +203,93 @@ public class CustomerController {
     }
 
     @Operation(summary = "Park a car")
-    @ApiResponse(responseCode = "200", description = "Successful parking of a car")
+    @ApiResponse(responseCode = "200", description = "Successful parking of a car, returns the assigned spot",
+            content = @Content(mediaType = "application/json",
+                    schema = @Schema(implementation = ParkingSpotDTO.class)))
     @PostMapping("/cars/{carId}/park/{parkingId}")
-    public ResponseEntity<Void> parkCar(@PathVariable Long carId, @PathVariable Long parkingId) {
+    public ResponseEntity<ParkingSpotDTO> parkCar(@PathVariable Long carId, @PathVariable Long parkingId) {
+        customUserDetailsService.verifyCustomerAccess();
+        return new ResponseEntity<>(carService.parkCar(carId, parkingId), HttpStatus.OK);
+    }
+
+    @Operation(summary = "Get parkings compatible with a car")
+    @ApiResponse(responseCode = "200", description = "Successful retrieval of parkings the car can be parked on, " +
+            "the ones with the most free places first",
+            content = @Content(mediaType = "application/json",
+                    schema = @Schema(implementation = CursorSlice.class)))
+    @GetMapping("/cars/{carId}/compatible-parkings")
+    public ResponseEntity<CursorSlice<CompatibleParkingDTO>> getCompatibleParkings(@PathVariable Long carId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "15") int size) {
+        customUserDetailsService.verifyCustomerAccess();
+        return new ResponseEntity<>(parkingService.findCompatibleParkings(carId, cursor, size), HttpStatus.OK);
+    }
+
+    @Operation(summary = "Join the waitlist of a full parking")
+    @ApiResponse(responseCode = "200", description = "The car was parked, returns the assigned spot",
+            content = @Content(mediaType = "application/json",
+                    schema = @Schema(implementation = ParkingSpotDTO.class)))
+    @ApiResponse(responseCode = "202", description = "The car is still waiting, returns its position",
+            content = @Content(mediaType = "application/json",
+                    schema = @Schema(implementation = WaitlistPositionDTO.class)))
+    @PostMapping("/cars/{carId}/waitlist/{parkingId}")
+    public DeferredResult<ResponseEntity<Object>> joinWaitlist(@PathVariable Long carId, @PathVariable Long parkingId) {
+        customUserDetailsService.verifyCustomerAccess();
+        return awaitSpot(waitlistService.join(carId, parkingId));
+    }
+
+    @Operation(summary = "Wait for a spot on the waitlist")
+    @ApiResponse(responseCode = "200", description = "The car was parked, returns the assigned spot",
+            content = @Content(mediaType = "application/json",
+                    schema = @Schema(implementation = ParkingSpotDTO.class)))
+    @ApiResponse(responseCode = "202", description = "The car is still waiting, returns its position",
+            content = @Content(mediaType = "application/json",
+                    schema = @Schema(implementation = WaitlistPositionDTO.class)))
+    @GetMapping("/cars/{carId}/waitlist")
+    public DeferredResult<ResponseEntity<Object>> awaitWaitlistSpot(@PathVariable Long carId) {
+        customUserDetailsService.verifyCustomerAccess();
+        return awaitSpot(waitlistService.findEntry(carId));
+    }
+
+    @Operation(summary = "Leave the waitlist")
+    @ApiResponse(responseCode = "200", description = "Successful removal of a car from the waitlist")
+    @DeleteMapping("/cars/{carId}/waitlist")
+    public ResponseEntity<Void> leaveWaitlist(@PathVariable Long carId) {
         customUserDetailsService.verifyCustomerAccess();
-        carService.parkCar(carId, parkingId);
+        waitlistService.leave(carId);
+        return new ResponseEntity<>(HttpStatus.OK);
+    }
+
+    @Operation(summary = "Reserve a place in a parking")
+    @ApiResponse(responseCode = "201", description = "Successful reservation of a place for a time window",
+            content = @Content(mediaType = "application/json",
+                    schema = @Schema(implementation = ReservationDTO.class)))
+    @PostMapping("/cars/{carId}/reservations/{parkingId}")
+    public ResponseEntity<ReservationDTO> reserve(@PathVariable Long carId, @PathVariable Long parkingId,
+                                                  @RequestBody @Valid ReservationCommand reservationCommand) {
+        customUserDetailsService.verifyCustomerAccess();
+        return new ResponseEntity<>(reservationService.reserve(carId, parkingId, reservationCommand,
+                customUserDetailsService.getCurrentCustomerId()),
+                HttpStatus.CREATED);
+    }
+
+    @Operation(summary = "Get reservations of a car")
+    @ApiResponse(responseCode = "200", description = "Successful retrieval of reservations of a car",
+            content = @Content(mediaType = "application/json",
+                    schema = @Schema(implementation = List.class)))
+    @GetMapping("/cars/{carId}/reservations")
+    public ResponseEntity<List<ReservationDTO>> getReservations(@PathVariable Long carId) {
+        customUserDetailsService.verifyCustomerAccess();
+        return new ResponseEntity<>(reservationService.getReservations(carId,
+                customUserDetailsService.getCurrentCustomerId()), HttpStatus.OK);
+    }
+
+    @Operation(summary = "Cancel a reservation")
+    @ApiResponse(responseCode = "200", description = "Successful cancellation of a reservation")
+    @DeleteMapping("/reservations/{reservationId}")
+    public ResponseEntity<Void> cancelReservation(@PathVariable Long reservationId) {
+        customUserDetailsService.verifyCustomerAccess();
+        reservationService.cancel(reservationId, customUserDetailsService.getCurrentCustomerId());
         return new ResponseEntity<>(HttpStatus.OK);
     }
 
@@ -127,4 +301,23 @@ public class CustomerController {
         carService.leaveParking(carId);
         return new ResponseEntity<>(HttpStatus.OK);
     }
+
+    /**
+     * Long-polls the waitlist entry: answers as soon as the car is parked, or with its current position once
+     * {@code parking.waitlist.poll-timeout-ms} passes, after which the client polls again.
+     */
+    private DeferredResult<ResponseEntity<Object>> awaitSpot(WaitlistEntry entry) {
+        DeferredResult<ResponseEntity<Object>> result = new DeferredResult<>(waitlistPollTimeout,
+                () -> new ResponseEntity<>(waitlistService.getPosition(entry), HttpStatus.ACCEPTED));
+        entry.getSpot().whenComplete((spot, exception) -> {
+            if (Objects.isNull(exception)) {
+                result.setResult(new ResponseEntity<>(spot, HttpStatus.OK));
+            } else if (exception instanceof CancellationException) {
+                result.setResult(new ResponseEntity<>(HttpStatus.NO_CONTENT));
+            } else {
+                result.setErrorResult(exception);
+            }
+        });
+        return result;
+    }
 }
@@ -1,5 +1,8 @@
 package com.example.carparkingapi.domain;
 
+import com.example.carparkingapi.config.jpa.CarBrandConverter;
+import com.example.carparkingapi.config.jpa.CarModelConverter;
+import com.example.carparkingapi.config.jpa.CarNameListener;
 import com.example.carparkingapi.model.Fuel;
 import lombok.*;
 
@@ -18,6 +21,7 @@ import java.time.LocalDate;
 @Valid
 @AllArgsConstructor
 @NoArgsConstructor
+@EntityListeners(CarNameListener.class)
 public class Car {
 
     @Id
@@ -25,9 +29,13 @@ public class Car {
     private Long id;
 
     @NotBlank(message = "Brand cannot be null or blank")
+    @Convert(converter = CarBrandConverter.class)
+    @Column(name = "brand_id")
     private String brand;
 
     @NotBlank(message = "Model cannot be null or blank")
+    @Convert(converter = CarModelConverter.class)
+    @Column(name = "model_id")
     private String model;
 
     @Positive(message = "Price must be positive, cannot be null or blank")
@@ -51,6 +59,11 @@ public class Car {
     @JoinColumn(name = "parking_id")
     private Parking parking;
 
+    @ToString.Exclude
+    @OneToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "parking_spot_id")
+    private ParkingSpot parkingSpot;
+
     @ToString.Exclude
     @ManyToOne(fetch = FetchType.LAZY, cascade = CascadeType.MERGE)
     @JoinColumn(name = "customer_id")
@@ -0,0 +1,34 @@
+package com.example.carparkingapi.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+
+/**
+ * One of the counter rows a parking's taken places are spread over in the {@code sharded} occupancy mode.
+ * Every slot owns a share of the capacity, so admissions to different slots never lock the same row.
+ */
+@Data
+@Entity
+@AllArgsConstructor
+@NoArgsConstructor
+public class ParkingOccupancySlot {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    private Long parkingId;
+
+    private int slot;
+
+    private int capacity;
+
+    private int electricCapacity;
+
+    private int takenPlaces;
+
+    private int takenElectricPlaces;
+}
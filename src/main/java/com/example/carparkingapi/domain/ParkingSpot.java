@@ -0,0 +1,31 @@
+package com.example.carparkingapi.domain;
+
+import lombok.*;
+
+import javax.persistence.*;
+
+@Entity
+@ToString
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class ParkingSpot {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ToString.Exclude
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "parking_id")
+    private Parking parking;
+
+    private int spotNumber;
+
+    private boolean electric;
+
+    private int length;
+
+    private int width;
+}
@@ -1,11 +1,15 @@
 package com.example.carparkingapi.dto;
 
 import com.example.carparkingapi.model.Fuel;
+import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 import java.time.LocalDate;
 
 @Data
+@AllArgsConstructor
+@NoArgsConstructor
 public class CarDTO {
     private String brand;
 
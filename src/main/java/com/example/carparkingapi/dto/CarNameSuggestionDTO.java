@@ -0,0 +1,15 @@
+package com.example.carparkingapi.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CarNameSuggestionDTO {
+
+    private String name;
+
+    private int cars;
+}
@@ -0,0 +1,24 @@
+package com.example.carparkingapi.dto;
+
+import com.example.carparkingapi.model.ParkingType;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CompatibleParkingDTO {
+
+    private Long parkingId;
+
+    private String name;
+
+    private String adress;
+
+    private ParkingType parkingType;
+
+    private int freePlaces;
+
+    private int freeElectricPlaces;
+}
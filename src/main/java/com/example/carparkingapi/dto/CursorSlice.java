@@ -0,0 +1,50 @@
+package com.example.carparkingapi.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.List;
+import java.util.function.Function;
+
+import static com.example.carparkingapi.util.Constants.MAX_SLICE_SIZE;
+
+/**
+ * One slice of a keyset-paginated list. Unlike a page it carries no total count, {@code nextCursor} continues the
+ * list and is {@code null} on the last slice.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CursorSlice<T> {
+
+    private List<T> content;
+
+    private String nextCursor;
+
+    private boolean hasNext;
+
+    public static int size(int requestedSize) {
+        return Math.max(1, Math.min(requestedSize, MAX_SLICE_SIZE));
+    }
+
+    /**
+     * Limit of the query for a slice of the given size, see {@link #of}.
+     */
+    public static PageRequest limit(int size) {
+        return PageRequest.of(0, size + 1);
+    }
+
+    /**
+     * Builds a slice from rows fetched with a limit of {@code size + 1}, the extra row only tells whether there is
+     * a next slice.
+     */
+    public static <E, T> CursorSlice<T> of(List<E> rows, int size, Function<E, T> mapper,
+                                           Function<E, String> cursor) {
+        boolean hasNext = rows.size() > size;
+        List<E> slice = hasNext ? rows.subList(0, size) : rows;
+        return new CursorSlice<>(slice.stream().map(mapper).toList(),
+                hasNext ? cursor.apply(slice.get(size - 1)) : null, hasNext);
+    }
+}
@@ -1,9 +1,13 @@
 package com.example.carparkingapi.dto;
 
 import com.example.carparkingapi.model.ParkingType;
+import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 @Data
+@AllArgsConstructor
+@NoArgsConstructor
 public class ParkingDTO {
 
     private String name;
@@ -0,0 +1,17 @@
+package com.example.carparkingapi.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ParkingOccupancyDTO {
+
+    private Long parkingId;
+
+    private int takenPlaces;
+
+    private int takenElectricPlaces;
+}
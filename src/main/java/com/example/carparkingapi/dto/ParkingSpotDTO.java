@@ -0,0 +1,21 @@
+package com.example.carparkingapi.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ParkingSpotDTO {
+
+    private Long parkingId;
+
+    private int spotNumber;
+
+    private boolean electric;
+
+    private int length;
+
+    private int width;
+}
@@ -0,0 +1,23 @@
+package com.example.carparkingapi.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ReservationDTO {
+
+    private Long id;
+
+    private Long carId;
+
+    private Long parkingId;
+
+    private LocalDateTime reservedFrom;
+
+    private LocalDateTime reservedTo;
+}
@@ -0,0 +1,17 @@
+package com.example.carparkingapi.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class VerificationKeyDTO {
+
+    private String keyId;
+
+    private String algorithm;
+
+    private String publicKey;
+}
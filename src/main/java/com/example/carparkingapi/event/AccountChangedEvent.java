@@ -0,0 +1,17 @@
+package com.example.carparkingapi.event;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Published after an account was locked, unlocked, enabled or disabled; {@code accessRevoked} is set when the
+ * change takes access away and the tokens issued so far must stop working.
+ */
+@Getter
+@RequiredArgsConstructor
+public class AccountChangedEvent {
+
+    private final String username;
+
+    private final boolean accessRevoked;
+}
@@ -0,0 +1,14 @@
+package com.example.carparkingapi.event;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Published after a car was created, edited or deleted.
+ */
+@Getter
+@RequiredArgsConstructor
+public class CarChangedEvent {
+
+    private final Long carId;
+}
@@ -0,0 +1,14 @@
+package com.example.carparkingapi.event;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Published after a parking was created, edited or deleted, or after the dimensions of its spots changed.
+ */
+@Getter
+@RequiredArgsConstructor
+public class ParkingChangedEvent {
+
+    private final Long parkingId;
+}
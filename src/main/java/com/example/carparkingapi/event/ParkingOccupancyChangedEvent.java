@@ -0,0 +1,18 @@
+package com.example.carparkingapi.event;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Published after a car was parked ({@code delta = 1}) or left a parking ({@code delta = -1}).
+ */
+@Getter
+@RequiredArgsConstructor
+public class ParkingOccupancyChangedEvent {
+
+    private final Long parkingId;
+
+    private final boolean electric;
+
+    private final int delta;
+}
@@ -0,0 +1,13 @@
+package com.example.carparkingapi.exception.not.found;
+
+import lombok.NoArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(value = HttpStatus.NOT_FOUND)
+@NoArgsConstructor
+public class ParkingSpotNotFoundException extends RuntimeException {
+    public ParkingSpotNotFoundException(String message) {
+        super(message);
+    }
+}
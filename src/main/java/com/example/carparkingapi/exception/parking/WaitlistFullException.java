@@ -0,0 +1,13 @@
+package com.example.carparkingapi.exception.parking;
+
+import lombok.NoArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@NoArgsConstructor
+@ResponseStatus(value = HttpStatus.BAD_REQUEST)
+public class WaitlistFullException extends RuntimeException {
+    public WaitlistFullException(String message) {
+        super(message);
+    }
+}
@@ -10,15 +10,21 @@ public enum ActionType {
     RETRIEVING_CAR,
     RETRIEVING_PARKING,
     RETRIEVING_ALL_CARS,
+    SEARCHING_CARS,
+    SUGGESTING_CAR_NAMES,
     RETRIEVING_ALL_PARKINGS,
+    STREAMING_PARKING_OCCUPANCY,
     RETRIEVING_ALL_CUSTOMERS,
     RETRIEVING_CUSTOMER,
     RETRIEVING_ALL_CARS_FROM_PARKING,
     RETRIEVING_CARS_COUNT_FROM_PARKING,
     RETRIEVING_MOST_EXPENSIVE_CAR,
+    RETRIEVING_MOST_EXPENSIVE_CARS,
     RETRIEVING_MOST_EXPENSIVE_CAR_FROM_PARKING,
+    RETRIEVING_MOST_EXPENSIVE_CARS_FROM_PARKING,
     UPDATING_CAR,
     UPDATING_PARKING,
+    UPDATING_PARKING_SPOT,
     UPDATING_CUSTOMER,
     ENABLE_CUSTOMER,
     DISABLE_CUSTOMER_ACCOUNT,
@@ -0,0 +1,12 @@
+package com.example.carparkingapi.model;
+
+public interface CarName {
+
+    Long getId();
+
+    Long getCustomerId();
+
+    String getBrand();
+
+    String getModel();
+}
@@ -0,0 +1,69 @@
+package com.example.carparkingapi.model;
+
+import com.example.carparkingapi.exception.other.InvalidCursorException;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Objects;
+
+import static com.example.carparkingapi.util.Constants.INVALID_CURSOR_ERROR_MESSAGE;
+
+/**
+ * Position in a keyset-paginated list: the sort key and id of the last row a client has seen. It is handed out as an
+ * opaque url-safe token, the next slice continues strictly after it.
+ */
+@Getter
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+public class Cursor {
+
+    private final String key;
+
+    private final long id;
+
+    public static String encode(Object key, Long id) {
+        String value = Objects.toString(key, "") + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Returns {@code null} for a missing token, which stands for the first slice.
+     */
+    public static Cursor decode(String token) {
+        if (Objects.isNull(token) || token.isBlank()) {
+            return null;
+        }
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = value.lastIndexOf(':');
+            return new Cursor(value.substring(0, separator), Long.parseLong(value.substring(separator + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new InvalidCursorException(INVALID_CURSOR_ERROR_MESSAGE);
+        }
+    }
+
+    /**
+     * Returns the id of the cursor, or {@code first} for the first slice.
+     */
+    public static long idOf(Cursor cursor, long first) {
+        return Objects.isNull(cursor) ? first : cursor.getId();
+    }
+
+    public double getKeyAsDouble() {
+        try {
+            return Double.parseDouble(key);
+        } catch (NumberFormatException e) {
+            throw new InvalidCursorException(INVALID_CURSOR_ERROR_MESSAGE);
+        }
+    }
+
+    public int getKeyAsInt() {
+        try {
+            return Integer.parseInt(key);
+        } catch (NumberFormatException e) {
+            throw new InvalidCursorException(INVALID_CURSOR_ERROR_MESSAGE);
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package com.example.carparkingapi.model;
+
+public interface ParkingCarCount {
+
+    Long getParkingId();
+
+    long getCars();
+}
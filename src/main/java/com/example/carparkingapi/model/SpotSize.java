@@ -0,0 +1,12 @@
+package com.example.carparkingapi.model;
+
+public interface SpotSize {
+
+    Long getParkingId();
+
+    int getLength();
+
+    int getWidth();
+
+    boolean isElectric();
+}
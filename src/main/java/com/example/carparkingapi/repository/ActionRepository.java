@@ -7,8 +7,12 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import java.util.List;
+
 public interface ActionRepository extends JpaRepository<Action, Long> {
     @NotNull Page<Action> findAll(@NotNull Pageable pageable);
 
     Page<Action> findByCreatedBy(Admin admin, Pageable pageable);
+
+    List<Action> findByCreatedByAndIdLessThanOrderByIdDesc(Admin admin, Long id, Pageable pageable);
 }
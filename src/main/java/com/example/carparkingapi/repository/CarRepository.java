@@ -2,24 +2,124 @@ package com.example.carparkingapi.repository;
 
 
 import com.example.carparkingapi.domain.Car;
+import com.example.carparkingapi.dto.CarDTO;
+import com.example.carparkingapi.model.CarName;
 import com.example.carparkingapi.model.Fuel;
+import com.example.carparkingapi.model.ParkingCarCount;
 import org.jetbrains.annotations.NotNull;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
-public interface CarRepository extends JpaRepository<Car, Long> {
-    Page<Car> findAllByParkingId(Long parkingId, Pageable pageable);
+public interface CarRepository extends JpaRepository<Car, Long>, CarSearchRepository {
 
-    Page<Car> findAllCarsByCustomerUsername(String username, Pageable pageable);
+    /**
+     * Selects straight into {@link CarDTO}, the list reads below skip entity hydration and the mapper.
+     */
+    String SELECT_CAR_DTO = "select new com.example.carparkingapi.dto.CarDTO(c.brand, c.model, c.price, c.fuel, " +
+            "c.length, c.width, c.dateOfProduction) from Car c";
 
-    Page<Car> findAllByCustomerUsernameAndFuel(String username, Fuel fuel, Pageable pageable);
+    @Query(value = SELECT_CAR_DTO, countQuery = "select count(c) from Car c")
+    Page<CarDTO> findAllCarDTOs(Pageable pageable);
 
-    Page<Car> findAllByCustomerUsernameAndBrand(String username, String brand, Pageable pageable);
+    @Query(value = SELECT_CAR_DTO + " where c.parking.id = :parkingId",
+            countQuery = "select count(c) from Car c where c.parking.id = :parkingId")
+    Page<CarDTO> findCarDTOsByParkingId(@Param("parkingId") Long parkingId, Pageable pageable);
+
+    @Query(value = SELECT_CAR_DTO + " where c.customer.id = :customerId",
+            countQuery = "select count(c) from Car c where c.customer.id = :customerId")
+    Page<CarDTO> findCarDTOsByCustomerId(@Param("customerId") Long customerId, Pageable pageable);
+
+    @Query(value = SELECT_CAR_DTO + " where c.customer.id = :customerId and c.fuel = :fuel",
+            countQuery = "select count(c) from Car c where c.customer.id = :customerId and c.fuel = :fuel")
+    Page<CarDTO> findCarDTOsByCustomerIdAndFuel(@Param("customerId") Long customerId, @Param("fuel") Fuel fuel,
+                                                Pageable pageable);
+
+    @Query(value = SELECT_CAR_DTO + " where c.customer.id = :customerId and c.brand = :brand",
+            countQuery = "select count(c) from Car c where c.customer.id = :customerId and c.brand = :brand")
+    Page<CarDTO> findCarDTOsByCustomerIdAndBrand(@Param("customerId") Long customerId,
+                                                 @Param("brand") String brand, Pageable pageable);
 
     @NotNull Page<Car> findAll(@NotNull Pageable pageable);
 
+    List<Car> findAllByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    @Query("select c from Car c where c.parking.id = :parkingId and c.id > :id order by c.id")
+    List<Car> findAllByParkingIdAndIdGreaterThanOrderByIdAsc(@Param("parkingId") Long parkingId, @Param("id") Long id,
+                                                            Pageable pageable);
+
+    @Query("select c from Car c where c.customer.id = :customerId " +
+            "and (c.price > :price or (c.price = :price and c.id > :id)) order by c.price, c.id")
+    List<Car> findAllByCustomerIdAfter(@Param("customerId") Long customerId, @Param("price") double price,
+                                       @Param("id") Long id, Pageable pageable);
+
+    @Query("select c from Car c where c.customer.id = :customerId and c.brand = :brand " +
+            "and (c.price > :price or (c.price = :price and c.id > :id)) order by c.price, c.id")
+    List<Car> findAllByCustomerIdAndBrandAfter(@Param("customerId") Long customerId, @Param("brand") String brand,
+                                               @Param("price") double price, @Param("id") Long id,
+                                               Pageable pageable);
+
+    @Query("select c from Car c where c.customer.id = :customerId and c.fuel = :fuel " +
+            "and (c.price > :price or (c.price = :price and c.id > :id)) order by c.price, c.id")
+    List<Car> findAllByCustomerIdAndFuelAfter(@Param("customerId") Long customerId, @Param("fuel") Fuel fuel,
+                                              @Param("price") double price, @Param("id") Long id,
+                                              Pageable pageable);
+
+    @Query("select c from Car c where c.id = :id and c.customer.id = :customerId")
+    Optional<Car> findByIdAndCustomerId(@Param("id") Long id, @Param("customerId") Long customerId);
+
+    Optional<Car> findFirstByOrderByPriceDesc();
+
+    List<Car> findAllByOrderByPriceDesc(Pageable pageable);
+
+    /**
+     * Written out like the queries by customer below: derived from the method name, {@code ParkingId} becomes a left
+     * outer join of the parking and the whole car table is read instead of the {@code car(parking_id, price)} index.
+     */
+    @Query("select c from Car c where c.parking.id = :parkingId order by c.price desc")
+    List<Car> findAllByParkingIdOrderByPriceDesc(@Param("parkingId") Long parkingId, Pageable pageable);
+
+    @Query("select c from Car c where c.customer.id = :customerId order by c.price desc")
+    List<Car> findAllByCustomerIdOrderByPriceDesc(@Param("customerId") Long customerId, Pageable pageable);
+
+    @Query("select c from Car c where c.customer.id = :customerId and c.brand = :brand order by c.price desc")
+    List<Car> findAllByCustomerIdAndBrandOrderByPriceDesc(@Param("customerId") Long customerId,
+                                                          @Param("brand") String brand, Pageable pageable);
+
+    @Query("select c from Car c where c.customer.id = :customerId and c.fuel = :fuel order by c.price desc")
+    List<Car> findAllByCustomerIdAndFuelOrderByPriceDesc(@Param("customerId") Long customerId,
+                                                         @Param("fuel") Fuel fuel, Pageable pageable);
+
+    @Query("select c from Car c where c.customer.id = :customerId and c.brand = :brand and c.fuel = :fuel " +
+            "order by c.price desc")
+    List<Car> findAllByCustomerIdAndBrandAndFuelOrderByPriceDesc(@Param("customerId") Long customerId,
+                                                                 @Param("brand") String brand,
+                                                                 @Param("fuel") Fuel fuel,
+                                                                 Pageable pageable);
+
     Optional<Car> findCarByCustomerUsernameAndBrandAndModel(String username, String brand, String model);
+
+    @Query("select count(c) from Car c where c.parking.id = :parkingId")
+    int countByParkingId(@Param("parkingId") Long parkingId);
+
+    @Query("select c.parking.id as parkingId, count(c) as cars from Car c where c.parking.id in :parkingIds " +
+            "group by c.parking.id")
+    List<ParkingCarCount> countByParkingIds(@Param("parkingIds") Collection<Long> parkingIds);
+
+    @Query("select c.id as id, cu.id as customerId, c.brand as brand, c.model as model " +
+            "from Car c left join c.customer cu")
+    List<CarName> findAllCarNames();
+
+    @Query("select c.id as id, cu.id as customerId, c.brand as brand, c.model as model " +
+            "from Car c left join c.customer cu where c.id = :id")
+    Optional<CarName> findCarNameById(@Param("id") Long id);
+
+    @Query("select c.parkingSpot.id from Car c where c.parking.id = :parkingId and c.parkingSpot is not null")
+    List<Long> findOccupiedSpotIds(@Param("parkingId") Long parkingId);
 }
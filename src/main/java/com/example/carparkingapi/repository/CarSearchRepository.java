@@ -0,0 +1,16 @@
+package com.example.carparkingapi.repository;
+
+import com.example.carparkingapi.domain.Car;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+public interface CarSearchRepository {
+
+    /**
+     * Returns at most {@code limit.getPageSize()} cars matching the specification ordered by id, without the count
+     * query {@code JpaSpecificationExecutor} pages would run.
+     */
+    List<Car> search(Specification<Car> specification, Pageable limit);
+}
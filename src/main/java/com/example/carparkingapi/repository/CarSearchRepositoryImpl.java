@@ -0,0 +1,31 @@
+package com.example.carparkingapi.repository;
+
+import com.example.carparkingapi.domain.Car;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Root;
+import java.util.List;
+
+public class CarSearchRepositoryImpl implements CarSearchRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Car> search(Specification<Car> specification, Pageable limit) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Car> query = criteriaBuilder.createQuery(Car.class);
+        Root<Car> car = query.from(Car.class);
+        query.select(car)
+                .where(specification.toPredicate(car, query, criteriaBuilder))
+                .orderBy(criteriaBuilder.asc(car.get("id")));
+        return entityManager.createQuery(query)
+                .setMaxResults(limit.getPageSize())
+                .getResultList();
+    }
+}
@@ -1,16 +1,25 @@
 package com.example.carparkingapi.repository;
 
 import com.example.carparkingapi.domain.Customer;
+import com.example.carparkingapi.dto.CustomerDTO;
 import org.jetbrains.annotations.NotNull;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
+import java.util.List;
 import java.util.Optional;
 
 public interface CustomerRepository extends JpaRepository<Customer, Long> {
     Optional<Customer> findCustomerByUsername(String username);
 
     @NotNull Page<Customer> findAll(@NotNull Pageable pageable);
+
+    @Query(value = "select new com.example.carparkingapi.dto.CustomerDTO(c.firstName, c.lastName, c.username, " +
+            "c.password) from Customer c", countQuery = "select count(c) from Customer c")
+    Page<CustomerDTO> findAllCustomerDTOs(Pageable pageable);
+
+    List<Customer> findAllByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
 }
 
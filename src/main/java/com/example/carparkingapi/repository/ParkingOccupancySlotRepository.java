@@ -0,0 +1,60 @@
+package com.example.carparkingapi.repository;
+
+import com.example.carparkingapi.domain.ParkingOccupancySlot;
+import com.example.carparkingapi.model.OccupancyTotals;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.LockModeType;
+import java.util.List;
+
+public interface ParkingOccupancySlotRepository extends JpaRepository<ParkingOccupancySlot, Long> {
+
+    List<ParkingOccupancySlot> findAllByParkingIdOrderBySlot(Long parkingId);
+
+    /**
+     * Locks all slots of the parking, always in slot order, for admissions that have to look at more than one slot.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select s from ParkingOccupancySlot s where s.parkingId = :parkingId order by s.slot")
+    List<ParkingOccupancySlot> findAllByParkingIdForUpdate(@Param("parkingId") Long parkingId);
+
+    boolean existsByParkingId(Long parkingId);
+
+    @Query("select coalesce(sum(s.takenPlaces), 0) as takenPlaces, " +
+            "coalesce(sum(s.takenElectricPlaces), 0) as takenElectricPlaces " +
+            "from ParkingOccupancySlot s where s.parkingId = :parkingId")
+    OccupancyTotals sumOccupancy(@Param("parkingId") Long parkingId);
+
+    @Transactional
+    @Modifying
+    @Query("update ParkingOccupancySlot s set s.takenPlaces = s.takenPlaces + 1 " +
+            "where s.parkingId = :parkingId and s.slot = :slot and s.takenPlaces + :heldBack < s.capacity")
+    int admitCar(@Param("parkingId") Long parkingId, @Param("slot") int slot, @Param("heldBack") int heldBack);
+
+    @Transactional
+    @Modifying
+    @Query("update ParkingOccupancySlot s set s.takenPlaces = s.takenPlaces + 1, " +
+            "s.takenElectricPlaces = s.takenElectricPlaces + 1 " +
+            "where s.parkingId = :parkingId and s.slot = :slot and s.takenPlaces + :heldBack < s.capacity " +
+            "and s.takenElectricPlaces < s.electricCapacity")
+    int admitElectricCar(@Param("parkingId") Long parkingId, @Param("slot") int slot,
+                         @Param("heldBack") int heldBack);
+
+    @Transactional
+    @Modifying
+    @Query("update ParkingOccupancySlot s set s.takenPlaces = s.takenPlaces - 1 " +
+            "where s.parkingId = :parkingId and s.slot = :slot and s.takenPlaces > s.takenElectricPlaces")
+    int releaseCar(@Param("parkingId") Long parkingId, @Param("slot") int slot);
+
+    @Transactional
+    @Modifying
+    @Query("update ParkingOccupancySlot s set s.takenPlaces = s.takenPlaces - 1, " +
+            "s.takenElectricPlaces = s.takenElectricPlaces - 1 " +
+            "where s.parkingId = :parkingId and s.slot = :slot and s.takenElectricPlaces > 0")
+    int releaseElectricCar(@Param("parkingId") Long parkingId, @Param("slot") int slot);
+}
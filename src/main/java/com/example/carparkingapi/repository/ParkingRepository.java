@@ -2,7 +2,64 @@ package com.example.carparkingapi.repository;
 
 
 import com.example.carparkingapi.domain.Parking;
+import com.example.carparkingapi.dto.ParkingDTO;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Optional;
 
 public interface ParkingRepository extends JpaRepository<Parking, Long> {
+
+    @Query(value = "select new com.example.carparkingapi.dto.ParkingDTO(p.name, p.adress, p.capacity, p.parkingType, " +
+            "p.parkingSpotWidth, p.parkingSpotLength, p.placesForElectricCars, p.takenElectricPlaces, p.takenPlaces) " +
+            "from Parking p", countQuery = "select count(p) from Parking p")
+    Page<ParkingDTO> findAllParkingDTOs(Pageable pageable);
+
+    List<Parking> findAllByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    /**
+     * Reads the counter as stored, a managed {@link Parking} of the persistence context may predate the guarded
+     * updates below, which do not clear it.
+     */
+    @Query("select p.takenPlaces from Parking p where p.id = :id")
+    Optional<Integer> findTakenPlacesById(@Param("id") Long id);
+
+    @Transactional
+    @Modifying
+    @Query("update Parking p set p.takenPlaces = :takenPlaces, p.takenElectricPlaces = :takenElectricPlaces " +
+            "where p.id = :id")
+    int updateOccupancy(@Param("id") Long id, @Param("takenPlaces") int takenPlaces,
+                        @Param("takenElectricPlaces") int takenElectricPlaces);
+
+    @Transactional
+    @Modifying(flushAutomatically = true)
+    @Query("update Parking p set p.takenPlaces = p.takenPlaces + 1 " +
+            "where p.id = :id and p.takenPlaces + :heldBack < p.capacity")
+    int admitCar(@Param("id") Long id, @Param("heldBack") int heldBack);
+
+    @Transactional
+    @Modifying(flushAutomatically = true)
+    @Query("update Parking p set p.takenPlaces = p.takenPlaces + 1, " +
+            "p.takenElectricPlaces = p.takenElectricPlaces + 1 where p.id = :id " +
+            "and p.takenPlaces + :heldBack < p.capacity and p.takenElectricPlaces < p.placesForElectricCars")
+    int admitElectricCar(@Param("id") Long id, @Param("heldBack") int heldBack);
+
+    @Transactional
+    @Modifying(flushAutomatically = true)
+    @Query("update Parking p set p.takenPlaces = p.takenPlaces - 1 where p.id = :id " +
+            "and p.takenPlaces > p.takenElectricPlaces")
+    int releaseCar(@Param("id") Long id);
+
+    @Transactional
+    @Modifying(flushAutomatically = true)
+    @Query("update Parking p set p.takenPlaces = p.takenPlaces - 1, " +
+            "p.takenElectricPlaces = p.takenElectricPlaces - 1 where p.id = :id " +
+            "and p.takenPlaces > 0 and p.takenElectricPlaces > 0")
+    int releaseElectricCar(@Param("id") Long id);
 }
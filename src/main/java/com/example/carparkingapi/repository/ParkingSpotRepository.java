@@ -0,0 +1,38 @@
+package com.example.carparkingapi.repository;
+
+import com.example.carparkingapi.domain.ParkingSpot;
+import com.example.carparkingapi.model.SpotSize;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface ParkingSpotRepository extends JpaRepository<ParkingSpot, Long> {
+
+    @Query("select s from ParkingSpot s where s.parking.id = :parkingId order by s.spotNumber")
+    List<ParkingSpot> findAllByParkingIdOrderBySpotNumber(@Param("parkingId") Long parkingId);
+
+    @Query("select s from ParkingSpot s where s.parking.id = :parkingId and s.spotNumber = :spotNumber")
+    Optional<ParkingSpot> findByParkingIdAndSpotNumber(@Param("parkingId") Long parkingId,
+                                                       @Param("spotNumber") int spotNumber);
+
+    @Query("select distinct s.parking.id as parkingId, s.length as length, s.width as width, " +
+            "s.electric as electric from ParkingSpot s")
+    List<SpotSize> findAllSpotSizes();
+
+    @Query("select distinct s.parking.id as parkingId, s.length as length, s.width as width, " +
+            "s.electric as electric from ParkingSpot s where s.parking.id = :parkingId")
+    List<SpotSize> findSpotSizesByParkingId(@Param("parkingId") Long parkingId);
+
+    @Transactional
+    @Modifying
+    @Query("update ParkingSpot s set s.length = :length, s.width = :width where s.parking.id = :parkingId " +
+            "and s.length = :previousLength and s.width = :previousWidth")
+    int resizeByParkingIdAndSize(@Param("parkingId") Long parkingId, @Param("previousLength") int previousLength,
+                                 @Param("previousWidth") int previousWidth, @Param("length") int length,
+                                 @Param("width") int width);
+}
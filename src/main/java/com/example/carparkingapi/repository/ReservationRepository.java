@@ -0,0 +1,40 @@
+package com.example.carparkingapi.repository;
+
+import com.example.carparkingapi.domain.Reservation;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Queries by car or parking are written out, derived from the method name they would join the association and
+ * scan the reservation table instead of using the {@code reservation(car_id, ...)} and
+ * {@code reservation(parking_id, ...)} indexes.
+ */
+public interface ReservationRepository extends JpaRepository<Reservation, Long> {
+
+    @Query("select r from Reservation r where r.parking.id = :parkingId and r.reservedTo > :time")
+    List<Reservation> findAllByParkingIdAndReservedToAfter(@Param("parkingId") Long parkingId,
+                                                          @Param("time") LocalDateTime time);
+
+    @Query("select r from Reservation r where r.car.id = :carId order by r.reservedFrom")
+    List<Reservation> findAllByCarIdOrderByReservedFrom(@Param("carId") Long carId);
+
+    Optional<Reservation> findByIdAndCarCustomerId(Long id, Long customerId);
+
+    @Query("select count(r) > 0 from Reservation r where r.car.id = :carId and r.reservedFrom < :to " +
+            "and r.reservedTo > :from")
+    boolean existsByCarIdAndReservedFromBeforeAndReservedToAfter(@Param("carId") Long carId,
+                                                                 @Param("to") LocalDateTime to,
+                                                                 @Param("from") LocalDateTime from);
+
+    @Query("select r from Reservation r where r.car.id = :carId and r.parking.id = :parkingId " +
+            "and r.reservedFrom <= :from and r.reservedTo > :to")
+    List<Reservation> findAllByCarIdAndParkingIdAndReservedFromLessThanEqualAndReservedToAfter(
+            @Param("carId") Long carId, @Param("parkingId") Long parkingId, @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to, Pageable pageable);
+}
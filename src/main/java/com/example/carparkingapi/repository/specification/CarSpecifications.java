@@ -0,0 +1,93 @@
+package com.example.carparkingapi.repository.specification;
+
+import com.example.carparkingapi.command.CarSearchCommand;
+import com.example.carparkingapi.domain.Car;
+import com.example.carparkingapi.service.dictionary.CarNameDictionary;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * Building blocks of car searches. Each returns {@code null} for a missing criterion, which
+ * {@link Specification#and} skips, so a search only adds the predicates it was asked for.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class CarSpecifications {
+
+    public static Specification<Car> matching(CarSearchCommand carSearchCommand, CarNameDictionary carNameDictionary) {
+        return Specification.where(priceBetween(carSearchCommand.getMinPrice(), carSearchCommand.getMaxPrice()))
+                .and(fuelIn(carSearchCommand))
+                .and(startsWith("brand", carSearchCommand.getBrandPrefix(), carNameDictionary::brandsStartingWith))
+                .and(startsWith("model", carSearchCommand.getModelPrefix(), carNameDictionary::modelsStartingWith))
+                .and(between("dateOfProduction", carSearchCommand.getProducedFrom(), carSearchCommand.getProducedTo()))
+                .and(between("length", carSearchCommand.getMinLength(), carSearchCommand.getMaxLength()))
+                .and(between("width", carSearchCommand.getMinWidth(), carSearchCommand.getMaxWidth()))
+                .and(parked(carSearchCommand.getParked()));
+    }
+
+    public static Specification<Car> ownedBy(Long customerId) {
+        return (car, query, criteriaBuilder) ->
+                criteriaBuilder.equal(car.get("customer").get("id"), customerId);
+    }
+
+    /**
+     * Keyset condition of the slice after the car with the given id.
+     */
+    public static Specification<Car> idGreaterThan(long id) {
+        return (car, query, criteriaBuilder) -> criteriaBuilder.greaterThan(car.<Long>get("id"), id);
+    }
+
+    private static Specification<Car> priceBetween(Double min, Double max) {
+        return between("price", min, max);
+    }
+
+    private static Specification<Car> fuelIn(CarSearchCommand carSearchCommand) {
+        if (Objects.isNull(carSearchCommand.getFuels()) || carSearchCommand.getFuels().isEmpty()) {
+            return null;
+        }
+        return (car, query, criteriaBuilder) -> car.get("fuel").in(carSearchCommand.getFuels());
+    }
+
+    /**
+     * Case-sensitive prefix match. Brands and models are stored as dictionary ids, so the prefix is resolved to the
+     * matching names first and the column is compared with {@code in}, which the database answers from an index.
+     */
+    private static Specification<Car> startsWith(String attribute, String prefix,
+                                                 Function<String, List<String>> namesStartingWith) {
+        if (Objects.isNull(prefix) || prefix.isEmpty()) {
+            return null;
+        }
+        List<String> names = namesStartingWith.apply(prefix);
+        return (car, query, criteriaBuilder) -> names.isEmpty()
+                ? criteriaBuilder.disjunction()
+                : car.get(attribute).in(names);
+    }
+
+    private static <T extends Comparable<? super T>> Specification<Car> between(String attribute, T min, T max) {
+        if (Objects.isNull(min) && Objects.isNull(max)) {
+            return null;
+        }
+        return (car, query, criteriaBuilder) -> {
+            if (Objects.isNull(max)) {
+                return criteriaBuilder.greaterThanOrEqualTo(car.<T>get(attribute), min);
+            }
+            if (Objects.isNull(min)) {
+                return criteriaBuilder.lessThanOrEqualTo(car.<T>get(attribute), max);
+            }
+            return criteriaBuilder.between(car.<T>get(attribute), min, max);
+        };
+    }
+
+    private static Specification<Car> parked(Boolean parked) {
+        if (Objects.isNull(parked)) {
+            return null;
+        }
+        return (car, query, criteriaBuilder) -> Boolean.TRUE.equals(parked)
+                ? criteriaBuilder.isNotNull(car.get("parking"))
+                : criteriaBuilder.isNull(car.get("parking"));
+    }
+}
@@ -5,7 +5,9 @@ import com.example.carparkingapi.action.edit.action.EditAction;
 import com.example.carparkingapi.config.map.struct.ActionMapper;
 import com.example.carparkingapi.domain.Admin;
 import com.example.carparkingapi.dto.ActionDTO;
+import com.example.carparkingapi.dto.CursorSlice;
 import com.example.carparkingapi.model.ActionType;
+import com.example.carparkingapi.model.Cursor;
 import com.example.carparkingapi.repository.ActionRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
@@ -26,7 +28,7 @@ public class ActionService {
 
     @Transactional
     public void saveAction(ActionType actionType) {
-        Admin currentAdmin = (Admin) customUserDetailsService.loadUserByUsername(customUserDetailsService.getCurrentUsername());
+        Admin currentAdmin = customUserDetailsService.getCurrentAdmin();
 
         Action action = new Action();
         action.setActionType(actionType);
@@ -40,7 +42,7 @@ public class ActionService {
     public void saveAction(ActionType actionType, Long entityId, String entityType,
                            String fieldName, String oldValue, String newValue) {
 
-        Admin currentAdmin = (Admin) customUserDetailsService.loadUserByUsername(customUserDetailsService.getCurrentUsername());
+        Admin currentAdmin = customUserDetailsService.getCurrentAdmin();
 
         EditAction editAction = new EditAction();
         editAction.setActionType(actionType);
@@ -57,7 +59,19 @@ public class ActionService {
     }
 
     public Page<ActionDTO> getActionsForAdmin(Pageable pageable) {
-        Admin currentAdmin = (Admin) customUserDetailsService.loadUserByUsername(customUserDetailsService.getCurrentUsername());
+        Admin currentAdmin = customUserDetailsService.getCurrentAdmin();
         return actionRepository.findByCreatedBy(currentAdmin, pageable).map(actionMapper::actionToActionDTO);
     }
+
+    /**
+     * Newest actions first. Ids grow with creation, so they give the same order as the creation date and serve as
+     * the only keyset column.
+     */
+    public CursorSlice<ActionDTO> getActionsForAdmin(String cursor, int size) {
+        Admin currentAdmin = customUserDetailsService.getCurrentAdmin();
+        int sliceSize = CursorSlice.size(size);
+        return CursorSlice.of(actionRepository.findByCreatedByAndIdLessThanOrderByIdDesc(currentAdmin,
+                        Cursor.idOf(Cursor.decode(cursor), Long.MAX_VALUE), CursorSlice.limit(sliceSize)),
+                sliceSize, actionMapper::actionToActionDTO, action -> Cursor.encode(null, action.getId()));
+    }
 }
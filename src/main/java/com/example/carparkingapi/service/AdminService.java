@@ -8,24 +8,32 @@ import com.example.carparkingapi.domain.Car;
 import com.example.carparkingapi.domain.Customer;
 import com.example.carparkingapi.domain.Parking;
 import com.example.carparkingapi.dto.CarDTO;
+import com.example.carparkingapi.dto.CursorSlice;
 import com.example.carparkingapi.dto.CustomerDTO;
 import com.example.carparkingapi.dto.ParkingDTO;
+import com.example.carparkingapi.event.AccountChangedEvent;
+import com.example.carparkingapi.event.CarChangedEvent;
+import com.example.carparkingapi.event.ParkingChangedEvent;
 import com.example.carparkingapi.exception.not.found.CarNotFoundException;
 import com.example.carparkingapi.exception.not.found.CustomerNotFoundException;
 import com.example.carparkingapi.exception.not.found.ParkingNotFoundException;
 import com.example.carparkingapi.exception.other.InvalidFieldNameException;
 import com.example.carparkingapi.exception.security.InvalidCredentialsException;
 import com.example.carparkingapi.model.ActionType;
+import com.example.carparkingapi.model.Cursor;
 import com.example.carparkingapi.model.Fuel;
 import com.example.carparkingapi.model.ParkingType;
-import com.example.carparkingapi.repository.AdminRepository;
 import com.example.carparkingapi.repository.CarRepository;
 import com.example.carparkingapi.repository.CustomerRepository;
 import com.example.carparkingapi.repository.ParkingRepository;
+import com.example.carparkingapi.service.dictionary.CarNameDictionary;
+import com.example.carparkingapi.service.occupancy.ParkingOccupancyStrategy;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 
@@ -39,8 +47,6 @@ public class AdminService {
 
     private final EditService editService;
 
-    private final AdminRepository adminRepository;
-
     private final CustomUserDetailsService customUserDetailsService;
 
     private final CustomerRepository customerRepository;
@@ -55,8 +61,16 @@ public class AdminService {
 
     private final ParkingMapper parkingMapper;
 
+    private final ParkingOccupancyStrategy parkingOccupancyStrategy;
+
+    private final ParkingSpotService parkingSpotService;
+
+    private final ApplicationEventPublisher applicationEventPublisher;
+
+    private final CarNameDictionary carNameDictionary;
+
     public void verifyAdminAccessAndSaveAction(ActionType actionType) {
-        if (!adminRepository.existsAdminByUsername(customUserDetailsService.getCurrentUsername())) {
+        if (!customUserDetailsService.isCurrentUserAdmin()) {
             throw new InvalidCredentialsException(ADMIN_NOT_AUTHORIZED_ERROR_MESSAGE);
         }
 
@@ -65,7 +79,7 @@ public class AdminService {
 
     public void verifyAdminAccessAndSaveAction(ActionType actionType, Long entityId, String entityType,
                                                String fieldName, String newValue) {
-        if (!adminRepository.existsAdminByUsername(customUserDetailsService.getCurrentUsername())) {
+        if (!customUserDetailsService.isCurrentUserAdmin()) {
             throw new InvalidCredentialsException(ADMIN_NOT_AUTHORIZED_ERROR_MESSAGE);
         }
 
@@ -75,9 +89,16 @@ public class AdminService {
                 editService.getOldValue(entityId, entityType, fieldName), newValue);
     }
 
+    @Transactional(readOnly = true)
     public Page<CustomerDTO> getAllCustomers(Pageable pageable) {
-        return customerRepository.findAll(pageable)
-                .map(customerMapper::customerToCustomerDTO);
+        return customerRepository.findAllCustomerDTOs(pageable);
+    }
+
+    public CursorSlice<CustomerDTO> getAllCustomers(String cursor, int size) {
+        int sliceSize = CursorSlice.size(size);
+        return CursorSlice.of(customerRepository.findAllByIdGreaterThanOrderByIdAsc(
+                        Cursor.idOf(Cursor.decode(cursor), 0), CursorSlice.limit(sliceSize)),
+                sliceSize, customerMapper::customerToCustomerDTO, customer -> Cursor.encode(null, customer.getId()));
     }
 
 
@@ -111,12 +132,17 @@ public class AdminService {
             default -> throw new InvalidFieldNameException(CAR_FIELD_ERROR_MESSAGE);
         }
 
-        return carMapper.carToCarDTO(carRepository.save(car));
+        carNameDictionary.register(car.getBrand(), car.getModel());
+        CarDTO carDTO = carMapper.carToCarDTO(carRepository.save(car));
+        applicationEventPublisher.publishEvent(new CarChangedEvent(carId));
+        return carDTO;
     }
 
     public ParkingDTO updateParking(Long parkingId, EditCommand editCommand) {
         Parking parking = parkingRepository.findById(parkingId)
                 .orElseThrow(ParkingNotFoundException::new);
+        int previousSpotLength = parking.getParkingSpotLength();
+        int previousSpotWidth = parking.getParkingSpotWidth();
 
         switch (editCommand.getFieldName()) {
             case PARKING_NAME -> parking.setName(editCommand.getNewValue());
@@ -130,7 +156,15 @@ public class AdminService {
             default -> throw new InvalidFieldNameException(PARKING_FIELD_ERROR_MESSAGE);
         }
 
-        return parkingMapper.parkingToParkingDTO(parkingRepository.save(parking));
+        Parking savedParking = parkingRepository.save(parking);
+        parkingOccupancyStrategy.refresh(savedParking);
+        if (PARKING_SPOT_WIDTH.equals(editCommand.getFieldName())
+                || PARKING_SPOT_LENGTH.equals(editCommand.getFieldName())) {
+            parkingSpotService.resizeDefaultSpots(savedParking, previousSpotLength, previousSpotWidth);
+        }
+        parkingSpotService.synchronizeSpots(savedParking);
+        applicationEventPublisher.publishEvent(new ParkingChangedEvent(parkingId));
+        return parkingMapper.parkingToParkingDTO(savedParking);
     }
 
     public void lockCustomerAccount(Long customerId) {
@@ -139,6 +173,7 @@ public class AdminService {
 
         customer.setAccountNonLocked(false);
         customerRepository.save(customer);
+        applicationEventPublisher.publishEvent(new AccountChangedEvent(customer.getUsername(), true));
     }
 
     public void unlockCustomerAccount(Long customerId) {
@@ -147,6 +182,7 @@ public class AdminService {
 
         customer.setAccountNonLocked(true);
         customerRepository.save(customer);
+        applicationEventPublisher.publishEvent(new AccountChangedEvent(customer.getUsername(), false));
     }
 
     public void enableCustomerAccount(Long customerId) {
@@ -155,6 +191,7 @@ public class AdminService {
 
         customer.setAccountEnabled(true);
         customerRepository.save(customer);
+        applicationEventPublisher.publishEvent(new AccountChangedEvent(customer.getUsername(), false));
     }
 
     public void disableCustomerAccount(Long customerId) {
@@ -163,5 +200,6 @@ public class AdminService {
 
         customer.setAccountEnabled(false);
         customerRepository.save(customer);
+        applicationEventPublisher.publishEvent(new AccountChangedEvent(customer.getUsername(), true));
     }
 }
\ No newline at end of file
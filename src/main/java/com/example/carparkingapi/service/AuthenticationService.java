@@ -9,6 +9,7 @@ import com.example.carparkingapi.domain.Admin;
 import com.example.carparkingapi.domain.Customer;
 import com.example.carparkingapi.dto.AdminDTO;
 import com.example.carparkingapi.dto.CustomerDTO;
+import com.example.carparkingapi.dto.VerificationKeyDTO;
 import com.example.carparkingapi.exception.not.found.AdminNotFoundException;
 import com.example.carparkingapi.exception.not.found.CustomerNotFoundException;
 import com.example.carparkingapi.exception.security.InvalidCredentialsException;
@@ -26,6 +27,8 @@ import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
+
 @Service
 @RequiredArgsConstructor
 public class AuthenticationService {
@@ -108,4 +111,8 @@ public class AuthenticationService {
 
         return new AuthenticationResponse(jwtService.generateToken(admin));
     }
-}
\ No newline at end of file
+
+    public List<VerificationKeyDTO> getVerificationKeys() {
+        return jwtService.getVerificationKeys();
+    }
+}
@@ -1,91 +1,155 @@
 package com.example.carparkingapi.service;
 
 import com.example.carparkingapi.command.CarCommand;
+import com.example.carparkingapi.command.CarSearchCommand;
 import com.example.carparkingapi.config.map.struct.CarMapper;
 import com.example.carparkingapi.domain.Car;
 import com.example.carparkingapi.domain.Customer;
 import com.example.carparkingapi.domain.Parking;
+import com.example.carparkingapi.domain.ParkingSpot;
 import com.example.carparkingapi.dto.CarDTO;
+import com.example.carparkingapi.dto.CarNameSuggestionDTO;
+import com.example.carparkingapi.dto.CursorSlice;
+import com.example.carparkingapi.dto.ParkingSpotDTO;
+import com.example.carparkingapi.event.CarChangedEvent;
+import com.example.carparkingapi.event.ParkingOccupancyChangedEvent;
 import com.example.carparkingapi.exception.not.found.CarNotFoundException;
-import com.example.carparkingapi.exception.not.found.CustomerNotFoundException;
 import com.example.carparkingapi.exception.parking.CarParkingStatusException;
+import com.example.carparkingapi.exception.parking.FullParkingException;
+import com.example.carparkingapi.model.Cursor;
 import com.example.carparkingapi.model.Fuel;
 import com.example.carparkingapi.repository.CarRepository;
-import com.example.carparkingapi.repository.CustomerRepository;
+import com.example.carparkingapi.repository.specification.CarSpecifications;
+import com.example.carparkingapi.service.dictionary.CarNameDictionary;
+import com.example.carparkingapi.service.occupancy.ParkingOccupancyStrategy;
+import com.example.carparkingapi.service.suggest.CarNameIndex;
+import com.example.carparkingapi.service.waitlist.ParkingWaitlist;
 import com.example.carparkingapi.util.Utils;
 import lombok.RequiredArgsConstructor;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.*;
 
+import static com.example.carparkingapi.util.Constants.CARS_WAITING_ERROR_MESSAGE;
+import static com.example.carparkingapi.util.Constants.MAX_SUGGESTIONS;
+import static com.example.carparkingapi.util.Constants.MAX_TOP_CARS;
+
 @Service
 @RequiredArgsConstructor
 public class CarService {
 
     private final CarRepository carRepository;
 
-    private final CustomerRepository customerRepository;
-
     private final ParkingService parkingService;
 
+    private final ParkingOccupancyStrategy parkingOccupancyStrategy;
+
+    private final ParkingSpotService parkingSpotService;
+
+    private final ParkingWaitlist parkingWaitlist;
+
+    private final ReservationService reservationService;
+
     private final CustomUserDetailsService customUserDetailsService;
 
     private final CarMapper carMapper;
 
+    private final ApplicationEventPublisher applicationEventPublisher;
+
+    private final CarNameIndex carNameIndex;
+
+    private final CarNameDictionary carNameDictionary;
+
     private final Utils utils;
 
     private static final Logger logger = LogManager.getLogger(CarService.class);
 
+    @Transactional(readOnly = true)
     public Page<CarDTO> getAllCars(Pageable pageable) {
-       return carRepository.findAll(pageable).map(carMapper::carToCarDTO);
+       return carRepository.findAllCarDTOs(pageable);
+    }
+
+    public CursorSlice<CarDTO> getAllCars(String cursor, int size) {
+        int sliceSize = CursorSlice.size(size);
+        return CursorSlice.of(carRepository.findAllByIdGreaterThanOrderByIdAsc(
+                        Cursor.idOf(Cursor.decode(cursor), 0), CursorSlice.limit(sliceSize)),
+                sliceSize, carMapper::carToCarDTO, car -> Cursor.encode(null, car.getId()));
     }
 
     public void save(CarCommand carCommand) {
-        Car car = carMapper.carCommandToCar(carCommand);
-        car.setCustomer(customerRepository.findCustomerByUsername(customUserDetailsService.getCurrentUsername())
-                .orElseThrow(CustomerNotFoundException::new));
-        carRepository.save(car);
+        Car car = toCar(carCommand);
+        car.setCustomer(customUserDetailsService.getCurrentCustomer());
+        publishCarChanged(carRepository.save(car));
     }
 
     public void saveWithoutCustomer(CarCommand carCommand) {
-        carRepository.save(carMapper.carCommandToCar(carCommand));
+        publishCarChanged(carRepository.save(toCar(carCommand)));
     }
 
     public void saveBatch(List<CarCommand> carCommands, Customer customer) {
         carRepository.saveAll(carCommands.stream().map(command -> {
-            Car car = carMapper.carCommandToCar(command);
+            Car car = toCar(command);
             car.setCustomer(customer);
             return car;
-        }).toList());
+        }).toList()).forEach(this::publishCarChanged);
     }
 
     public void saveBatchWithoutCustomer(List<CarCommand> carCommands) {
         carRepository.saveAll(carCommands.stream()
-                .map(carMapper::carCommandToCar)
-                .toList());
+                .map(this::toCar)
+                .toList()).forEach(this::publishCarChanged);
+    }
+
+    /**
+     * Registers the names of the car before it reaches the repository, not while it is flushed.
+     */
+    private Car toCar(CarCommand carCommand) {
+        carNameDictionary.register(carCommand.getBrand(), carCommand.getModel());
+        return carMapper.carCommandToCar(carCommand);
     }
 
     public void delete(Long id) {
         Car car = carRepository.findById(id)
                 .orElseThrow(CarNotFoundException::new);
-        try {
-            leaveParking(car.getId());
-        } catch (CarParkingStatusException e) {
+        if (Objects.nonNull(car.getParking())) {
+            leave(car);
             logger.warn("Attempt to delete a parked car, car left parking before deletion");
         }
 
+        reservationService.cancelAll(id);
         car.getCustomer().getCars().remove(car);
         carRepository.delete(car);
+        applicationEventPublisher.publishEvent(new CarChangedEvent(id));
     }
 
-    public void parkCar(Long carId, Long parkingId) {
+    /**
+     * Turns the car away while the waitlist of the parking holds a car waiting for the same kind of place.
+     */
+    public ParkingSpotDTO parkCar(Long carId, Long parkingId) {
         Car car = carRepository.findById(carId)
                 .orElseThrow(CarNotFoundException::new);
+        if (parkingWaitlist.hasCompetingCars(parkingId, Fuel.ELECTRIC.equals(car.getFuel()))) {
+            throw new FullParkingException(CARS_WAITING_ERROR_MESSAGE);
+        }
+        return park(car, parkingId);
+    }
 
+    /**
+     * Parks the car without looking at the waitlist of the parking, used to hand freed places to waiting cars.
+     */
+    public ParkingSpotDTO parkWaitingCar(Long carId, Long parkingId) {
+        return park(carRepository.findById(carId).orElseThrow(CarNotFoundException::new), parkingId);
+    }
+
+    private ParkingSpotDTO park(Car car, Long parkingId) {
         if (Objects.nonNull(car.getParking())) {
             throw new CarParkingStatusException("Car is already parked");
         }
@@ -93,84 +157,175 @@ public class CarService {
         Parking parking = parkingService.findById(parkingId);
 
         parkingService.validateParkingSpace(parking, car);
+        parkingOccupancyStrategy.admit(parking, car, reservationService.heldBackPlaces(parking, car));
 
-        parking.setTakenPlaces(parking.getTakenPlaces() + 1);
-        car.setParking(parking);
-        if (Objects.equals(Fuel.ELECTRIC, car.getFuel())) {
-            parking.setTakenElectricPlaces(parking.getTakenElectricPlaces() + 1);
+        ParkingSpotDTO parkingSpot;
+        try {
+            parkingSpot = parkingSpotService.assignSpot(parking, car);
+        } catch (RuntimeException e) {
+            parkingSpotService.invalidate(parkingId);
+            parkingOccupancyStrategy.release(parking, car);
+            throw e;
         }
 
-        carRepository.save(car);
+        reservationService.claimReservation(parking, car);
+        applicationEventPublisher.publishEvent(new ParkingOccupancyChangedEvent(parkingId,
+                Fuel.ELECTRIC.equals(car.getFuel()), 1));
+        return parkingSpot;
     }
 
     public void leaveParking(Long carId) {
-        Car car = carRepository.findById(carId).orElseThrow(CarNotFoundException::new);
+        leave(carRepository.findById(carId).orElseThrow(CarNotFoundException::new));
+    }
 
+    private void leave(Car car) {
         Parking parking = Optional.ofNullable(car.getParking())
                 .orElseThrow(() -> new CarParkingStatusException("Car is not parked"));
 
-        parking.setTakenPlaces(parking.getTakenPlaces() - 1);
-
-        if (Objects.equals(Fuel.ELECTRIC, car.getFuel())) {
-            parking.setTakenElectricPlaces(parking.getTakenElectricPlaces() - 1);
-        }
-
+        ParkingSpot parkingSpot = car.getParkingSpot();
         car.setParking(null);
+        car.setParkingSpot(null);
         carRepository.save(car);
+        parkingOccupancyStrategy.release(parking, car);
+        parkingSpotService.freeSpot(parking.getId(), parkingSpot);
+        applicationEventPublisher.publishEvent(new ParkingOccupancyChangedEvent(parking.getId(),
+                Fuel.ELECTRIC.equals(car.getFuel()), -1));
     }
 
     public CarDTO findMostExpensiveCar() {
-        return Optional.of(carRepository.findAll())
-                .orElseGet(Collections::emptyList)
-                .stream()
-                .filter(Objects::nonNull)
-                .max(Comparator.comparing(Car::getPrice))
+        return carRepository.findFirstByOrderByPriceDesc()
                 .map(carMapper::carToCarDTO)
                 .orElseThrow(CarNotFoundException::new);
     }
 
-    public Page<CarDTO> findAllCarsByCustomer(Pageable pageable) {
-        return carRepository.findAllCarsByCustomerUsername(
-                customUserDetailsService.getCurrentUsername(), pageable).map(carMapper::carToCarDTO);
+    /**
+     * Returns up to {@code k} cars ordered by price, read through the {@code car(price)} index.
+     */
+    public List<CarDTO> findMostExpensiveCars(int k) {
+        return carRepository.findAllByOrderByPriceDesc(topCars(k)).stream()
+                .map(carMapper::carToCarDTO)
+                .toList();
+    }
 
+    static PageRequest topCars(int k) {
+        return PageRequest.of(0, Math.max(1, Math.min(k, MAX_TOP_CARS)));
     }
 
-    public Page<CarDTO> findAllCarsByCustomerAndFuel(Fuel fuel, Pageable pageable) {
-        Page<Car> cars = carRepository.findAllByCustomerUsernameAndFuel(
-                customUserDetailsService.getCurrentUsername(), fuel, pageable);
-        return cars.map(carMapper::carToCarDTO);
+    @Transactional(readOnly = true)
+    public Page<CarDTO> findAllCarsByCustomer(Pageable pageable) {
+        return carRepository.findCarDTOsByCustomerId(customUserDetailsService.getCurrentCustomerId(), pageable);
     }
 
+    @Transactional(readOnly = true)
+    public Page<CarDTO> findAllCarsByCustomerAndFuel(Fuel fuel, Pageable pageable) {
+        return carRepository.findCarDTOsByCustomerIdAndFuel(
+                customUserDetailsService.getCurrentCustomerId(), fuel, pageable);
+    }
 
+    @Transactional(readOnly = true)
     public Page<CarDTO> findAllCarsByCustomerAndBrand(String brand, Pageable pageable) {
-        Page<Car> cars = carRepository.findAllByCustomerUsernameAndBrand(
-                customUserDetailsService.getCurrentUsername(), brand, pageable);
-        return cars.map(carMapper::carToCarDTO);
+        return carRepository.findCarDTOsByCustomerIdAndBrand(
+                customUserDetailsService.getCurrentCustomerId(), brand, pageable);
+    }
+
+    /**
+     * Cursor variants of the customer car lists, ordered by price and then id like their paged counterparts.
+     */
+    public CursorSlice<CarDTO> findAllCarsByCustomer(String cursor, int size) {
+        Cursor after = Cursor.decode(cursor);
+        int sliceSize = CursorSlice.size(size);
+        return customerCarSlice(carRepository.findAllByCustomerIdAfter(
+                customUserDetailsService.getCurrentCustomerId(), priceOf(after), Cursor.idOf(after, 0),
+                CursorSlice.limit(sliceSize)), sliceSize);
     }
 
+    public CursorSlice<CarDTO> findAllCarsByCustomerAndFuel(Fuel fuel, String cursor, int size) {
+        Cursor after = Cursor.decode(cursor);
+        int sliceSize = CursorSlice.size(size);
+        return customerCarSlice(carRepository.findAllByCustomerIdAndFuelAfter(
+                customUserDetailsService.getCurrentCustomerId(), fuel, priceOf(after), Cursor.idOf(after, 0),
+                CursorSlice.limit(sliceSize)), sliceSize);
+    }
 
-    public CarDTO findMostExpensiveCarForCustomer(Pageable pageable) {
-        Page<Car> carsPage = carRepository.findAllCarsByCustomerUsername(
-                customUserDetailsService.getCurrentUsername(), pageable);
+    public CursorSlice<CarDTO> findAllCarsByCustomerAndBrand(String brand, String cursor, int size) {
+        Cursor after = Cursor.decode(cursor);
+        int sliceSize = CursorSlice.size(size);
+        return customerCarSlice(carRepository.findAllByCustomerIdAndBrandAfter(
+                customUserDetailsService.getCurrentCustomerId(), brand, priceOf(after), Cursor.idOf(after, 0),
+                CursorSlice.limit(sliceSize)), sliceSize);
+    }
 
-        return carsPage.getContent()
-                .stream()
-                .max(Comparator.comparing(Car::getPrice))
-                .map(carMapper::carToCarDTO)
+    /**
+     * Searches all cars, or only the current customer's when {@code ownCarsOnly} is set, in slices ordered by id.
+     */
+    @Transactional(readOnly = true)
+    public CursorSlice<CarDTO> searchCars(CarSearchCommand carSearchCommand, boolean ownCarsOnly, String cursor,
+                                          int size) {
+        int sliceSize = CursorSlice.size(size);
+        Specification<Car> specification = CarSpecifications.matching(carSearchCommand, carNameDictionary)
+                .and(CarSpecifications.idGreaterThan(Cursor.idOf(Cursor.decode(cursor), 0)));
+        if (ownCarsOnly) {
+            specification = specification.and(CarSpecifications.ownedBy(customUserDetailsService.getCurrentCustomerId()));
+        }
+        return CursorSlice.of(carRepository.search(specification, CursorSlice.limit(sliceSize)), sliceSize,
+                carMapper::carToCarDTO, car -> Cursor.encode(null, car.getId()));
+    }
+
+    public List<CarNameSuggestionDTO> suggestCarNames(String prefix, boolean ownCarsOnly, int limit) {
+        return carNameIndex.suggest(prefix,
+                ownCarsOnly ? customUserDetailsService.getCurrentCustomerId() : null,
+                Math.max(1, Math.min(limit, MAX_SUGGESTIONS)));
+    }
+
+    private void publishCarChanged(Car car) {
+        applicationEventPublisher.publishEvent(new CarChangedEvent(car.getId()));
+    }
+
+    private CursorSlice<CarDTO> customerCarSlice(List<Car> cars, int sliceSize) {
+        return CursorSlice.of(cars, sliceSize, carMapper::carToCarDTO,
+                car -> Cursor.encode(car.getPrice(), car.getId()));
+    }
+
+    private static double priceOf(Cursor cursor) {
+        return Objects.isNull(cursor) ? -Double.MAX_VALUE : cursor.getKeyAsDouble();
+    }
+
+
+    public CarDTO findMostExpensiveCarForCustomer() {
+        return findMostExpensiveCarsForCustomer(1, null, null).stream()
+                .findFirst()
                 .orElseThrow(() -> new CarNotFoundException("No cars found"));
     }
 
 
-    public CarDTO findMostExpensiveCarByCustomerAndBrand(String brand, Pageable pageable) {
-        Page<Car> carsPage = carRepository.findAllByCustomerUsernameAndBrand(
-                customUserDetailsService.getCurrentUsername(), brand, pageable);
+    public CarDTO findMostExpensiveCarByCustomerAndBrand(String brand) {
+        return findMostExpensiveCarsForCustomer(1, brand, null).stream()
+                .findFirst()
+                .orElseThrow(() -> new CarNotFoundException("Car not found for brand: " + brand));
+    }
 
-        return carsPage.getContent()
-                .stream()
-                .filter(car -> car.getBrand().equals(brand))
-                .max(Comparator.comparing(Car::getPrice))
+    /**
+     * Returns up to {@code k} cars of the current customer ordered by price, optionally only of the given brand
+     * and fuel. Each combination is a single query over the {@code car(customer_id, price)} or
+     * {@code car(customer_id, brand, price)} index, however many cars the customer owns.
+     */
+    public List<CarDTO> findMostExpensiveCarsForCustomer(int k, String brand, Fuel fuel) {
+        Long customerId = customUserDetailsService.getCurrentCustomerId();
+        PageRequest topCars = topCars(k);
+        List<Car> cars;
+        if (Objects.nonNull(brand) && Objects.nonNull(fuel)) {
+            cars = carRepository.findAllByCustomerIdAndBrandAndFuelOrderByPriceDesc(customerId, brand, fuel,
+                    topCars);
+        } else if (Objects.nonNull(brand)) {
+            cars = carRepository.findAllByCustomerIdAndBrandOrderByPriceDesc(customerId, brand, topCars);
+        } else if (Objects.nonNull(fuel)) {
+            cars = carRepository.findAllByCustomerIdAndFuelOrderByPriceDesc(customerId, fuel, topCars);
+        } else {
+            cars = carRepository.findAllByCustomerIdOrderByPriceDesc(customerId, topCars);
+        }
+        return cars.stream()
                 .map(carMapper::carToCarDTO)
-                .orElseThrow(() -> new CarNotFoundException("Car not found for brand: " + brand));
+                .toList();
     }
 
 }
\ No newline at end of file
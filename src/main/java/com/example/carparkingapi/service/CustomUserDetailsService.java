@@ -5,9 +5,12 @@ import com.example.carparkingapi.domain.Customer;
 import com.example.carparkingapi.exception.not.found.UserNotFoundException;
 import com.example.carparkingapi.exception.security.InvalidCredentialsException;
 import com.example.carparkingapi.exception.security.UserNotAuthenticatedException;
+import com.example.carparkingapi.model.AuthenticatedUser;
+import com.example.carparkingapi.model.Role;
 import com.example.carparkingapi.repository.AdminRepository;
 import com.example.carparkingapi.repository.CustomerRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.authentication.AnonymousAuthenticationToken;
 import org.springframework.security.core.Authentication;
@@ -16,6 +19,7 @@ import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.stereotype.Service;
 
+import java.util.Objects;
 import java.util.Optional;
 
 import static com.example.carparkingapi.util.Constants.CUSTOMER_NOT_AUTHORIZED_ERROR_MESSAGE;
@@ -29,14 +33,62 @@ public class CustomUserDetailsService implements UserDetailsService {
 
     private final AdminRepository adminRepository;
 
+    @Value("${security.authorization.stateless:false}")
+    private boolean statelessAuthorization;
+
     public void verifyCustomerAccess() {
+        if (getAuthenticatedUser().filter(user -> user.getRole() == Role.USER).isPresent()) {
+            return;
+        }
         verifyCustomerAccount(customerRepository.findCustomerByUsername(getCurrentUsername())
                 .orElseThrow(() -> new AccessDeniedException(CUSTOMER_NOT_AUTHORIZED_ERROR_MESSAGE)));
     }
 
+    /**
+     * Returns the current customer, as a reference that is not loaded unless used when the id comes from the token.
+     */
     public Customer getCurrentCustomer() {
-        return customerRepository.findCustomerByUsername(getCurrentUsername())
-                .orElseThrow(() -> new AccessDeniedException(CUSTOMER_NOT_AUTHORIZED_ERROR_MESSAGE));
+        return getAuthenticatedUser()
+                .filter(user -> user.getRole() == Role.USER)
+                .map(user -> customerRepository.getReferenceById(user.getId()))
+                .orElseGet(this::findCurrentCustomer);
+    }
+
+    /**
+     * Returns the id the customer's cars, reservations and suggestions are looked up by, taken from the token
+     * without a query when it can be trusted.
+     */
+    public Long getCurrentCustomerId() {
+        return getAuthenticatedUser()
+                .filter(user -> user.getRole() == Role.USER)
+                .map(AuthenticatedUser::getId)
+                .orElseGet(() -> findCurrentCustomer().getId());
+    }
+
+    /**
+     * Returns whether the account a token was issued to still exists; asked once per verified token, so a deleted
+     * account is not referenced by the id of its token.
+     */
+    public boolean exists(AuthenticatedUser user) {
+        return user.getRole() == Role.ADMIN
+                ? adminRepository.existsById(user.getId())
+                : customerRepository.existsById(user.getId());
+    }
+
+    public boolean isCurrentUserAdmin() {
+        return getAuthenticatedUser()
+                .map(user -> user.getRole() == Role.ADMIN)
+                .orElseGet(() -> adminRepository.existsAdminByUsername(getCurrentUsername()));
+    }
+
+    /**
+     * Returns the current admin, as a reference that is not loaded unless used when the id comes from the token.
+     */
+    public Admin getCurrentAdmin() {
+        return getAuthenticatedUser()
+                .filter(user -> user.getRole() == Role.ADMIN)
+                .map(user -> adminRepository.getReferenceById(user.getId()))
+                .orElseGet(() -> (Admin) loadUserByUsername(getCurrentUsername()));
     }
 
     @Override
@@ -54,6 +106,11 @@ public class CustomUserDetailsService implements UserDetailsService {
         throw new UserNotFoundException(USER_NOT_FOUND_ERROR_MESSAGE);
     }
 
+    private Customer findCurrentCustomer() {
+        return customerRepository.findCustomerByUsername(getCurrentUsername())
+                .orElseThrow(() -> new AccessDeniedException(CUSTOMER_NOT_AUTHORIZED_ERROR_MESSAGE));
+    }
+
     private void verifyCustomerAccount(Customer customer) {
         if (!customer.isAccountEnabled()) {
             throw new InvalidCredentialsException("Account not enabled");
@@ -69,6 +126,24 @@ public class CustomUserDetailsService implements UserDetailsService {
         }
     }
 
+    /**
+     * With {@code security.authorization.stateless} the role and id in the verified token are trusted as they are,
+     * so access checks need no query; other principals, such as mock users in tests, are checked in the database.
+     * Tokens of locked or disabled accounts are already rejected by the filter through the revocation registry, and
+     * tokens of deleted ones by its existence check.
+     */
+    private Optional<AuthenticatedUser> getAuthenticatedUser() {
+        if (!statelessAuthorization) {
+            return Optional.empty();
+        }
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof AuthenticatedUser user
+                && Objects.nonNull(user.getId())) {
+            return Optional.of(user);
+        }
+        return Optional.empty();
+    }
+
     public String getCurrentUsername() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         if (authentication != null && !(authentication instanceof AnonymousAuthenticationToken)) {
@@ -6,23 +6,32 @@ import com.example.carparkingapi.config.map.struct.ParkingMapper;
 import com.example.carparkingapi.domain.Car;
 import com.example.carparkingapi.domain.Parking;
 import com.example.carparkingapi.dto.CarDTO;
+import com.example.carparkingapi.dto.CompatibleParkingDTO;
+import com.example.carparkingapi.dto.CursorSlice;
 import com.example.carparkingapi.dto.ParkingDTO;
+import com.example.carparkingapi.event.ParkingChangedEvent;
 import com.example.carparkingapi.exception.not.found.CarNotFoundException;
 import com.example.carparkingapi.exception.not.found.ParkingNotFoundException;
-import com.example.carparkingapi.exception.parking.FullParkingException;
 import com.example.carparkingapi.exception.parking.LPGNotAllowedException;
-import com.example.carparkingapi.exception.parking.NoMoreElectricPlacesException;
 import com.example.carparkingapi.exception.parking.ParkingSpaceToSmallException;
+import com.example.carparkingapi.model.Cursor;
 import com.example.carparkingapi.model.Fuel;
 import com.example.carparkingapi.model.ParkingType;
 import com.example.carparkingapi.repository.CarRepository;
 import com.example.carparkingapi.repository.ParkingRepository;
+import com.example.carparkingapi.service.availability.ParkingAvailabilityIndex;
+import com.example.carparkingapi.service.occupancy.ParkingOccupancyStrategy;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.util.Comparator;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 
 import static com.example.carparkingapi.util.Constants.*;
 
@@ -38,20 +47,46 @@ public class ParkingService {
 
     private final CarMapper carMapper;
 
+    private final ParkingOccupancyStrategy parkingOccupancyStrategy;
+
+    private final ParkingSpotService parkingSpotService;
+
+    private final ParkingAvailabilityIndex parkingAvailabilityIndex;
+
+    private final ApplicationEventPublisher applicationEventPublisher;
+
     public void save(ParkingCommand parkingCommand) {
         Parking parking = parkingMapper.parkingCommandToParking(parkingCommand);
         parking.setTakenPlaces(0);
         parking.setTakenElectricPlaces(0);
-        parkingRepository.save(parking);
+        Parking savedParking = parkingRepository.save(parking);
+        parkingSpotService.synchronizeSpots(savedParking);
+        applicationEventPublisher.publishEvent(new ParkingChangedEvent(savedParking.getId()));
     }
 
     public void delete(Long id) {
         Parking parking = findById(id);
         parkingRepository.delete(parking);
+        parkingOccupancyStrategy.evict(id);
+        parkingSpotService.invalidate(id);
+        applicationEventPublisher.publishEvent(new ParkingChangedEvent(id));
+    }
+
+    public CursorSlice<CompatibleParkingDTO> findCompatibleParkings(Long carId, String cursor, int size) {
+        return parkingAvailabilityIndex.findCompatibleParkings(carRepository.findById(carId)
+                .orElseThrow(CarNotFoundException::new), cursor, CursorSlice.size(size));
     }
 
+    @Transactional(readOnly = true)
     public Page<ParkingDTO> getAllParkings(Pageable pageable) {
-        return parkingRepository.findAll(pageable).map(parkingMapper::parkingToParkingDTO);
+        return parkingRepository.findAllParkingDTOs(pageable);
+    }
+
+    public CursorSlice<ParkingDTO> getAllParkings(String cursor, int size) {
+        int sliceSize = CursorSlice.size(size);
+        return CursorSlice.of(parkingRepository.findAllByIdGreaterThanOrderByIdAsc(
+                        Cursor.idOf(Cursor.decode(cursor), 0), CursorSlice.limit(sliceSize)),
+                sliceSize, parkingMapper::parkingToParkingDTO, parking -> Cursor.encode(null, parking.getId()));
     }
 
     public Parking findById(Long id) {
@@ -59,29 +94,66 @@ public class ParkingService {
                 .orElseThrow(() -> new ParkingNotFoundException(PARKING_NOT_FOUND_ERROR_MESSAGE));
     }
 
+    @Transactional(readOnly = true)
     public Page<CarDTO> findAllCarsFromParking(Long id, Pageable pageable) {
-        return carRepository.findAllByParkingId(id, pageable)
-                .map(carMapper::carToCarDTO);
+        return carRepository.findCarDTOsByParkingId(id, pageable);
     }
 
+    public CursorSlice<CarDTO> findAllCarsFromParking(Long id, String cursor, int size) {
+        int sliceSize = CursorSlice.size(size);
+        return CursorSlice.of(carRepository.findAllByParkingIdAndIdGreaterThanOrderByIdAsc(id,
+                        Cursor.idOf(Cursor.decode(cursor), 0), CursorSlice.limit(sliceSize)),
+                sliceSize, carMapper::carToCarDTO, car -> Cursor.encode(null, car.getId()));
+    }
+
+
+    public int countCarsFromParking(Long id) {
+        int cars = carRepository.countByParkingId(id);
+        if (cars == 0) {
+            findById(id);
+        }
+        return cars;
+    }
+
+    /**
+     * Counts the cars of all given parkings in one grouped query, parkings without cars are reported with 0.
+     */
+    public Map<Long, Long> countCarsFromParkings(Collection<Long> ids) {
+        Map<Long, Long> counts = new TreeMap<>();
+        ids.forEach(id -> counts.put(id, 0L));
+        carRepository.countByParkingIds(ids)
+                .forEach(count -> counts.put(count.getParkingId(), count.getCars()));
+        return counts;
+    }
 
     public CarDTO findMostExpensiveCarFromParking(Long id) {
-        return findById(id).getCars().stream()
-                .max(Comparator.comparing(Car::getPrice))
+        return carRepository.findAllByParkingIdOrderByPriceDesc(id, CarService.topCars(1)).stream()
+                .findFirst()
                 .map(carMapper::carToCarDTO)
-                .orElseThrow(() -> new CarNotFoundException(CAR_NOT_FOUND_ERROR_MESSAGE));
+                .orElseThrow(() -> {
+                    findById(id);
+                    return new CarNotFoundException(CAR_NOT_FOUND_ERROR_MESSAGE);
+                });
     }
 
-    protected void validateParkingSpace(Parking parking, Car car) {
-        if (parking.getTakenPlaces() >= parking.getCapacity()) {
-            throw new FullParkingException(PARKING_FULL_ERROR_MESSAGE);
+    /**
+     * Returns up to {@code n} cars parked in the parking ordered by price, read through the
+     * {@code car(parking_id, price)} index without loading the parking's cars collection.
+     */
+    public List<CarDTO> findMostExpensiveCarsFromParking(Long id, int n) {
+        List<Car> cars = carRepository.findAllByParkingIdOrderByPriceDesc(id, CarService.topCars(n));
+        if (cars.isEmpty()) {
+            findById(id);
         }
-        if (car.getLength() > parking.getParkingSpotLength() || car.getWidth() > parking.getParkingSpotWidth()) {
+        return cars.stream()
+                .map(carMapper::carToCarDTO)
+                .toList();
+    }
+
+    protected void validateParkingSpace(Parking parking, Car car) {
+        if (!parkingSpotService.fits(parking, car)) {
             throw new ParkingSpaceToSmallException(PARKING_SPACE_TO_SMALL_ERROR_MESSAGE);
         }
-        if ((Fuel.ELECTRIC.equals(car.getFuel()) && parking.getTakenElectricPlaces() >= parking.getPlacesForElectricCars())) {
-            throw new NoMoreElectricPlacesException(NO_MORE_ELECTRIC_PLACES_ERROR_MESSAGE);
-        }
         if (Fuel.LPG.equals(car.getFuel()) && ParkingType.UNDERGROUND.equals(parking.getParkingType())) {
             throw new LPGNotAllowedException(PARKING_NOT_ALLOW_LPG_CAR_ERROR_MESSAGE);
         }
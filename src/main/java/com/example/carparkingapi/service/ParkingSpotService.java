@@ -0,0 +1,220 @@
+package com.example.carparkingapi.service;
+
+import com.example.carparkingapi.command.ParkingSpotCommand;
+import com.example.carparkingapi.domain.Car;
+import com.example.carparkingapi.domain.Parking;
+import com.example.carparkingapi.domain.ParkingSpot;
+import com.example.carparkingapi.dto.ParkingSpotDTO;
+import com.example.carparkingapi.event.ParkingChangedEvent;
+import com.example.carparkingapi.exception.not.found.ParkingSpotNotFoundException;
+import com.example.carparkingapi.exception.parking.FullParkingException;
+import com.example.carparkingapi.exception.parking.NoMoreElectricPlacesException;
+import com.example.carparkingapi.model.Fuel;
+import com.example.carparkingapi.repository.CarRepository;
+import com.example.carparkingapi.repository.ParkingSpotRepository;
+import com.example.carparkingapi.service.spot.SpotIndex;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.example.carparkingapi.util.Constants.*;
+
+@Service
+@RequiredArgsConstructor
+public class ParkingSpotService {
+
+    private final ParkingSpotRepository parkingSpotRepository;
+
+    private final CarRepository carRepository;
+
+    private final ApplicationEventPublisher applicationEventPublisher;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private static final int MAX_SPOT_CLAIMS = 3;
+
+    private final Map<Long, SpotIndex> indexes = new ConcurrentHashMap<>();
+
+    /**
+     * Returns whether the parking has at least one spot the car fits into, regardless of whether it is free.
+     * Electric cars are checked against electric spots only, see {@link SpotIndex#fits(int, int, boolean)}.
+     * Without a loaded index the spots are read as they will be once synchronized, nothing is written.
+     */
+    public boolean fits(Parking parking, Car car) {
+        SpotIndex spotIndex = indexes.get(parking.getId());
+        if (Objects.isNull(spotIndex)) {
+            spotIndex = new SpotIndex(planSpotRows(parking).spots(), Set.of());
+        }
+        return spotIndex.fits(car.getLength(), car.getWidth(), Fuel.ELECTRIC.equals(car.getFuel()));
+    }
+
+    /**
+     * Takes the best fitting free spot for the car, see {@link SpotIndex#allocate(int, int, boolean)}, and saves
+     * the car parked in it. The index only knows the spots taken through this node; a spot another node took in
+     * the meantime is rejected by the unique spot of a car ({@code uk_car_parking_spot}), the index is reloaded
+     * from the database and the next best spot is tried. An index that has no free spot is reloaded once as well,
+     * spots freed on other nodes are only seen after a reload.
+     */
+    public ParkingSpotDTO assignSpot(Parking parking, Car car) {
+        boolean electricCar = Fuel.ELECTRIC.equals(car.getFuel());
+        for (int attempt = 1; attempt <= MAX_SPOT_CLAIMS; attempt++) {
+            boolean cached = indexes.containsKey(parking.getId());
+            SpotIndex spotIndex = getIndex(parking);
+            int index = spotIndex.allocate(car.getLength(), car.getWidth(), electricCar);
+            if (index < 0) {
+                if (!cached) {
+                    break;
+                }
+                invalidate(parking.getId());
+                continue;
+            }
+
+            ParkingSpot parkingSpot = parkingSpotRepository.findById(spotIndex.spotId(index))
+                    .orElseThrow(() -> new ParkingSpotNotFoundException(PARKING_SPOT_NOT_FOUND_ERROR_MESSAGE));
+            car.setParking(parking);
+            car.setParkingSpot(parkingSpot);
+            try {
+                carRepository.saveAndFlush(car);
+                return parkingSpotToParkingSpotDTO(parkingSpot);
+            } catch (DataIntegrityViolationException e) {
+                car.setParking(null);
+                car.setParkingSpot(null);
+                invalidate(parking.getId());
+            }
+        }
+        throw electricCar
+                ? new NoMoreElectricPlacesException(NO_MORE_ELECTRIC_PLACES_ERROR_MESSAGE)
+                : new FullParkingException(PARKING_FULL_ERROR_MESSAGE);
+    }
+
+    public void freeSpot(Long parkingId, ParkingSpot parkingSpot) {
+        SpotIndex spotIndex = indexes.get(parkingId);
+        if (Objects.nonNull(spotIndex) && Objects.nonNull(parkingSpot)) {
+            spotIndex.free(parkingSpot.getId());
+        }
+    }
+
+    /**
+     * Drops the free-spot index of the parking, it is rebuilt from the database on the next assignment.
+     */
+    public void invalidate(Long parkingId) {
+        indexes.remove(parkingId);
+    }
+
+    @Transactional
+    public void synchronizeSpots(Parking parking) {
+        synchronizeSpotRows(parking);
+        invalidate(parking.getId());
+    }
+
+    public ParkingSpotDTO updateSpot(Long parkingId, int spotNumber, ParkingSpotCommand parkingSpotCommand) {
+        ParkingSpot parkingSpot = parkingSpotRepository.findByParkingIdAndSpotNumber(parkingId, spotNumber)
+                .orElseThrow(() -> new ParkingSpotNotFoundException(PARKING_SPOT_NOT_FOUND_ERROR_MESSAGE));
+
+        parkingSpot.setLength(parkingSpotCommand.getLength());
+        parkingSpot.setWidth(parkingSpotCommand.getWidth());
+        ParkingSpot savedSpot = parkingSpotRepository.save(parkingSpot);
+        invalidate(parkingId);
+        applicationEventPublisher.publishEvent(new ParkingChangedEvent(parkingId));
+        return parkingSpotToParkingSpotDTO(savedSpot);
+    }
+
+    /**
+     * Applies the parking's new default spot dimensions to the spots that still had the previous default ones.
+     * Spots given their own size through {@link #updateSpot(Long, int, ParkingSpotCommand)} keep it.
+     */
+    public void resizeDefaultSpots(Parking parking, int previousLength, int previousWidth) {
+        parkingSpotRepository.resizeByParkingIdAndSize(parking.getId(), previousLength, previousWidth,
+                parking.getParkingSpotLength(), parking.getParkingSpotWidth());
+        invalidate(parking.getId());
+    }
+
+    /**
+     * Loads a missing index outside the map, the rows of the spots are written in a transaction of their own.
+     * Two loads of the same parking may race on creating the rows; the loser reads the rows of the winner.
+     */
+    private SpotIndex getIndex(Parking parking) {
+        SpotIndex spotIndex = indexes.get(parking.getId());
+        if (Objects.nonNull(spotIndex)) {
+            return spotIndex;
+        }
+        SpotIndex loaded;
+        try {
+            loaded = transactionTemplate.execute(status -> loadIndex(parking));
+        } catch (DataIntegrityViolationException e) {
+            loaded = transactionTemplate.execute(status -> loadIndex(parking));
+        }
+        SpotIndex raced = indexes.putIfAbsent(parking.getId(), loaded);
+        return Objects.nonNull(raced) ? raced : loaded;
+    }
+
+    private ParkingSpotDTO parkingSpotToParkingSpotDTO(ParkingSpot parkingSpot) {
+        return new ParkingSpotDTO(parkingSpot.getParking().getId(), parkingSpot.getSpotNumber(),
+                parkingSpot.isElectric(), parkingSpot.getLength(), parkingSpot.getWidth());
+    }
+
+    private SpotIndex loadIndex(Parking parking) {
+        return new SpotIndex(synchronizeSpotRows(parking), carRepository.findOccupiedSpotIds(parking.getId()));
+    }
+
+    /**
+     * Makes sure spots 1..capacity exist and the first {@code placesForElectricCars} of them are electric.
+     * Free spots above the capacity are removed. Callers run it in a transaction.
+     */
+    private List<ParkingSpot> synchronizeSpotRows(Parking parking) {
+        SpotRowsPlan plan = planSpotRows(parking);
+        if (plan.toSave().isEmpty() && plan.toDelete().isEmpty()) {
+            return plan.spots();
+        }
+        parkingSpotRepository.deleteAll(plan.toDelete());
+        parkingSpotRepository.saveAll(plan.toSave());
+        return parkingSpotRepository.findAllByParkingIdOrderBySpotNumber(parking.getId());
+    }
+
+    /**
+     * Works out the spots of the parking once synchronized, without writing them. Spots still to be created have
+     * no id, spots still to be made (non-)electric are copies; the loaded entities are left as they are.
+     */
+    private SpotRowsPlan planSpotRows(Parking parking) {
+        List<ParkingSpot> spots = parkingSpotRepository.findAllByParkingIdOrderBySpotNumber(parking.getId());
+        Set<Long> occupied = new HashSet<>(carRepository.findOccupiedSpotIds(parking.getId()));
+        Set<Integer> existingNumbers = new HashSet<>();
+
+        List<ParkingSpot> planned = new ArrayList<>();
+        List<ParkingSpot> toSave = new ArrayList<>();
+        List<ParkingSpot> toDelete = new ArrayList<>();
+        for (ParkingSpot spot : spots) {
+            if (spot.getSpotNumber() > parking.getCapacity() && !occupied.contains(spot.getId())) {
+                toDelete.add(spot);
+                continue;
+            }
+            existingNumbers.add(spot.getSpotNumber());
+            boolean electric = spot.getSpotNumber() <= parking.getPlacesForElectricCars();
+            if (spot.isElectric() != electric) {
+                spot = new ParkingSpot(spot.getId(), parking, spot.getSpotNumber(), electric, spot.getLength(),
+                        spot.getWidth());
+                toSave.add(spot);
+            }
+            planned.add(spot);
+        }
+        for (int number = 1; number <= parking.getCapacity(); number++) {
+            if (!existingNumbers.contains(number)) {
+                ParkingSpot spot = new ParkingSpot(null, parking, number,
+                        number <= parking.getPlacesForElectricCars(),
+                        parking.getParkingSpotLength(), parking.getParkingSpotWidth());
+                planned.add(spot);
+                toSave.add(spot);
+            }
+        }
+        return new SpotRowsPlan(planned, toSave, toDelete);
+    }
+
+    private record SpotRowsPlan(List<ParkingSpot> spots, List<ParkingSpot> toSave, List<ParkingSpot> toDelete) {
+    }
+}
@@ -0,0 +1,198 @@
+package com.example.carparkingapi.service;
+
+import com.example.carparkingapi.command.ReservationCommand;
+import com.example.carparkingapi.domain.Car;
+import com.example.carparkingapi.domain.Parking;
+import com.example.carparkingapi.domain.Reservation;
+import com.example.carparkingapi.dto.ReservationDTO;
+import com.example.carparkingapi.event.ParkingChangedEvent;
+import com.example.carparkingapi.exception.not.found.CarNotFoundException;
+import com.example.carparkingapi.exception.not.found.ReservationNotFoundException;
+import com.example.carparkingapi.exception.parking.FullParkingException;
+import com.example.carparkingapi.exception.parking.InvalidReservationException;
+import com.example.carparkingapi.repository.CarRepository;
+import com.example.carparkingapi.repository.ReservationRepository;
+import com.example.carparkingapi.service.reservation.ReservationTimeline;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.example.carparkingapi.util.Constants.*;
+
+/**
+ * Reservations of a place in a parking for a future time window. Every parking used for reservations has a
+ * {@link ReservationTimeline} built from its upcoming reservations; it answers whether a window still has a free
+ * place and how many places are held back for reservations right now, which {@link CarService#parkCar} keeps free.
+ * All work on the timeline of a parking, including rebuilding it, is serialized on a lock object of that parking
+ * that is never replaced; a car cannot hold two reservations overlapping in time.
+ */
+@Service
+public class ReservationService {
+
+    private final ReservationRepository reservationRepository;
+
+    private final CarRepository carRepository;
+
+    private final ParkingService parkingService;
+
+    private final Duration bucket;
+
+    private final Duration horizon;
+
+    private final Map<Long, ReservationTimeline> timelines = new ConcurrentHashMap<>();
+
+    private final Map<Long, Object> parkingLocks = new ConcurrentHashMap<>();
+
+    private final Map<Long, Object> carLocks = new ConcurrentHashMap<>();
+
+    public ReservationService(ReservationRepository reservationRepository, CarRepository carRepository,
+                              ParkingService parkingService,
+                              @Value("${parking.reservation.bucket-minutes:15}") long bucketMinutes,
+                              @Value("${parking.reservation.horizon-days:30}") long horizonDays) {
+        this.reservationRepository = reservationRepository;
+        this.carRepository = carRepository;
+        this.parkingService = parkingService;
+        this.bucket = Duration.ofMinutes(bucketMinutes);
+        this.horizon = Duration.ofDays(horizonDays);
+    }
+
+    /**
+     * Reserves a place for one of the customer's cars, cars of other customers are not found. The window has to
+     * start now or later and end within the horizon.
+     */
+    public ReservationDTO reserve(Long carId, Long parkingId, ReservationCommand reservationCommand,
+                                  Long customerId) {
+        Car car = findCustomerCar(carId, customerId);
+        Parking parking = parkingService.findById(parkingId);
+        parkingService.validateParkingSpace(parking, car);
+
+        LocalDateTime from = reservationCommand.getReservedFrom();
+        LocalDateTime to = reservationCommand.getReservedTo();
+        LocalDateTime now = LocalDateTime.now();
+        if (from.isBefore(now) || !from.isBefore(to) || to.isAfter(now.plus(horizon))) {
+            throw new InvalidReservationException(INVALID_RESERVATION_ERROR_MESSAGE);
+        }
+
+        synchronized (lock(carLocks, carId)) {
+            if (reservationRepository.existsByCarIdAndReservedFromBeforeAndReservedToAfter(carId, to, from)) {
+                throw new InvalidReservationException(OVERLAPPING_RESERVATION_ERROR_MESSAGE);
+            }
+            synchronized (lock(parkingLocks, parkingId)) {
+                ReservationTimeline timeline = timeline(parkingId);
+                if (timeline.peak(from, to) >= parking.getCapacity()) {
+                    throw new FullParkingException(PARKING_FULLY_RESERVED_ERROR_MESSAGE);
+                }
+                Reservation reservation = reservationRepository.save(new Reservation(null, parking, car, from, to));
+                timeline.add(from, to, 1);
+                return reservationToReservationDTO(reservation);
+            }
+        }
+    }
+
+    public List<ReservationDTO> getReservations(Long carId, Long customerId) {
+        findCustomerCar(carId, customerId);
+        return reservationRepository.findAllByCarIdOrderByReservedFrom(carId).stream()
+                .map(this::reservationToReservationDTO)
+                .toList();
+    }
+
+    /**
+     * Cancels a reservation of one of the customer's cars, reservations of other customers are not found.
+     */
+    public void cancel(Long reservationId, Long customerId) {
+        Reservation reservation = reservationRepository.findByIdAndCarCustomerId(reservationId, customerId)
+                .orElseThrow(() -> new ReservationNotFoundException(RESERVATION_NOT_FOUND_ERROR_MESSAGE));
+        reservationRepository.delete(reservation);
+        release(reservation);
+    }
+
+    public void cancelAll(Long carId) {
+        List<Reservation> reservations = reservationRepository.findAllByCarIdOrderByReservedFrom(carId);
+        reservationRepository.deleteAll(reservations);
+        reservations.forEach(this::release);
+    }
+
+    /**
+     * Returns how many places of the parking are reserved right now by other cars than this one.
+     */
+    public int heldBackPlaces(Parking parking, Car car) {
+        LocalDateTime now = LocalDateTime.now();
+        int reserved;
+        synchronized (lock(parkingLocks, parking.getId())) {
+            reserved = timeline(parking.getId()).peak(now, now.plus(bucket));
+        }
+        return findActiveReservation(parking, car, now).isPresent() ? Math.max(reserved - 1, 0) : reserved;
+    }
+
+    /**
+     * Called once the car was parked: its current reservation is fulfilled and stops holding a place back.
+     */
+    public void claimReservation(Parking parking, Car car) {
+        findActiveReservation(parking, car, LocalDateTime.now()).ifPresent(reservation -> {
+            reservationRepository.delete(reservation);
+            release(reservation);
+        });
+    }
+
+    @EventListener
+    public void onParkingChanged(ParkingChangedEvent event) {
+        synchronized (lock(parkingLocks, event.getParkingId())) {
+            timelines.remove(event.getParkingId());
+        }
+    }
+
+    private Car findCustomerCar(Long carId, Long customerId) {
+        return carRepository.findByIdAndCustomerId(carId, customerId)
+                .orElseThrow(CarNotFoundException::new);
+    }
+
+    private Optional<Reservation> findActiveReservation(Parking parking, Car car, LocalDateTime now) {
+        return reservationRepository.findAllByCarIdAndParkingIdAndReservedFromLessThanEqualAndReservedToAfter(
+                car.getId(), parking.getId(), now.plus(bucket), now, PageRequest.of(0, 1)).stream().findFirst();
+    }
+
+    private void release(Reservation reservation) {
+        Long parkingId = reservation.getParking().getId();
+        synchronized (lock(parkingLocks, parkingId)) {
+            Optional.ofNullable(timelines.get(parkingId)).ifPresent(timeline ->
+                    timeline.add(reservation.getReservedFrom(), reservation.getReservedTo(), -1));
+        }
+    }
+
+    private static Object lock(Map<Long, Object> locks, Long id) {
+        return locks.computeIfAbsent(id, key -> new Object());
+    }
+
+    /**
+     * Timelines start at the hour they were built and reach one day past the horizon; once that day has passed
+     * the timeline is rebuilt from the database. Callers hold the lock of the parking.
+     */
+    private ReservationTimeline timeline(Long parkingId) {
+        LocalDateTime now = LocalDateTime.now();
+        ReservationTimeline timeline = timelines.get(parkingId);
+        if (timeline != null && timeline.covers(now, now.plus(horizon))) {
+            return timeline;
+        }
+        LocalDateTime origin = now.truncatedTo(ChronoUnit.HOURS);
+        ReservationTimeline rebuilt = new ReservationTimeline(origin, bucket,
+                (int) (horizon.plusDays(1).toMinutes() / bucket.toMinutes()));
+        reservationRepository.findAllByParkingIdAndReservedToAfter(parkingId, origin)
+                .forEach(reservation -> rebuilt.add(reservation.getReservedFrom(), reservation.getReservedTo(), 1));
+        timelines.put(parkingId, rebuilt);
+        return rebuilt;
+    }
+
+    private ReservationDTO reservationToReservationDTO(Reservation reservation) {
+        return new ReservationDTO(reservation.getId(), reservation.getCar().getId(),
+                reservation.getParking().getId(), reservation.getReservedFrom(), reservation.getReservedTo());
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.carparkingapi.service;
+
+import com.example.carparkingapi.domain.Car;
+import com.example.carparkingapi.dto.ParkingSpotDTO;
+import com.example.carparkingapi.dto.WaitlistPositionDTO;
+import com.example.carparkingapi.event.ParkingChangedEvent;
+import com.example.carparkingapi.event.ParkingOccupancyChangedEvent;
+import com.example.carparkingapi.exception.not.found.CarNotFoundException;
+import com.example.carparkingapi.exception.parking.CarParkingStatusException;
+import com.example.carparkingapi.exception.parking.FullParkingException;
+import com.example.carparkingapi.exception.parking.NoMoreElectricPlacesException;
+import com.example.carparkingapi.model.Fuel;
+import com.example.carparkingapi.repository.CarRepository;
+import com.example.carparkingapi.service.waitlist.ParkingWaitlist;
+import com.example.carparkingapi.service.waitlist.WaitlistEntry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.Objects;
+
+@Service
+@RequiredArgsConstructor
+public class WaitlistService {
+
+    private final ParkingWaitlist parkingWaitlist;
+
+    private final CarService carService;
+
+    private final ParkingService parkingService;
+
+    private final CarRepository carRepository;
+
+    /**
+     * Puts the car at the end of the waitlist of the parking. Cars that could never be parked there are rejected
+     * up front; if the parking has room right away the car is parked immediately.
+     */
+    public WaitlistEntry join(Long carId, Long parkingId) {
+        Car car = carRepository.findById(carId)
+                .orElseThrow(CarNotFoundException::new);
+
+        if (Objects.nonNull(car.getParking())) {
+            throw new CarParkingStatusException("Car is already parked");
+        }
+        parkingService.validateParkingSpace(parkingService.findById(parkingId), car);
+
+        WaitlistEntry entry = parkingWaitlist.join(carId, parkingId, Fuel.ELECTRIC.equals(car.getFuel()));
+        handOver(parkingId);
+        return entry;
+    }
+
+    public WaitlistEntry findEntry(Long carId) {
+        return parkingWaitlist.findEntry(carId);
+    }
+
+    public void leave(Long carId) {
+        WaitlistEntry entry = parkingWaitlist.findEntry(carId);
+        parkingWaitlist.remove(entry);
+        entry.getSpot().cancel(false);
+    }
+
+    public WaitlistPositionDTO getPosition(WaitlistEntry entry) {
+        return new WaitlistPositionDTO(entry.getCarId(), entry.getParkingId(), parkingWaitlist.position(entry));
+    }
+
+    @Async
+    @EventListener(condition = "#event.delta < 0")
+    public void onOccupancyChanged(ParkingOccupancyChangedEvent event) {
+        handOver(event.getParkingId());
+    }
+
+    @Async
+    @EventListener
+    public void onParkingChanged(ParkingChangedEvent event) {
+        handOver(event.getParkingId());
+    }
+
+    /**
+     * Parks waiting cars in queue order while the parking has room. Hand-overs of one parking are serialized, and
+     * {@link CarService#parkCar(Long, Long)} turns away cars from outside the queue while a car waits for the same
+     * kind of place, so a freed place goes to the queue. An electric car that finds no free electric place keeps its
+     * position and the next car in the queue is tried; expired entries are skipped. Places freed by leaving cars
+     * and parking edits are handed over on the application task executor, not on the request thread.
+     */
+    public void handOver(Long parkingId) {
+        synchronized (parkingWaitlist.lock(parkingId)) {
+            boolean parked = true;
+            while (parked && parkingWaitlist.hasWaitingCars(parkingId)) {
+                parked = false;
+                Instant now = Instant.now();
+                for (WaitlistEntry entry : parkingWaitlist.snapshot(parkingId)) {
+                    if (entry.isExpired(now)) {
+                        continue;
+                    }
+                    try {
+                        ParkingSpotDTO spot = carService.parkWaitingCar(entry.getCarId(), parkingId);
+                        parkingWaitlist.remove(entry);
+                        entry.getSpot().complete(spot);
+                        parked = true;
+                        break;
+                    } catch (FullParkingException e) {
+                        return;
+                    } catch (NoMoreElectricPlacesException e) {
+                        // the next car in the queue may still take a regular place
+                    } catch (RuntimeException e) {
+                        parkingWaitlist.remove(entry);
+                        entry.getSpot().completeExceptionally(e);
+                    }
+                }
+            }
+        }
+    }
+}
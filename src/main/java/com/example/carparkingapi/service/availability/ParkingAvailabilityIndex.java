@@ -0,0 +1,336 @@
+package com.example.carparkingapi.service.availability;
+
+import com.example.carparkingapi.domain.Car;
+import com.example.carparkingapi.domain.Parking;
+import com.example.carparkingapi.dto.CompatibleParkingDTO;
+import com.example.carparkingapi.dto.CursorSlice;
+import com.example.carparkingapi.dto.ParkingOccupancyDTO;
+import com.example.carparkingapi.event.ParkingChangedEvent;
+import com.example.carparkingapi.event.ParkingOccupancyChangedEvent;
+import com.example.carparkingapi.model.Cursor;
+import com.example.carparkingapi.model.Fuel;
+import com.example.carparkingapi.model.ParkingType;
+import com.example.carparkingapi.model.SpotSize;
+import com.example.carparkingapi.repository.ParkingRepository;
+import com.example.carparkingapi.repository.ParkingSpotRepository;
+import com.example.carparkingapi.service.occupancy.ParkingOccupancyStrategy;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory view of all parkings used to find the ones a car can be parked on. Parkings are indexed by the sizes
+ * of their spots (length, then width, in sorted maps), electric spots once more on their own since electric cars
+ * only take those, so a lookup only visits the size classes a car fits into. Parkings are ranked by their free
+ * places (regular and electric) in sorted sets, and a slice continues the ranking right after the cursor, so it is
+ * read in availability order without sorting or skipping the candidates. The index is built on first use, with
+ * occupancy taken from the active {@link ParkingOccupancyStrategy}, then kept up to date from
+ * {@link ParkingChangedEvent} and {@link ParkingOccupancyChangedEvent} and reconciled with the strategy every
+ * {@code parking.availability.reconcile-interval-ms}; lookups never query the {@code parking} table.
+ */
+@Component
+@RequiredArgsConstructor
+public class ParkingAvailabilityIndex {
+
+    private final ParkingRepository parkingRepository;
+
+    private final ParkingSpotRepository parkingSpotRepository;
+
+    private final ParkingOccupancyStrategy parkingOccupancyStrategy;
+
+    private final Map<Long, Availability> availabilities = new ConcurrentHashMap<>();
+
+    private final NavigableMap<Integer, NavigableMap<Integer, Set<Long>>> parkingsBySpotSize =
+            new ConcurrentSkipListMap<>();
+
+    private final NavigableMap<Integer, NavigableMap<Integer, Set<Long>>> parkingsByElectricSpotSize =
+            new ConcurrentSkipListMap<>();
+
+    private final NavigableSet<Rank> byFreePlaces = new ConcurrentSkipListSet<>();
+
+    private final NavigableSet<Rank> byFreeElectricPlaces = new ConcurrentSkipListSet<>();
+
+    private final List<ParkingOccupancyChangedEvent> pendingEvents = new ArrayList<>();
+
+    private volatile boolean loading;
+
+    private volatile boolean loaded;
+
+    /**
+     * Returns parkings with at least one spot the car fits into, which allow its fuel type and have a free place
+     * for it, the ones with the most free places first. Electric cars are matched against electric spots only.
+     * The cursor holds the rank (free places and id) of the last parking of the previous slice.
+     */
+    public CursorSlice<CompatibleParkingDTO> findCompatibleParkings(Car car, String cursor, int size) {
+        ensureLoaded();
+        boolean electricCar = Fuel.ELECTRIC.equals(car.getFuel());
+        boolean lpgCar = Fuel.LPG.equals(car.getFuel());
+
+        Set<Long> candidates = new HashSet<>();
+        (electricCar ? parkingsByElectricSpotSize : parkingsBySpotSize).tailMap(car.getLength(), true).values()
+                .forEach(byWidth -> byWidth.tailMap(car.getWidth(), true).values().forEach(candidates::addAll));
+
+        Predicate<Availability> compatible = availability -> candidates.contains(availability.parkingId)
+                && !(lpgCar && ParkingType.UNDERGROUND.equals(availability.parkingType))
+                && availability.freePlaces() > 0
+                && (!electricCar || availability.freeElectricPlaces() > 0);
+
+        NavigableSet<Rank> ranks = electricCar ? byFreeElectricPlaces : byFreePlaces;
+        Cursor after = Cursor.decode(cursor);
+        if (Objects.nonNull(after)) {
+            ranks = ranks.tailSet(new Rank(after.getKeyAsInt(), after.getId()), false);
+        }
+
+        List<Match> matches = new ArrayList<>(size + 1);
+        for (Rank rank : ranks) {
+            Availability availability = availabilities.get(rank.parkingId);
+            if (Objects.nonNull(availability) && compatible.test(availability)) {
+                matches.add(new Match(rank, availability.toCompatibleParkingDTO()));
+                if (matches.size() > size) {
+                    break;
+                }
+            }
+        }
+        return CursorSlice.of(matches, size, Match::parking,
+                match -> Cursor.encode(match.rank().freePlaces(), match.rank().parkingId()));
+    }
+
+    public Optional<ParkingOccupancyDTO> getOccupancy(Long parkingId) {
+        ensureLoaded();
+        return Optional.ofNullable(availabilities.get(parkingId))
+                .map(availability -> new ParkingOccupancyDTO(parkingId, availability.takenPlaces,
+                        availability.takenElectricPlaces));
+    }
+
+    /**
+     * Changes published while the index is being built are buffered and applied once it is, the ones published
+     * before the build started are already part of the occupancy it reads from the strategy.
+     */
+    @EventListener
+    public void onOccupancyChanged(ParkingOccupancyChangedEvent event) {
+        if (!loaded) {
+            synchronized (pendingEvents) {
+                if (loading) {
+                    pendingEvents.add(event);
+                    return;
+                }
+                if (!loaded) {
+                    return;
+                }
+            }
+        }
+        apply(event);
+    }
+
+    @EventListener
+    public synchronized void onParkingChanged(ParkingChangedEvent event) {
+        if (!loaded) {
+            return;
+        }
+        Availability previous = availabilities.remove(event.getParkingId());
+        if (Objects.nonNull(previous)) {
+            unindex(previous);
+        }
+        parkingRepository.findById(event.getParkingId()).ifPresent(parking -> index(new Availability(parking,
+                spotClasses(parking, parkingSpotRepository.findSpotSizesByParkingId(parking.getId())),
+                Objects.nonNull(previous)
+                        ? new ParkingOccupancyDTO(parking.getId(), previous.takenPlaces, previous.takenElectricPlaces)
+                        : parkingOccupancyStrategy.occupancy(parking))));
+    }
+
+    /**
+     * Replaces the counters with the ones of the strategy, correcting a change that was both read with the
+     * occupancy and applied as an event, or lost because it raced with a parking edit.
+     */
+    @Scheduled(fixedDelayString = "${parking.availability.reconcile-interval-ms:60000}")
+    public synchronized void reconcile() {
+        if (!loaded) {
+            return;
+        }
+        parkingRepository.findAll().forEach(parking -> {
+            Availability availability = availabilities.get(parking.getId());
+            if (Objects.nonNull(availability)) {
+                ParkingOccupancyDTO occupancy = parkingOccupancyStrategy.occupancy(parking);
+                update(availability, occupancy.getTakenPlaces() - availability.takenPlaces,
+                        occupancy.getTakenElectricPlaces() - availability.takenElectricPlaces);
+            }
+        });
+    }
+
+    private void ensureLoaded() {
+        if (!loaded) {
+            synchronized (this) {
+                if (!loaded) {
+                    synchronized (pendingEvents) {
+                        loading = true;
+                    }
+                    Map<Long, List<SpotSize>> spotSizes = parkingSpotRepository.findAllSpotSizes().stream()
+                            .collect(Collectors.groupingBy(SpotSize::getParkingId));
+                    parkingRepository.findAll().forEach(parking -> index(new Availability(parking,
+                            spotClasses(parking, spotSizes.getOrDefault(parking.getId(), List.of())),
+                            parkingOccupancyStrategy.occupancy(parking))));
+                    synchronized (pendingEvents) {
+                        pendingEvents.forEach(this::apply);
+                        pendingEvents.clear();
+                        loaded = true;
+                        loading = false;
+                    }
+                }
+            }
+        }
+    }
+
+    private void apply(ParkingOccupancyChangedEvent event) {
+        Availability availability = availabilities.get(event.getParkingId());
+        if (Objects.nonNull(availability)) {
+            update(availability, event.getDelta(), event.isElectric() ? event.getDelta() : 0);
+        }
+    }
+
+    /**
+     * Counters and ranks of a parking change together, a lookup may briefly miss a parking being re-ranked.
+     */
+    private void update(Availability availability, int takenDelta, int takenElectricDelta) {
+        synchronized (availability) {
+            unrank(availability);
+            availability.takenPlaces += takenDelta;
+            availability.takenElectricPlaces += takenElectricDelta;
+            rank(availability);
+        }
+    }
+
+    /**
+     * Falls back to the parking's default spot size while its spot rows have not been created yet, the first
+     * {@code placesForElectricCars} of them will be electric.
+     */
+    private static List<SpotClass> spotClasses(Parking parking, List<SpotSize> spotSizes) {
+        if (spotSizes.isEmpty()) {
+            SpotClass regular = new SpotClass(parking.getParkingSpotLength(), parking.getParkingSpotWidth(), false);
+            return parking.getPlacesForElectricCars() > 0
+                    ? List.of(regular, new SpotClass(regular.length(), regular.width(), true))
+                    : List.of(regular);
+        }
+        return spotSizes.stream()
+                .map(spotSize -> new SpotClass(spotSize.getLength(), spotSize.getWidth(), spotSize.isElectric()))
+                .toList();
+    }
+
+    private void index(Availability availability) {
+        availabilities.put(availability.parkingId, availability);
+        for (SpotClass spotClass : availability.spotClasses) {
+            index(parkingsBySpotSize, spotClass, availability.parkingId);
+            if (spotClass.electric()) {
+                index(parkingsByElectricSpotSize, spotClass, availability.parkingId);
+            }
+        }
+        synchronized (availability) {
+            rank(availability);
+        }
+    }
+
+    private void unindex(Availability availability) {
+        for (SpotClass spotClass : availability.spotClasses) {
+            unindex(parkingsBySpotSize, spotClass, availability.parkingId);
+            unindex(parkingsByElectricSpotSize, spotClass, availability.parkingId);
+        }
+        synchronized (availability) {
+            unrank(availability);
+        }
+    }
+
+    private static void index(NavigableMap<Integer, NavigableMap<Integer, Set<Long>>> parkingsBySize,
+                              SpotClass spotClass, Long parkingId) {
+        parkingsBySize.computeIfAbsent(spotClass.length(), length -> new ConcurrentSkipListMap<>())
+                .computeIfAbsent(spotClass.width(), width -> ConcurrentHashMap.newKeySet())
+                .add(parkingId);
+    }
+
+    private static void unindex(NavigableMap<Integer, NavigableMap<Integer, Set<Long>>> parkingsBySize,
+                                SpotClass spotClass, Long parkingId) {
+        NavigableMap<Integer, Set<Long>> byWidth = parkingsBySize.get(spotClass.length());
+        if (Objects.nonNull(byWidth)) {
+            Optional.ofNullable(byWidth.get(spotClass.width())).ifPresent(ids -> ids.remove(parkingId));
+        }
+    }
+
+    private void rank(Availability availability) {
+        byFreePlaces.add(new Rank(availability.freePlaces(), availability.parkingId));
+        byFreeElectricPlaces.add(new Rank(availability.freeElectricPlaces(), availability.parkingId));
+    }
+
+    private void unrank(Availability availability) {
+        byFreePlaces.remove(new Rank(availability.freePlaces(), availability.parkingId));
+        byFreeElectricPlaces.remove(new Rank(availability.freeElectricPlaces(), availability.parkingId));
+    }
+
+    /**
+     * Orders parkings by free places, most first, then by id.
+     */
+    private record Rank(int freePlaces, long parkingId) implements Comparable<Rank> {
+
+        @Override
+        public int compareTo(Rank other) {
+            int byFreePlaces = Integer.compare(other.freePlaces, freePlaces);
+            return byFreePlaces != 0 ? byFreePlaces : Long.compare(parkingId, other.parkingId);
+        }
+    }
+
+    private record SpotClass(int length, int width, boolean electric) {
+    }
+
+    private record Match(Rank rank, CompatibleParkingDTO parking) {
+    }
+
+    private static final class Availability {
+
+        private final Long parkingId;
+
+        private final String name;
+
+        private final String adress;
+
+        private final ParkingType parkingType;
+
+        private final int capacity;
+
+        private final int placesForElectricCars;
+
+        private final List<SpotClass> spotClasses;
+
+        private volatile int takenPlaces;
+
+        private volatile int takenElectricPlaces;
+
+        private Availability(Parking parking, List<SpotClass> spotClasses, ParkingOccupancyDTO occupancy) {
+            this.parkingId = parking.getId();
+            this.name = parking.getName();
+            this.adress = parking.getAdress();
+            this.parkingType = parking.getParkingType();
+            this.capacity = parking.getCapacity();
+            this.placesForElectricCars = parking.getPlacesForElectricCars();
+            this.spotClasses = spotClasses;
+            this.takenPlaces = occupancy.getTakenPlaces();
+            this.takenElectricPlaces = occupancy.getTakenElectricPlaces();
+        }
+
+        private int freePlaces() {
+            return capacity - takenPlaces;
+        }
+
+        private int freeElectricPlaces() {
+            return placesForElectricCars - takenElectricPlaces;
+        }
+
+        private CompatibleParkingDTO toCompatibleParkingDTO() {
+            return new CompatibleParkingDTO(parkingId, name, adress, parkingType, freePlaces(), freeElectricPlaces());
+        }
+    }
+}
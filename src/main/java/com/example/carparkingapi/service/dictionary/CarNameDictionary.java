@@ -0,0 +1,176 @@
+package com.example.carparkingapi.service.dictionary;
+
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * In-memory cache in front of the {@code car_brand} and {@code car_model} dictionary tables, translating names to
+ * the integer ids stored in the {@code car} table and back. Each dictionary is loaded on first use. Names missing
+ * from it are registered by the services before they hand a car to the repository, so the converters find them
+ * when the car is flushed; a registration joins the transaction of the caller, if any, and the names it cached are
+ * dropped again when that transaction rolls back.
+ */
+@Component
+public class CarNameDictionary {
+
+    /**
+     * Id of names that are not in the dictionary, no car refers to it.
+     */
+    public static final int UNKNOWN_ID = -1;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final Dictionary brands = new Dictionary("car_brand");
+
+    private final Dictionary models = new Dictionary("car_model");
+
+    public CarNameDictionary(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public void register(String brand, String model) {
+        brands.register(brand);
+        models.register(model);
+    }
+
+    public int brandId(String brand) {
+        return brands.id(brand);
+    }
+
+    public String brandName(Integer id) {
+        return brands.name(id);
+    }
+
+    public int modelId(String model) {
+        return models.id(model);
+    }
+
+    public String modelName(Integer id) {
+        return models.name(id);
+    }
+
+    public List<String> brandsStartingWith(String prefix) {
+        return brands.startingWith(prefix);
+    }
+
+    public List<String> modelsStartingWith(String prefix) {
+        return models.startingWith(prefix);
+    }
+
+    private final class Dictionary {
+
+        private final String table;
+
+        private final NavigableMap<String, Integer> ids = new ConcurrentSkipListMap<>();
+
+        private final Map<Integer, String> names = new ConcurrentHashMap<>();
+
+        private volatile boolean loaded;
+
+        private Dictionary(String table) {
+            this.table = table;
+        }
+
+        /**
+         * Like {@link #name(Integer)}, a name missing from the cache may have been registered by another instance and
+         * is looked up before it is reported as unknown.
+         */
+        private int id(String name) {
+            ensureLoaded();
+            Integer id = ids.get(name);
+            if (id != null) {
+                return id;
+            }
+            return jdbcTemplate.query("select id, name from " + table + " where name = ?", this::cache, name)
+                    .stream()
+                    .findFirst()
+                    .orElse(UNKNOWN_ID);
+        }
+
+        /**
+         * Names can be registered by another instance of the application, an unknown id is looked up outside the
+         * map and cached with {@code putIfAbsent}.
+         */
+        private String name(Integer id) {
+            ensureLoaded();
+            String name = names.get(id);
+            if (name != null) {
+                return name;
+            }
+            String loaded = jdbcTemplate.queryForObject("select name from " + table + " where id = ?", String.class,
+                    id);
+            ids.putIfAbsent(loaded, id);
+            String raced = names.putIfAbsent(id, loaded);
+            return raced != null ? raced : loaded;
+        }
+
+        private List<String> startingWith(String prefix) {
+            ensureLoaded();
+            return ids.tailMap(prefix, true).keySet().stream()
+                    .takeWhile(name -> name.startsWith(prefix))
+                    .toList();
+        }
+
+        private synchronized void register(String name) {
+            ensureLoaded();
+            if (Objects.isNull(name) || ids.containsKey(name)) {
+                return;
+            }
+            try {
+                jdbcTemplate.update("insert into " + table + " (name) values (?)", name);
+            } catch (DuplicateKeyException e) {
+                // registered by another instance in the meantime
+            }
+            // the name as stored, the column compares names byte by byte so it is the same one
+            jdbcTemplate.query("select id, name from " + table + " where name = ?", this::cache, name);
+            if (TransactionSynchronizationManager.isSynchronizationActive()) {
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCompletion(int status) {
+                        if (status != STATUS_COMMITTED) {
+                            evict(name);
+                        }
+                    }
+                });
+            }
+        }
+
+        private void evict(String name) {
+            Integer id = ids.remove(name);
+            if (id != null) {
+                names.remove(id, name);
+            }
+        }
+
+        private int cache(ResultSet resultSet, int rowNumber) throws SQLException {
+            int id = resultSet.getInt("id");
+            String name = resultSet.getString("name");
+            names.putIfAbsent(id, name);
+            ids.putIfAbsent(name, id);
+            return id;
+        }
+
+        private void ensureLoaded() {
+            if (!loaded) {
+                synchronized (this) {
+                    if (!loaded) {
+                        jdbcTemplate.query("select id, name from " + table, this::cache);
+                        loaded = true;
+                    }
+                }
+            }
+        }
+    }
+}
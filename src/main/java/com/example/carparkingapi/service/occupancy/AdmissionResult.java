@@ -0,0 +1,5 @@
+package com.example.carparkingapi.service.occupancy;
+
+public enum AdmissionResult {
+    ADMITTED, FULL, NO_ELECTRIC_PLACES
+}
@@ -0,0 +1,78 @@
+package com.example.carparkingapi.service.occupancy;
+
+import com.example.carparkingapi.domain.Car;
+import com.example.carparkingapi.domain.Parking;
+import com.example.carparkingapi.exception.not.found.ParkingNotFoundException;
+import com.example.carparkingapi.exception.parking.FullParkingException;
+import com.example.carparkingapi.exception.parking.NoMoreElectricPlacesException;
+import com.example.carparkingapi.model.Fuel;
+import com.example.carparkingapi.repository.ParkingRepository;
+import lombok.RequiredArgsConstructor;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.EntityManager;
+
+import static com.example.carparkingapi.util.Constants.*;
+
+/**
+ * Admits and releases cars with a single conditional UPDATE on the {@code parking} row, so the capacity check
+ * and the increment happen atomically in the database. Safe when several API nodes share one database.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "parking.occupancy.mode", havingValue = "database", matchIfMissing = true)
+public class GuardedUpdateOccupancyStrategy implements ParkingOccupancyStrategy {
+
+    private final ParkingRepository parkingRepository;
+
+    private final EntityManager entityManager;
+
+    private static final Logger logger = LogManager.getLogger(GuardedUpdateOccupancyStrategy.class);
+
+    @Override
+    public void admit(Parking parking, Car car, int heldBack) {
+        if (!Fuel.ELECTRIC.equals(car.getFuel())) {
+            if (parkingRepository.admitCar(parking.getId(), heldBack) == 0) {
+                throw new FullParkingException(PARKING_FULL_ERROR_MESSAGE);
+            }
+            refreshIfManaged(parking);
+            return;
+        }
+
+        if (parkingRepository.admitElectricCar(parking.getId(), heldBack) == 0) {
+            int takenPlaces = parkingRepository.findTakenPlacesById(parking.getId())
+                    .orElseThrow(() -> new ParkingNotFoundException(PARKING_NOT_FOUND_ERROR_MESSAGE));
+            if (takenPlaces + heldBack >= parking.getCapacity()) {
+                throw new FullParkingException(PARKING_FULL_ERROR_MESSAGE);
+            }
+            throw new NoMoreElectricPlacesException(NO_MORE_ELECTRIC_PLACES_ERROR_MESSAGE);
+        }
+        refreshIfManaged(parking);
+    }
+
+    @Override
+    public void release(Parking parking, Car car) {
+        int updated = Fuel.ELECTRIC.equals(car.getFuel())
+                ? parkingRepository.releaseElectricCar(parking.getId())
+                : parkingRepository.releaseCar(parking.getId());
+        if (updated == 0) {
+            logger.warn("Parking {} had no taken places to release", parking.getId());
+            return;
+        }
+        refreshIfManaged(parking);
+    }
+
+    /**
+     * The guarded updates leave the persistence context alone, only a parking managed by the surrounding
+     * transaction is re-read so it does not keep the counters from before the update.
+     */
+    private void refreshIfManaged(Parking parking) {
+        if (TransactionSynchronizationManager.isActualTransactionActive() && entityManager.contains(parking)) {
+            entityManager.refresh(parking);
+        }
+    }
+}
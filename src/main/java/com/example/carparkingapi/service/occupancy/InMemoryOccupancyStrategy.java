@@ -0,0 +1,119 @@
+package com.example.carparkingapi.service.occupancy;
+
+import com.example.carparkingapi.domain.Car;
+import com.example.carparkingapi.domain.Parking;
+import com.example.carparkingapi.dto.ParkingOccupancyDTO;
+import com.example.carparkingapi.exception.parking.FullParkingException;
+import com.example.carparkingapi.exception.parking.NoMoreElectricPlacesException;
+import com.example.carparkingapi.model.Fuel;
+import com.example.carparkingapi.repository.ParkingRepository;
+import lombok.RequiredArgsConstructor;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.example.carparkingapi.util.Constants.NO_MORE_ELECTRIC_PLACES_ERROR_MESSAGE;
+import static com.example.carparkingapi.util.Constants.PARKING_FULL_ERROR_MESSAGE;
+
+/**
+ * Keeps the counters of every used parking in memory and admits cars with compare-and-set.
+ * Changed counters are written to the {@code parking} table every {@code parking.occupancy.flush-interval-ms},
+ * so the columns may lag behind for that long. Only safe when a single API node serves the parkings.
+ * With {@code parking.occupancy.journal.enabled} every change is also appended to the {@link OccupancyJournal},
+ * and counters are seeded from the journal instead of the {@code parking} row after a restart.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "parking.occupancy.mode", havingValue = "memory")
+public class InMemoryOccupancyStrategy implements ParkingOccupancyStrategy {
+
+    private final ParkingRepository parkingRepository;
+
+    private final Optional<OccupancyJournal> occupancyJournal;
+
+    private final Map<Long, OccupancyCounter> counters = new ConcurrentHashMap<>();
+
+    private static final Logger logger = LogManager.getLogger(InMemoryOccupancyStrategy.class);
+
+    @Override
+    public void admit(Parking parking, Car car, int heldBack) {
+        boolean electric = Fuel.ELECTRIC.equals(car.getFuel());
+        switch (counterFor(parking).tryAdmit(electric, heldBack)) {
+            case FULL -> throw new FullParkingException(PARKING_FULL_ERROR_MESSAGE);
+            case NO_ELECTRIC_PLACES -> throw new NoMoreElectricPlacesException(NO_MORE_ELECTRIC_PLACES_ERROR_MESSAGE);
+            case ADMITTED -> occupancyJournal.ifPresent(journal -> journal.park(parking.getId(), electric));
+        }
+    }
+
+    @Override
+    public void release(Parking parking, Car car) {
+        boolean electric = Fuel.ELECTRIC.equals(car.getFuel());
+        counterFor(parking).release(electric);
+        occupancyJournal.ifPresent(journal -> journal.leave(parking.getId(), electric));
+    }
+
+    @Override
+    public ParkingOccupancyDTO occupancy(Parking parking) {
+        long snapshot = counterFor(parking).snapshot();
+        return new ParkingOccupancyDTO(parking.getId(), OccupancyCounter.taken(snapshot),
+                OccupancyCounter.takenElectric(snapshot));
+    }
+
+    @Override
+    public void refresh(Parking parking) {
+        OccupancyCounter counter = counters.get(parking.getId());
+        if (counter != null) {
+            counter.updateLimits(parking);
+        }
+    }
+
+    @Override
+    public void evict(Long parkingId) {
+        counters.remove(parkingId);
+        occupancyJournal.ifPresent(journal -> journal.evict(parkingId));
+    }
+
+    @PreDestroy
+    @Scheduled(fixedDelayString = "${parking.occupancy.flush-interval-ms:1000}")
+    public void flush() {
+        counters.forEach((parkingId, counter) -> {
+            if (!counter.markClean()) {
+                return;
+            }
+            long snapshot = counter.snapshot();
+            try {
+                parkingRepository.updateOccupancy(parkingId, OccupancyCounter.taken(snapshot),
+                        OccupancyCounter.takenElectric(snapshot));
+            } catch (RuntimeException e) {
+                counter.markDirty();
+                logger.error("Could not flush occupancy of parking " + parkingId, e);
+            }
+        });
+    }
+
+    private OccupancyCounter counterFor(Parking parking) {
+        return counters.computeIfAbsent(parking.getId(), id -> createCounter(parking));
+    }
+
+    private OccupancyCounter createCounter(Parking parking) {
+        if (occupancyJournal.isEmpty()) {
+            return new OccupancyCounter(parking);
+        }
+        int[] occupancy = occupancyJournal.get().occupancy(parking.getId());
+        if (occupancy == null) {
+            occupancyJournal.get().baseline(parking.getId(), parking.getTakenPlaces(),
+                    parking.getTakenElectricPlaces());
+            return new OccupancyCounter(parking);
+        }
+        OccupancyCounter counter = new OccupancyCounter(parking, occupancy[0], occupancy[1]);
+        counter.markDirty();
+        return counter;
+    }
+}
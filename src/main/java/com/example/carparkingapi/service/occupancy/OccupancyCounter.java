@@ -0,0 +1,97 @@
+package com.example.carparkingapi.service.occupancy;
+
+import com.example.carparkingapi.domain.Parking;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free taken / taken electric counters of a single parking.
+ * Both counters live in one {@code long} (taken in the high 32 bits, taken electric in the low 32 bits),
+ * so an electric car is admitted with a single compare-and-set.
+ */
+public class OccupancyCounter {
+
+    private static final long LOW_BITS = 0xFFFFFFFFL;
+
+    private final AtomicLong state;
+
+    private final AtomicBoolean dirty = new AtomicBoolean();
+
+    private volatile int capacity;
+
+    private volatile int electricCapacity;
+
+    public OccupancyCounter(Parking parking) {
+        this(parking, parking.getTakenPlaces(), parking.getTakenElectricPlaces());
+    }
+
+    public OccupancyCounter(Parking parking, int takenPlaces, int takenElectricPlaces) {
+        this.state = new AtomicLong(pack(takenPlaces, takenElectricPlaces));
+        this.capacity = parking.getCapacity();
+        this.electricCapacity = parking.getPlacesForElectricCars();
+    }
+
+    public AdmissionResult tryAdmit(boolean electric, int heldBack) {
+        while (true) {
+            long current = state.get();
+            int taken = taken(current);
+            int takenElectric = takenElectric(current);
+            if (taken + heldBack >= capacity) {
+                return AdmissionResult.FULL;
+            }
+            if (electric && takenElectric >= electricCapacity) {
+                return AdmissionResult.NO_ELECTRIC_PLACES;
+            }
+            if (state.compareAndSet(current, pack(taken + 1, electric ? takenElectric + 1 : takenElectric))) {
+                dirty.set(true);
+                return AdmissionResult.ADMITTED;
+            }
+        }
+    }
+
+    public void release(boolean electric) {
+        while (true) {
+            long current = state.get();
+            int taken = Math.max(taken(current) - 1, 0);
+            int takenElectric = electric ? Math.max(takenElectric(current) - 1, 0) : takenElectric(current);
+            if (state.compareAndSet(current, pack(taken, takenElectric))) {
+                dirty.set(true);
+                return;
+            }
+        }
+    }
+
+    public void updateLimits(Parking parking) {
+        this.capacity = parking.getCapacity();
+        this.electricCapacity = parking.getPlacesForElectricCars();
+        dirty.set(true);
+    }
+
+    /**
+     * Clears the dirty flag, returns {@code false} if nothing changed since the last call.
+     */
+    public boolean markClean() {
+        return dirty.compareAndSet(true, false);
+    }
+
+    public void markDirty() {
+        dirty.set(true);
+    }
+
+    public long snapshot() {
+        return state.get();
+    }
+
+    public static int taken(long snapshot) {
+        return (int) (snapshot >>> 32);
+    }
+
+    public static int takenElectric(long snapshot) {
+        return (int) (snapshot & LOW_BITS);
+    }
+
+    private static long pack(int taken, int takenElectric) {
+        return ((long) taken << 32) | (takenElectric & LOW_BITS);
+    }
+}
@@ -0,0 +1,248 @@
+package com.example.carparkingapi.service.occupancy;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.*;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Append-only journal of occupancy changes used by {@link InMemoryOccupancyStrategy} instead of a database write
+ * per park / leave. Records have a fixed size and go to a memory-mapped segment file which is forced to disk
+ * every {@code parking.occupancy.journal.sync-interval-ms}. A snapshot of all counters is written when a segment
+ * fills up and every {@code parking.occupancy.journal.snapshot-interval-ms}, after which a new segment is started
+ * and the old one deleted; on startup the snapshot and the records after it are replayed.
+ * <p>
+ * Record layout (32 bytes): sequence (long, 0 marks the end of a segment), parking id (long), type (int),
+ * electric flag (int), taken places (int) and taken electric places (int), the last two only for baselines.
+ */
+@Component
+@ConditionalOnProperty(name = "parking.occupancy.journal.enabled", havingValue = "true")
+public class OccupancyJournal {
+
+    private static final int RECORD_SIZE = 32;
+
+    private static final int BASELINE = 1;
+
+    private static final int PARK = 2;
+
+    private static final int LEAVE = 3;
+
+    private static final int EVICT = 4;
+
+    private static final String SNAPSHOT_FILE = "occupancy.snapshot";
+
+    private static final String SEGMENT_PREFIX = "occupancy-";
+
+    private static final String SEGMENT_SUFFIX = ".journal";
+
+    private static final Logger logger = LogManager.getLogger(OccupancyJournal.class);
+
+    private final Path directory;
+
+    private final int segmentBytes;
+
+    private final Map<Long, int[]> totals = new HashMap<>();
+
+    private MappedByteBuffer segment;
+
+    private Path segmentPath;
+
+    private long sequence;
+
+    public OccupancyJournal(@Value("${parking.occupancy.journal.directory:journal}") String directory,
+                            @Value("${parking.occupancy.journal.segment-bytes:67108864}") int segmentBytes) {
+        this.directory = Path.of(directory);
+        this.segmentBytes = segmentBytes - segmentBytes % RECORD_SIZE;
+        try {
+            Files.createDirectories(this.directory);
+            replay();
+            writeSnapshot();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open occupancy journal in " + directory, e);
+        }
+    }
+
+    /**
+     * Returns the replayed taken / taken electric places of the parking, or {@code null} if the journal has never
+     * seen it.
+     */
+    public synchronized int[] occupancy(Long parkingId) {
+        int[] occupancy = totals.get(parkingId);
+        return occupancy == null ? null : occupancy.clone();
+    }
+
+    public synchronized void baseline(Long parkingId, int takenPlaces, int takenElectricPlaces) {
+        append(BASELINE, parkingId, false, takenPlaces, takenElectricPlaces);
+    }
+
+    public synchronized void park(Long parkingId, boolean electric) {
+        append(PARK, parkingId, electric, 0, 0);
+    }
+
+    public synchronized void leave(Long parkingId, boolean electric) {
+        append(LEAVE, parkingId, electric, 0, 0);
+    }
+
+    public synchronized void evict(Long parkingId) {
+        append(EVICT, parkingId, false, 0, 0);
+    }
+
+    @Scheduled(fixedDelayString = "${parking.occupancy.journal.sync-interval-ms:100}")
+    public synchronized void sync() {
+        segment.force();
+    }
+
+    @PreDestroy
+    @Scheduled(fixedDelayString = "${parking.occupancy.journal.snapshot-interval-ms:60000}")
+    public synchronized void snapshot() {
+        try {
+            writeSnapshot();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write occupancy snapshot", e);
+        }
+    }
+
+    private void writeSnapshot() throws IOException {
+        Path temporary = directory.resolve(SNAPSHOT_FILE + ".tmp");
+        try (DataOutputStream output = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+            output.writeLong(sequence);
+            output.writeInt(totals.size());
+            for (Map.Entry<Long, int[]> entry : totals.entrySet()) {
+                output.writeLong(entry.getKey());
+                output.writeInt(entry.getValue()[0]);
+                output.writeInt(entry.getValue()[1]);
+            }
+        }
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+        Files.move(temporary, directory.resolve(SNAPSHOT_FILE), StandardCopyOption.ATOMIC_MOVE,
+                StandardCopyOption.REPLACE_EXISTING);
+
+        openSegment();
+        for (Path path : segments()) {
+            if (!path.equals(segmentPath)) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    private void append(int type, Long parkingId, boolean electric, int takenPlaces, int takenElectricPlaces) {
+        if (!segment.hasRemaining()) {
+            snapshot();
+        }
+        sequence++;
+        int position = segment.position();
+        segment.putLong(0)
+                .putLong(parkingId)
+                .putInt(type)
+                .putInt(electric ? 1 : 0)
+                .putInt(takenPlaces)
+                .putInt(takenElectricPlaces);
+        // the sequence goes in last, a torn record still reads as the end of the segment
+        segment.putLong(position, sequence);
+        apply(type, parkingId, electric, takenPlaces, takenElectricPlaces);
+    }
+
+    private void apply(int type, long parkingId, boolean electric, int takenPlaces, int takenElectricPlaces) {
+        switch (type) {
+            case BASELINE -> totals.put(parkingId, new int[]{takenPlaces, takenElectricPlaces});
+            case PARK, LEAVE -> {
+                int[] occupancy = totals.computeIfAbsent(parkingId, id -> new int[2]);
+                int delta = type == PARK ? 1 : -1;
+                occupancy[0] = Math.max(occupancy[0] + delta, 0);
+                if (electric) {
+                    occupancy[1] = Math.max(occupancy[1] + delta, 0);
+                }
+            }
+            case EVICT -> totals.remove(parkingId);
+            default -> logger.warn("Skipping occupancy journal record of unknown type {}", type);
+        }
+    }
+
+    private void replay() throws IOException {
+        Path snapshotPath = directory.resolve(SNAPSHOT_FILE);
+        if (Files.exists(snapshotPath)) {
+            try (DataInputStream input = new DataInputStream(
+                    new BufferedInputStream(Files.newInputStream(snapshotPath)))) {
+                sequence = input.readLong();
+                int count = input.readInt();
+                for (int i = 0; i < count; i++) {
+                    totals.put(input.readLong(), new int[]{input.readInt(), input.readInt()});
+                }
+            }
+        }
+
+        long snapshotSequence = sequence;
+        int replayed = 0;
+        for (Path path : segments()) {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                while (buffer.remaining() >= RECORD_SIZE) {
+                    long recordSequence = buffer.getLong();
+                    if (recordSequence == 0) {
+                        break;
+                    }
+                    long parkingId = buffer.getLong();
+                    int type = buffer.getInt();
+                    boolean electric = buffer.getInt() == 1;
+                    int takenPlaces = buffer.getInt();
+                    int takenElectricPlaces = buffer.getInt();
+                    if (recordSequence > snapshotSequence) {
+                        apply(type, parkingId, electric, takenPlaces, takenElectricPlaces);
+                        sequence = recordSequence;
+                        replayed++;
+                    }
+                }
+            }
+            segmentPath = path;
+        }
+        logger.info("Replayed occupancy of {} parkings, {} journal records after the snapshot",
+                totals.size(), replayed);
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.getFileName().toString().startsWith(SEGMENT_PREFIX))
+                    .sorted((first, second) -> Long.compare(segmentNumber(first), segmentNumber(second)))
+                    .toList();
+        }
+    }
+
+    private static long segmentNumber(Path path) {
+        String name = path.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    /**
+     * Starts the segment whose first record will be {@code sequence + 1}. If that segment already exists it holds
+     * no records yet (they would have been replayed), so it is reused.
+     */
+    private void openSegment() throws IOException {
+        Path path = directory.resolve(SEGMENT_PREFIX + (sequence + 1) + SEGMENT_SUFFIX);
+        if (path.equals(segmentPath) && segment != null) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+        }
+        segmentPath = path;
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.carparkingapi.service.occupancy;
+
+import com.example.carparkingapi.domain.Car;
+import com.example.carparkingapi.domain.Parking;
+import com.example.carparkingapi.dto.ParkingOccupancyDTO;
+
+/**
+ * Decides whether a car may take a place in a parking and keeps the taken / taken electric counters up to date.
+ * The active implementation is selected with the {@code parking.occupancy.mode} property.
+ */
+public interface ParkingOccupancyStrategy {
+
+    /**
+     * Reserves a place for the car or throws
+     * {@link com.example.carparkingapi.exception.parking.FullParkingException} /
+     * {@link com.example.carparkingapi.exception.parking.NoMoreElectricPlacesException}.
+     * The last {@code heldBack} places of the capacity are kept free for reservations.
+     */
+    void admit(Parking parking, Car car, int heldBack);
+
+    void release(Parking parking, Car car);
+
+    /**
+     * Returns the current taken / taken electric places of the parking as this strategy counts them. The
+     * {@code parking} row is only up to date when the strategy writes it directly.
+     */
+    default ParkingOccupancyDTO occupancy(Parking parking) {
+        return new ParkingOccupancyDTO(parking.getId(), parking.getTakenPlaces(), parking.getTakenElectricPlaces());
+    }
+
+    /**
+     * Called after the parking itself was edited (capacity, electric places).
+     */
+    default void refresh(Parking parking) {
+    }
+
+    /**
+     * Called after the parking was deleted.
+     */
+    default void evict(Long parkingId) {
+    }
+}
@@ -0,0 +1,260 @@
+package com.example.carparkingapi.service.occupancy;
+
+import com.example.carparkingapi.domain.Car;
+import com.example.carparkingapi.domain.Parking;
+import com.example.carparkingapi.domain.ParkingOccupancySlot;
+import com.example.carparkingapi.dto.ParkingOccupancyDTO;
+import com.example.carparkingapi.exception.parking.FullParkingException;
+import com.example.carparkingapi.exception.parking.NoMoreElectricPlacesException;
+import com.example.carparkingapi.model.Fuel;
+import com.example.carparkingapi.model.OccupancyTotals;
+import com.example.carparkingapi.repository.ParkingOccupancySlotRepository;
+import com.example.carparkingapi.repository.ParkingRepository;
+import lombok.RequiredArgsConstructor;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static com.example.carparkingapi.util.Constants.NO_MORE_ELECTRIC_PLACES_ERROR_MESSAGE;
+import static com.example.carparkingapi.util.Constants.PARKING_FULL_ERROR_MESSAGE;
+
+/**
+ * Spreads the counters of a parking over {@code parking.occupancy.shards} rows of {@code parking_occupancy_slot},
+ * each owning a share of the capacity. A car is admitted by a guarded UPDATE on a randomly picked slot, moving on
+ * to the next slot when that share is used up, so concurrent admissions rarely wait for the same row lock.
+ * When no single slot can take the car, the admission falls back to locking all slots of the parking, checking
+ * the totals and moving a free electric place between slots if the free places ended up in different slots.
+ * The totals are folded back into the {@code parking} row every {@code parking.occupancy.fold-interval-ms}.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "parking.occupancy.mode", havingValue = "sharded")
+public class ShardedOccupancyStrategy implements ParkingOccupancyStrategy {
+
+    private final ParkingOccupancySlotRepository slotRepository;
+
+    private final ParkingRepository parkingRepository;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final Map<Long, Integer> slotCounts = new ConcurrentHashMap<>();
+
+    @Value("${parking.occupancy.shards:8}")
+    private int shards;
+
+    private static final Logger logger = LogManager.getLogger(ShardedOccupancyStrategy.class);
+
+    @Override
+    public void admit(Parking parking, Car car, int heldBack) {
+        boolean electric = Fuel.ELECTRIC.equals(car.getFuel());
+        int slotCount = slotCount(parking);
+        int start = ThreadLocalRandom.current().nextInt(slotCount);
+
+        for (int i = 0; i < slotCount; i++) {
+            int slot = (start + i) % slotCount;
+            int slotHeldBack = share(heldBack, slot, slotCount);
+            int updated = electric
+                    ? slotRepository.admitElectricCar(parking.getId(), slot, slotHeldBack)
+                    : slotRepository.admitCar(parking.getId(), slot, slotHeldBack);
+            if (updated > 0) {
+                return;
+            }
+        }
+
+        admitAcrossSlots(parking, electric, heldBack);
+    }
+
+    /**
+     * Admits against the totals of all slots. The slot shares of the held back places and of the electric places
+     * can leave every slot short while the parking as a whole still has room, so a free electric place is moved
+     * to the slot that has a free place when needed.
+     */
+    private void admitAcrossSlots(Parking parking, boolean electric, int heldBack) {
+        transactionTemplate.executeWithoutResult(status -> {
+            List<ParkingOccupancySlot> slots = slotRepository.findAllByParkingIdForUpdate(parking.getId());
+            int taken = slots.stream().mapToInt(ParkingOccupancySlot::getTakenPlaces).sum();
+            int capacity = slots.stream().mapToInt(ParkingOccupancySlot::getCapacity).sum();
+            if (taken + heldBack >= capacity) {
+                throw new FullParkingException(PARKING_FULL_ERROR_MESSAGE);
+            }
+            ParkingOccupancySlot target = slots.stream()
+                    .filter(slot -> slot.getTakenPlaces() < slot.getCapacity())
+                    .filter(slot -> !electric || slot.getTakenElectricPlaces() < slot.getElectricCapacity())
+                    .findFirst()
+                    .orElseGet(() -> moveElectricPlace(slots));
+
+            target.setTakenPlaces(target.getTakenPlaces() + 1);
+            if (electric) {
+                target.setTakenElectricPlaces(target.getTakenElectricPlaces() + 1);
+            }
+        });
+    }
+
+    private static ParkingOccupancySlot moveElectricPlace(List<ParkingOccupancySlot> slots) {
+        ParkingOccupancySlot donor = slots.stream()
+                .filter(slot -> slot.getTakenElectricPlaces() < slot.getElectricCapacity())
+                .findFirst()
+                .orElseThrow(() -> new NoMoreElectricPlacesException(NO_MORE_ELECTRIC_PLACES_ERROR_MESSAGE));
+        ParkingOccupancySlot target = slots.stream()
+                .filter(slot -> slot.getTakenPlaces() < slot.getCapacity())
+                .findFirst()
+                .orElseThrow(() -> new FullParkingException(PARKING_FULL_ERROR_MESSAGE));
+        donor.setElectricCapacity(donor.getElectricCapacity() - 1);
+        target.setElectricCapacity(target.getElectricCapacity() + 1);
+        return target;
+    }
+
+    @Override
+    public void release(Parking parking, Car car) {
+        boolean electric = Fuel.ELECTRIC.equals(car.getFuel());
+        int slotCount = slotCount(parking);
+        int start = ThreadLocalRandom.current().nextInt(slotCount);
+
+        for (int i = 0; i < slotCount; i++) {
+            int slot = (start + i) % slotCount;
+            int updated = electric
+                    ? slotRepository.releaseElectricCar(parking.getId(), slot)
+                    : slotRepository.releaseCar(parking.getId(), slot);
+            if (updated > 0) {
+                return;
+            }
+        }
+        logger.warn("Parking {} had no taken places to release", parking.getId());
+    }
+
+    /**
+     * Sums the slots when the parking has any, they may have been created by another node.
+     */
+    @Override
+    public ParkingOccupancyDTO occupancy(Parking parking) {
+        List<ParkingOccupancySlot> slots = slotRepository.findAllByParkingIdOrderBySlot(parking.getId());
+        if (slots.isEmpty()) {
+            return ParkingOccupancyStrategy.super.occupancy(parking);
+        }
+        return new ParkingOccupancyDTO(parking.getId(),
+                slots.stream().mapToInt(ParkingOccupancySlot::getTakenPlaces).sum(),
+                slots.stream().mapToInt(ParkingOccupancySlot::getTakenElectricPlaces).sum());
+    }
+
+    /**
+     * Spreads the new limits over the locked slots. A slot never gets less than it has taken, which admissions
+     * across slots may have pushed above its even share; the places it keeps beyond that share are taken from
+     * the slots with room to spare, starting at the last one.
+     */
+    @Override
+    public void refresh(Parking parking) {
+        slotCount(parking);
+        transactionTemplate.executeWithoutResult(status -> {
+            List<ParkingOccupancySlot> slots = slotRepository.findAllByParkingIdForUpdate(parking.getId());
+            int[] capacities = distribute(parking.getCapacity(),
+                    slots.stream().mapToInt(ParkingOccupancySlot::getTakenPlaces).toArray());
+            int[] electricCapacities = distribute(parking.getPlacesForElectricCars(),
+                    slots.stream().mapToInt(ParkingOccupancySlot::getTakenElectricPlaces).toArray());
+            for (int i = 0; i < slots.size(); i++) {
+                slots.get(i).setCapacity(capacities[i]);
+                slots.get(i).setElectricCapacity(electricCapacities[i]);
+            }
+        });
+    }
+
+    @Override
+    public void evict(Long parkingId) {
+        slotCounts.remove(parkingId);
+    }
+
+    @Scheduled(fixedDelayString = "${parking.occupancy.fold-interval-ms:1000}")
+    public void fold() {
+        slotCounts.keySet().forEach(parkingId -> {
+            OccupancyTotals totals = slotRepository.sumOccupancy(parkingId);
+            parkingRepository.updateOccupancy(parkingId, (int) totals.getTakenPlaces(),
+                    (int) totals.getTakenElectricPlaces());
+        });
+    }
+
+    /**
+     * Slots are created outside of the map, a mapping function doing database IO would block every other parking
+     * hashed to the same bin; {@link #createSlots} itself copes with a concurrent creation.
+     */
+    private int slotCount(Parking parking) {
+        Integer slotCount = slotCounts.get(parking.getId());
+        if (slotCount != null) {
+            return slotCount;
+        }
+        slotCount = createSlots(parking);
+        Integer existing = slotCounts.putIfAbsent(parking.getId(), slotCount);
+        return existing != null ? existing : slotCount;
+    }
+
+    private int createSlots(Parking parking) {
+        List<ParkingOccupancySlot> existing = slotRepository.findAllByParkingIdOrderBySlot(parking.getId());
+        if (!existing.isEmpty()) {
+            return existing.size();
+        }
+
+        try {
+            slotRepository.saveAll(splitOccupancy(parking));
+            return shards;
+        } catch (DataIntegrityViolationException e) {
+            logger.info("Occupancy slots of parking {} were created concurrently", parking.getId());
+            return slotRepository.findAllByParkingIdOrderBySlot(parking.getId()).size();
+        }
+    }
+
+    private List<ParkingOccupancySlot> splitOccupancy(Parking parking) {
+        int remainingElectric = parking.getTakenElectricPlaces();
+        int remainingRegular = parking.getTakenPlaces() - parking.getTakenElectricPlaces();
+
+        List<ParkingOccupancySlot> slots = new ArrayList<>(shards);
+        for (int slot = 0; slot < shards; slot++) {
+            int capacity = share(parking.getCapacity(), slot, shards);
+            int electricCapacity = share(parking.getPlacesForElectricCars(), slot, shards);
+
+            int takenElectric = Math.min(remainingElectric, Math.min(electricCapacity, capacity));
+            int takenRegular = Math.min(remainingRegular, capacity - takenElectric);
+            if (slot == shards - 1) {
+                takenElectric = remainingElectric;
+                takenRegular = remainingRegular;
+            }
+            remainingElectric -= takenElectric;
+            remainingRegular -= takenRegular;
+
+            slots.add(new ParkingOccupancySlot(null, parking.getId(), slot, capacity, electricCapacity,
+                    takenRegular + takenElectric, takenElectric));
+        }
+        return slots;
+    }
+
+    /**
+     * Even shares of the total, each raised to at least its floor and the excess trimmed off slots above their
+     * floor. The limits only add up to more than the total when the floors alone do.
+     */
+    private static int[] distribute(int total, int[] floors) {
+        int[] limits = new int[floors.length];
+        int excess = -total;
+        for (int slot = 0; slot < floors.length; slot++) {
+            limits[slot] = Math.max(floors[slot], share(total, slot, floors.length));
+            excess += limits[slot];
+        }
+        for (int slot = floors.length - 1; slot >= 0 && excess > 0; slot--) {
+            int trimmed = Math.min(limits[slot] - floors[slot], excess);
+            limits[slot] -= trimmed;
+            excess -= trimmed;
+        }
+        return limits;
+    }
+
+    private static int share(int total, int slot, int slotCount) {
+        return total / slotCount + (slot < total % slotCount ? 1 : 0);
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.carparkingapi.service.reservation;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Number of reserved places of a single parking over time. Time from {@code origin} is cut into buckets of equal
+ * length and a segment tree with lazy propagation keeps the reservations per bucket, so adding a reservation and
+ * asking for the peak of a window both take O(log n). A reservation holds every bucket it touches.
+ */
+public class ReservationTimeline {
+
+    private final LocalDateTime origin;
+
+    private final long bucketMinutes;
+
+    private final int size;
+
+    private final int[] max;
+
+    private final int[] pending;
+
+    public ReservationTimeline(LocalDateTime origin, Duration bucket, int size) {
+        this.origin = origin;
+        this.bucketMinutes = bucket.toMinutes();
+        this.size = size;
+        this.max = new int[4 * size];
+        this.pending = new int[4 * size];
+    }
+
+    public LocalDateTime getOrigin() {
+        return origin;
+    }
+
+    public LocalDateTime getEnd() {
+        return origin.plusMinutes(bucketMinutes * size);
+    }
+
+    /**
+     * Returns whether the window lies inside the time span this timeline covers.
+     */
+    public boolean covers(LocalDateTime from, LocalDateTime to) {
+        return !from.isBefore(origin) && !to.isAfter(getEnd());
+    }
+
+    public synchronized void add(LocalDateTime from, LocalDateTime to, int delta) {
+        int first = firstBucket(from);
+        int last = lastBucket(to);
+        if (first <= last) {
+            add(1, 0, size - 1, first, last, delta);
+        }
+    }
+
+    /**
+     * Returns the highest number of places reserved at any moment of {@code [from, to)}.
+     */
+    public synchronized int peak(LocalDateTime from, LocalDateTime to) {
+        int first = firstBucket(from);
+        int last = lastBucket(to);
+        return first <= last ? peak(1, 0, size - 1, first, last) : 0;
+    }
+
+    private int firstBucket(LocalDateTime time) {
+        return (int) Math.max(0, Duration.between(origin, time).toMinutes() / bucketMinutes);
+    }
+
+    private int lastBucket(LocalDateTime time) {
+        long minutes = Duration.between(origin, time).toMinutes();
+        return (int) Math.min(size - 1, (minutes + bucketMinutes - 1) / bucketMinutes - 1);
+    }
+
+    private void add(int node, int left, int right, int from, int to, int delta) {
+        if (to < left || right < from) {
+            return;
+        }
+        if (from <= left && right <= to) {
+            max[node] += delta;
+            pending[node] += delta;
+            return;
+        }
+        push(node);
+        int middle = (left + right) >>> 1;
+        add(2 * node, left, middle, from, to, delta);
+        add(2 * node + 1, middle + 1, right, from, to, delta);
+        max[node] = Math.max(max[2 * node], max[2 * node + 1]);
+    }
+
+    private int peak(int node, int left, int right, int from, int to) {
+        if (to < left || right < from) {
+            return Integer.MIN_VALUE;
+        }
+        if (from <= left && right <= to) {
+            return max[node];
+        }
+        push(node);
+        int middle = (left + right) >>> 1;
+        return Math.max(peak(2 * node, left, middle, from, to), peak(2 * node + 1, middle + 1, right, from, to));
+    }
+
+    private void push(int node) {
+        if (pending[node] != 0) {
+            for (int child = 2 * node; child <= 2 * node + 1; child++) {
+                max[child] += pending[node];
+                pending[child] += pending[node];
+            }
+            pending[node] = 0;
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.example.carparkingapi.service.spot;
+
+import com.example.carparkingapi.domain.ParkingSpot;
+
+import java.util.*;
+
+/**
+ * Free-spot index of a single parking. Spots are grouped into size classes (length, width) kept in sorted maps,
+ * separately for regular and electric spots; every size class holds a bitmap of its free spots where bit
+ * {@code n - 1} stands for spot number {@code n}. A car gets the best fitting free spot: the shortest one it fits
+ * into, and among those the narrowest, so small cars do not take oversized bays. Only size classes with a free
+ * spot are kept in the maps, so the best fit is found with {@code ceiling} lookups instead of walking full classes.
+ * Spots not stored yet (without an id) count for {@link #fits} but are never handed out.
+ */
+public class SpotIndex {
+
+    private final long[] spotIds;
+
+    private final SizeClass[] sizeClasses;
+
+    private final Map<Long, Integer> indexBySpotId = new HashMap<>();
+
+    private final NavigableMap<Integer, NavigableMap<Integer, SizeClass>> regularClasses = new TreeMap<>();
+
+    private final NavigableMap<Integer, NavigableMap<Integer, SizeClass>> electricClasses = new TreeMap<>();
+
+    private final NavigableMap<Integer, NavigableMap<Integer, SizeClass>> freeRegularClasses = new TreeMap<>();
+
+    private final NavigableMap<Integer, NavigableMap<Integer, SizeClass>> freeElectricClasses = new TreeMap<>();
+
+    public SpotIndex(List<ParkingSpot> spots, Collection<Long> occupiedSpotIds) {
+        int size = spots.stream().mapToInt(ParkingSpot::getSpotNumber).max().orElse(0);
+        this.spotIds = new long[size];
+        this.sizeClasses = new SizeClass[size];
+
+        for (ParkingSpot spot : spots) {
+            int index = spot.getSpotNumber() - 1;
+            SizeClass sizeClass = (spot.isElectric() ? electricClasses : regularClasses)
+                    .computeIfAbsent(spot.getLength(), length -> new TreeMap<>())
+                    .computeIfAbsent(spot.getWidth(),
+                            width -> new SizeClass(spot.isElectric(), spot.getLength(), spot.getWidth()));
+
+            sizeClasses[index] = sizeClass;
+            if (Objects.isNull(spot.getId())) {
+                continue;
+            }
+            spotIds[index] = spot.getId();
+            indexBySpotId.put(spot.getId(), index);
+            if (!occupiedSpotIds.contains(spot.getId())) {
+                sizeClass.free.set(index);
+                addFreeClass(sizeClass);
+            }
+        }
+    }
+
+    /**
+     * Returns whether the parking has any spot (free or not) a car of the given size fits into. Electric cars only
+     * count electric spots, unless the parking has none and they are turned away for that reason later.
+     */
+    public boolean fits(int length, int width, boolean electricCar) {
+        if (electricCar && !electricClasses.isEmpty()) {
+            return hasClass(electricClasses, length, width);
+        }
+        return hasClass(regularClasses, length, width) || hasClass(electricClasses, length, width);
+    }
+
+    /**
+     * Takes the best fitting free spot and returns its index, or -1 if there is none. Regular cars fall back to
+     * electric spots once no regular spot fits, electric cars only get electric spots.
+     */
+    public synchronized int allocate(int length, int width, boolean electricCar) {
+        if (!electricCar) {
+            int index = allocate(freeRegularClasses, length, width);
+            if (index >= 0) {
+                return index;
+            }
+        }
+        return allocate(freeElectricClasses, length, width);
+    }
+
+    public synchronized void free(Long spotId) {
+        Integer index = indexBySpotId.get(spotId);
+        if (index != null) {
+            SizeClass sizeClass = sizeClasses[index];
+            if (sizeClass.free.isEmpty()) {
+                addFreeClass(sizeClass);
+            }
+            sizeClass.free.set(index);
+            sizeClass.hint = Math.min(sizeClass.hint, index);
+        }
+    }
+
+    public long spotId(int index) {
+        return spotIds[index];
+    }
+
+    public boolean isElectric(int index) {
+        return sizeClasses[index].electric;
+    }
+
+    /**
+     * Takes the shortest length class the car fits into that has a wide enough free class, the narrowest of them.
+     * Lengths whose free classes are all too narrow are skipped with {@code higherEntry}.
+     */
+    private int allocate(NavigableMap<Integer, NavigableMap<Integer, SizeClass>> freeClasses, int length, int width) {
+        for (Map.Entry<Integer, NavigableMap<Integer, SizeClass>> byLength = freeClasses.ceilingEntry(length);
+             byLength != null; byLength = freeClasses.higherEntry(byLength.getKey())) {
+            Map.Entry<Integer, SizeClass> byWidth = byLength.getValue().ceilingEntry(width);
+            if (byWidth != null) {
+                SizeClass sizeClass = byWidth.getValue();
+                int index = sizeClass.free.nextSetBit(sizeClass.hint);
+                sizeClass.free.clear(index);
+                sizeClass.hint = index + 1;
+                if (sizeClass.free.isEmpty()) {
+                    removeFreeClass(freeClasses, sizeClass);
+                }
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    private void addFreeClass(SizeClass sizeClass) {
+        (sizeClass.electric ? freeElectricClasses : freeRegularClasses)
+                .computeIfAbsent(sizeClass.length, length -> new TreeMap<>())
+                .put(sizeClass.width, sizeClass);
+    }
+
+    private static void removeFreeClass(NavigableMap<Integer, NavigableMap<Integer, SizeClass>> freeClasses,
+                                        SizeClass sizeClass) {
+        NavigableMap<Integer, SizeClass> byWidth = freeClasses.get(sizeClass.length);
+        byWidth.remove(sizeClass.width);
+        if (byWidth.isEmpty()) {
+            freeClasses.remove(sizeClass.length);
+        }
+    }
+
+    private static boolean hasClass(NavigableMap<Integer, NavigableMap<Integer, SizeClass>> classes,
+                                    int length, int width) {
+        return classes.tailMap(length, true).values().stream()
+                .anyMatch(byWidth -> Objects.nonNull(byWidth.ceilingKey(width)));
+    }
+
+    private static final class SizeClass {
+
+        private final boolean electric;
+
+        private final int length;
+
+        private final int width;
+
+        private final BitSet free = new BitSet();
+
+        private int hint;
+
+        private SizeClass(boolean electric, int length, int width) {
+            this.electric = electric;
+            this.length = length;
+            this.width = width;
+        }
+    }
+}
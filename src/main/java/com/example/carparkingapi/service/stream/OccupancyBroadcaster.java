@@ -0,0 +1,181 @@
+package com.example.carparkingapi.service.stream;
+
+import com.example.carparkingapi.dto.ParkingOccupancyDTO;
+import com.example.carparkingapi.event.ParkingOccupancyChangedEvent;
+import com.example.carparkingapi.service.availability.ParkingAvailabilityIndex;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pushes occupancy deltas to Server-Sent Events subscribers. Changes are only collected when a car parks or leaves;
+ * every {@code parking.occupancy.stream.window-ms} the changed parkings are read from the
+ * {@link ParkingAvailabilityIndex}, serialized once and the same payload is queued for every subscriber, so a burst
+ * of changes on one parking reaches subscribers as a single delta and no subscriber causes a query. Payloads are
+ * written by a pool of {@code parking.occupancy.stream.send-threads}, one subscriber at a time in order, so a slow
+ * client never holds up the scheduler; a subscriber with more than {@code parking.occupancy.stream.max-pending}
+ * unsent payloads is dropped, as is one that timed out.
+ */
+@Component
+@RequiredArgsConstructor
+public class OccupancyBroadcaster {
+
+    private final ParkingAvailabilityIndex parkingAvailabilityIndex;
+
+    private final ObjectMapper objectMapper;
+
+    private final Set<Long> changedParkingIds = ConcurrentHashMap.newKeySet();
+
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+
+    @Value("${parking.occupancy.stream.timeout-ms:1800000}")
+    private long timeout;
+
+    @Value("${parking.occupancy.stream.max-pending:16}")
+    private int maxPending;
+
+    @Value("${parking.occupancy.stream.send-threads:4}")
+    private int sendThreads;
+
+    private ExecutorService sender;
+
+    private static final Logger logger = LogManager.getLogger(OccupancyBroadcaster.class);
+
+    @PostConstruct
+    void startSender() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        sender = Executors.newFixedThreadPool(sendThreads, runnable -> {
+            Thread thread = new Thread(runnable, "occupancy-stream-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    void stopSender() {
+        sender.shutdownNow();
+    }
+
+    public SseEmitter subscribe() {
+        return subscribe(new SseEmitter(timeout));
+    }
+
+    SseEmitter subscribe(SseEmitter emitter) {
+        Subscriber subscriber = new Subscriber(emitter);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> drop(subscriber, null));
+        emitter.onError(exception -> subscribers.remove(subscriber));
+        subscribers.add(subscriber);
+        return emitter;
+    }
+
+    int subscriberCount() {
+        return subscribers.size();
+    }
+
+    /**
+     * Runs after the transaction that parked or released the car committed, or right away when there is none.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOccupancyChanged(ParkingOccupancyChangedEvent event) {
+        changedParkingIds.add(event.getParkingId());
+    }
+
+    @Scheduled(fixedDelayString = "${parking.occupancy.stream.window-ms:250}")
+    public void broadcast() {
+        if (changedParkingIds.isEmpty()) {
+            return;
+        }
+        List<ParkingOccupancyDTO> deltas = new ArrayList<>();
+        for (Iterator<Long> iterator = changedParkingIds.iterator(); iterator.hasNext(); ) {
+            Long parkingId = iterator.next();
+            iterator.remove();
+            parkingAvailabilityIndex.getOccupancy(parkingId).ifPresent(deltas::add);
+        }
+        if (subscribers.isEmpty() || deltas.isEmpty()) {
+            return;
+        }
+
+        String payload;
+        try {
+            payload = objectMapper.writeValueAsString(deltas);
+        } catch (JsonProcessingException e) {
+            logger.error("Could not serialize occupancy deltas", e);
+            return;
+        }
+        for (Subscriber subscriber : subscribers) {
+            if (subscriber.pendingCount.incrementAndGet() > maxPending) {
+                drop(subscriber, null);
+                continue;
+            }
+            subscriber.pending.add(payload);
+            if (subscriber.sending.compareAndSet(false, true)) {
+                sender.execute(() -> send(subscriber));
+            }
+        }
+    }
+
+    /**
+     * Writes the pending payloads of the subscriber in order. Only one sender works on a subscriber at a time, the
+     * flag is re-checked after it is cleared so a payload queued in between is not left behind.
+     */
+    private void send(Subscriber subscriber) {
+        do {
+            String payload;
+            while ((payload = subscriber.pending.poll()) != null) {
+                subscriber.pendingCount.decrementAndGet();
+                try {
+                    subscriber.emitter.send(SseEmitter.event().name("occupancy")
+                            .data(payload, MediaType.APPLICATION_JSON));
+                } catch (IOException | IllegalStateException e) {
+                    drop(subscriber, e);
+                    return;
+                }
+            }
+            subscriber.sending.set(false);
+        } while (!subscriber.pending.isEmpty() && subscriber.sending.compareAndSet(false, true));
+    }
+
+    private void drop(Subscriber subscriber, Exception cause) {
+        if (!subscribers.remove(subscriber)) {
+            return;
+        }
+        subscriber.pending.clear();
+        if (Objects.isNull(cause)) {
+            subscriber.emitter.complete();
+        } else {
+            subscriber.emitter.completeWithError(cause);
+        }
+    }
+
+    private static final class Subscriber {
+
+        private final SseEmitter emitter;
+
+        private final Queue<String> pending = new ConcurrentLinkedQueue<>();
+
+        private final AtomicInteger pendingCount = new AtomicInteger();
+
+        private final AtomicBoolean sending = new AtomicBoolean();
+
+        private Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+    }
+}
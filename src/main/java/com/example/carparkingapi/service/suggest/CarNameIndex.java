@@ -0,0 +1,134 @@
+package com.example.carparkingapi.service.suggest;
+
+import com.example.carparkingapi.dto.CarNameSuggestionDTO;
+import com.example.carparkingapi.event.CarChangedEvent;
+import com.example.carparkingapi.model.CarName;
+import com.example.carparkingapi.repository.CarRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * In-memory prefix index of car names used for autocomplete. Every car is indexed under its brand, its model and
+ * "brand model", lower-cased in sorted maps, once for all cars and once per customer, so a suggestion is a walk
+ * from the prefix to the first name not starting with it. The index is built from the database on first use and
+ * then kept up to date from {@link CarChangedEvent}.
+ */
+@Component
+@RequiredArgsConstructor
+public class CarNameIndex {
+
+    private final CarRepository carRepository;
+
+    private final Names allNames = new Names();
+
+    private final Map<Long, Names> namesByCustomer = new ConcurrentHashMap<>();
+
+    private final Map<Long, CarName> indexedCars = new ConcurrentHashMap<>();
+
+    private volatile boolean loaded;
+
+    /**
+     * Returns up to {@code limit} names starting with the prefix, ignoring case, in alphabetical order. Only cars of
+     * the customer are taken into account unless {@code customerId} is {@code null}.
+     */
+    public List<CarNameSuggestionDTO> suggest(String prefix, Long customerId, int limit) {
+        ensureLoaded();
+        Names names = Objects.isNull(customerId) ? allNames : namesByCustomer.get(customerId);
+        return Objects.isNull(names) ? List.of() : names.startingWith(key(prefix), limit);
+    }
+
+    @EventListener
+    public synchronized void onCarChanged(CarChangedEvent event) {
+        if (!loaded) {
+            return;
+        }
+        Optional.ofNullable(indexedCars.remove(event.getCarId())).ifPresent(this::unindex);
+        carRepository.findCarNameById(event.getCarId()).ifPresent(this::index);
+    }
+
+    private void ensureLoaded() {
+        if (!loaded) {
+            synchronized (this) {
+                if (!loaded) {
+                    carRepository.findAllCarNames().forEach(this::index);
+                    loaded = true;
+                }
+            }
+        }
+    }
+
+    private void index(CarName carName) {
+        indexedCars.put(carName.getId(), carName);
+        Names customerNames = Objects.isNull(carName.getCustomerId())
+                ? null : namesByCustomer.computeIfAbsent(carName.getCustomerId(), id -> new Names());
+        for (String name : namesOf(carName)) {
+            allNames.add(name, carName.getId());
+            if (Objects.nonNull(customerNames)) {
+                customerNames.add(name, carName.getId());
+            }
+        }
+    }
+
+    private void unindex(CarName carName) {
+        Names customerNames = Objects.isNull(carName.getCustomerId())
+                ? null : namesByCustomer.get(carName.getCustomerId());
+        for (String name : namesOf(carName)) {
+            allNames.remove(name, carName.getId());
+            if (Objects.nonNull(customerNames)) {
+                customerNames.remove(name, carName.getId());
+            }
+        }
+    }
+
+    private static Set<String> namesOf(CarName carName) {
+        return new HashSet<>(List.of(carName.getBrand(), carName.getModel(),
+                carName.getBrand() + " " + carName.getModel()));
+    }
+
+    private static String key(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+
+    private static final class Names {
+
+        private final NavigableMap<String, Name> byKey = new ConcurrentSkipListMap<>();
+
+        private void add(String name, Long carId) {
+            byKey.computeIfAbsent(key(name), key -> new Name(name)).carIds.add(carId);
+        }
+
+        private void remove(String name, Long carId) {
+            byKey.computeIfPresent(key(name), (key, entry) -> {
+                entry.carIds.remove(carId);
+                return entry.carIds.isEmpty() ? null : entry;
+            });
+        }
+
+        private List<CarNameSuggestionDTO> startingWith(String prefix, int limit) {
+            List<CarNameSuggestionDTO> suggestions = new ArrayList<>();
+            for (Map.Entry<String, Name> entry : byKey.tailMap(prefix, true).entrySet()) {
+                if (suggestions.size() == limit || !entry.getKey().startsWith(prefix)) {
+                    break;
+                }
+                suggestions.add(new CarNameSuggestionDTO(entry.getValue().name, entry.getValue().carIds.size()));
+            }
+            return suggestions;
+        }
+    }
+
+    private static final class Name {
+
+        private final String name;
+
+        private final Set<Long> carIds = ConcurrentHashMap.newKeySet();
+
+        private Name(String name) {
+            this.name = name;
+        }
+    }
+}
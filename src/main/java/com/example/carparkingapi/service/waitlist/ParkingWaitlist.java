@@ -0,0 +1,131 @@
+package com.example.carparkingapi.service.waitlist;
+
+import com.example.carparkingapi.exception.parking.CarParkingStatusException;
+import com.example.carparkingapi.exception.parking.WaitlistFullException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import static com.example.carparkingapi.util.Constants.*;
+
+/**
+ * Bounded FIFO queues of cars waiting for a place, one per parking. A car waits on at most one parking at a time,
+ * and for at most {@code parking.waitlist.entry-ttl-ms}; expired entries are skipped and then removed.
+ */
+@Component
+public class ParkingWaitlist {
+
+    private final Map<Long, BlockingQueue<WaitlistEntry>> queues = new ConcurrentHashMap<>();
+
+    private final Map<Long, WaitlistEntry> entriesByCarId = new ConcurrentHashMap<>();
+
+    private final int capacity;
+
+    private final Duration entryTtl;
+
+    public ParkingWaitlist(@Value("${parking.waitlist.capacity:100}") int capacity,
+                           @Value("${parking.waitlist.entry-ttl-ms:1800000}") long entryTtlMillis) {
+        this.capacity = capacity;
+        this.entryTtl = Duration.ofMillis(entryTtlMillis);
+    }
+
+    public WaitlistEntry join(Long carId, Long parkingId, boolean electric) {
+        WaitlistEntry entry = new WaitlistEntry(carId, parkingId, electric, Instant.now().plus(entryTtl));
+        if (Objects.nonNull(entriesByCarId.putIfAbsent(carId, entry))) {
+            throw new CarParkingStatusException("Car is already on a waitlist");
+        }
+        if (!queue(parkingId).offer(entry)) {
+            entriesByCarId.remove(carId);
+            throw new WaitlistFullException(WAITLIST_FULL_ERROR_MESSAGE);
+        }
+        return entry;
+    }
+
+    public WaitlistEntry findEntry(Long carId) {
+        return Optional.ofNullable(entriesByCarId.get(carId))
+                .orElseThrow(() -> new CarParkingStatusException(CAR_NOT_ON_WAITLIST_ERROR_MESSAGE));
+    }
+
+    public void remove(WaitlistEntry entry) {
+        queue(entry.getParkingId()).remove(entry);
+        entriesByCarId.remove(entry.getCarId(), entry);
+    }
+
+    public boolean hasWaitingCars(Long parkingId) {
+        BlockingQueue<WaitlistEntry> queue = queues.get(parkingId);
+        return Objects.nonNull(queue) && !queue.isEmpty();
+    }
+
+    /**
+     * Returns whether a car arriving from outside the queue has to let a waiting car go first, that is whether
+     * an unexpired entry wants the same kind of place, see {@link WaitlistEntry#competesWith(boolean)}.
+     */
+    public boolean hasCompetingCars(Long parkingId, boolean electricCar) {
+        BlockingQueue<WaitlistEntry> queue = queues.get(parkingId);
+        if (Objects.isNull(queue)) {
+            return false;
+        }
+        Instant now = Instant.now();
+        return queue.stream().anyMatch(entry -> !entry.isExpired(now) && entry.competesWith(electricCar));
+    }
+
+    /**
+     * Returns the 1-based position of the entry in its queue, or 0 once it has left the queue.
+     */
+    public int position(WaitlistEntry entry) {
+        int position = 1;
+        for (WaitlistEntry waiting : queue(entry.getParkingId())) {
+            if (waiting == entry) {
+                return position;
+            }
+            position++;
+        }
+        return 0;
+    }
+
+    /**
+     * Returns a snapshot of the queue of the parking, head first. The queue object itself is the lock that
+     * serializes hand-overs of freed places.
+     */
+    public List<WaitlistEntry> snapshot(Long parkingId) {
+        return List.copyOf(queue(parkingId));
+    }
+
+    public Object lock(Long parkingId) {
+        return queue(parkingId);
+    }
+
+    /**
+     * Removes expired entries, their pending requests fail with {@link CarParkingStatusException}. Runs under the
+     * hand-over lock of each parking, so an entry is never both parked and expired.
+     */
+    @Scheduled(fixedDelayString = "${parking.waitlist.expiry-interval-ms:60000}")
+    public void removeExpired() {
+        Instant now = Instant.now();
+        queues.values().forEach(queue -> {
+            synchronized (queue) {
+                for (WaitlistEntry entry : List.copyOf(queue)) {
+                    if (entry.isExpired(now)) {
+                        remove(entry);
+                        entry.getSpot().completeExceptionally(
+                                new CarParkingStatusException(WAITLIST_ENTRY_EXPIRED_ERROR_MESSAGE));
+                    }
+                }
+            }
+        });
+    }
+
+    private BlockingQueue<WaitlistEntry> queue(Long parkingId) {
+        return queues.computeIfAbsent(parkingId, id -> new LinkedBlockingQueue<>(capacity));
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.carparkingapi.service.waitlist;
+
+import com.example.carparkingapi.dto.ParkingSpotDTO;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A car waiting for a place on a full parking. {@link #getSpot()} completes with the assigned spot once the car
+ * has been parked, or exceptionally if it could not be parked at all or the entry expired.
+ */
+@Getter
+@RequiredArgsConstructor
+public class WaitlistEntry {
+
+    private final Long carId;
+
+    private final Long parkingId;
+
+    private final boolean electric;
+
+    private final Instant expiresAt;
+
+    private final CompletableFuture<ParkingSpotDTO> spot = new CompletableFuture<>();
+
+    public boolean isExpired(Instant now) {
+        return now.isAfter(expiresAt);
+    }
+
+    /**
+     * Returns whether the waiting car wants the same kind of place as a newly arriving car. A waiting electric car
+     * only waits for an electric place, so it does not compete with regular cars.
+     */
+    public boolean competesWith(boolean electricCar) {
+        return electricCar || !electric;
+    }
+}
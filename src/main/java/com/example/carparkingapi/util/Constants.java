@@ -98,6 +98,14 @@ public class Constants {
     private static final String PARKING_FIELDS = "name, address, capacity, parkingType, parkingSpotWidth, " +
             "parkingSpotLength, placesForElectricCars";
 
+    ////// Limits //////
+
+    public static final int MAX_TOP_CARS = 100;
+
+    public static final int MAX_SLICE_SIZE = 100;
+
+    public static final int MAX_SUGGESTIONS = 50;
+
     ////// Error messages //////
 
     public static final String USER_NOT_FOUND_ERROR_MESSAGE = "User not found";
@@ -106,6 +114,8 @@ public class Constants {
 
     public static final String CAR_NOT_FOUND_ERROR_MESSAGE = "Parking not found";
 
+    public static final String PARKING_SPOT_NOT_FOUND_ERROR_MESSAGE = "Parking spot not found";
+
     private static final String INVALID_FIELD_NAME_ERROR_MESSAGE = "Invalid field name, choose from ";
 
     public static final String CUSTOMER_FIELD_ERROR_MESSAGE = INVALID_FIELD_NAME_ERROR_MESSAGE + CUSTOMER_FIELDS;
@@ -126,6 +136,26 @@ public class Constants {
 
     public static final String NO_MORE_ELECTRIC_PLACES_ERROR_MESSAGE = "This parking has no more electric places";
 
+    public static final String CARS_WAITING_ERROR_MESSAGE = "Parking is full, cars on its waitlist are served first";
+
+    public static final String WAITLIST_FULL_ERROR_MESSAGE = "Waitlist of this parking is full";
+
+    public static final String CAR_NOT_ON_WAITLIST_ERROR_MESSAGE = "Car is not on a waitlist";
+
+    public static final String WAITLIST_ENTRY_EXPIRED_ERROR_MESSAGE = "Car waited too long and left the waitlist";
+
+    public static final String PARKING_FULLY_RESERVED_ERROR_MESSAGE = "Parking is fully reserved in this time window";
+
+    public static final String INVALID_RESERVATION_ERROR_MESSAGE =
+            "Reservation must end after it starts and within the reservation horizon";
+
+    public static final String RESERVATION_NOT_FOUND_ERROR_MESSAGE = "Reservation not found";
+
+    public static final String OVERLAPPING_RESERVATION_ERROR_MESSAGE =
+            "Car already has a reservation overlapping this time window";
+
+    public static final String INVALID_CURSOR_ERROR_MESSAGE = "Invalid cursor, use nextCursor of the previous slice";
+
     public static final String PARKING_NOT_ALLOW_LPG_CAR_ERROR_MESSAGE = "This parking does not allow LPG cars";
 
 
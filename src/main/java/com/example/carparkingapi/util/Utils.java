@@ -1,8 +1,6 @@
 package com.example.carparkingapi.util;
 
-import com.example.carparkingapi.exception.not.found.UserNotFoundException;
 import com.example.carparkingapi.model.Fuel;
-import com.example.carparkingapi.repository.CustomerRepository;
 import com.example.carparkingapi.service.CustomUserDetailsService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
@@ -13,13 +11,8 @@ public class Utils {
 
     private final CustomUserDetailsService customUserDetailsService;
 
-    private final CustomerRepository customerRepository;
-
     public String noCarsFoundMessage(String value) {
-        String str = "No cars found for customer " + customerRepository
-                .findCustomerByUsername(customUserDetailsService.getCurrentUsername())
-                .orElseThrow(UserNotFoundException::new)
-                .getUsername();
+        String str = "No cars found for customer " + customUserDetailsService.getCurrentUsername();
         if (value == null) {
             return str;
         } else if (Fuel.DIESEL.toString().equals(value) || Fuel.PETROL.toString().equals(value)
@@ -0,0 +1,210 @@
+package com.example.carparkingapi.config.security.jwt;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.jsonwebtoken.JwtException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static com.example.carparkingapi.config.security.jwt.JwtService.TOKEN_VALIDITY;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DataJpaTest
+@ActiveProfiles("application-test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class JwtKeyRingTest {
+
+    private static final Duration ROTATION_INTERVAL = Duration.ofHours(6);
+
+    private static final Duration MISS_RELOAD_INTERVAL = Duration.ofSeconds(5);
+
+    private static final String SECRET = "secret";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final MutableClock clock = new MutableClock();
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("delete from jwt_key");
+    }
+
+    @Test
+    void shouldKeepSigningKeyAcrossRestart() {
+        JwtKeyRing beforeRestart = node();
+        String token = new JwtService(beforeRestart).generateToken(user());
+
+        JwtKeyRing afterRestart = node();
+
+        assertThat(afterRestart.getSigningKey().keyId()).isEqualTo(beforeRestart.getSigningKey().keyId());
+        assertThat(new JwtService(afterRestart).extractAllClaims(token).getSubject()).isEqualTo("jan");
+    }
+
+    @Test
+    void shouldVerifyTokenSignedWithKeyRotatedInOnAnotherNode() throws IOException {
+        JwtKeyRing verifyingNode = node();
+        JwtKeyRing signingNode = node();
+        clock.advance(ROTATION_INTERVAL);
+        signingNode.refresh();
+
+        String token = new JwtService(signingNode).generateToken(user());
+
+        assertThat(keyId(token)).isNotEqualTo(verifyingNode.getSigningKey().keyId());
+        assertThat(new JwtService(verifyingNode).extractAllClaims(token).getSubject()).isEqualTo("jan");
+    }
+
+    @Test
+    void shouldVerifyTokenOfRetiredKeyUntilItExpiresThenDropKey() throws IOException {
+        JwtKeyRing jwtKeyRing = node();
+        JwtService jwtService = new JwtService(jwtKeyRing);
+        String token = jwtService.generateToken(user());
+        String retiredKeyId = keyId(token);
+
+        clock.advance(ROTATION_INTERVAL);
+        jwtKeyRing.refresh();
+
+        assertThat(jwtKeyRing.getSigningKey().keyId()).isNotEqualTo(retiredKeyId);
+        assertThat(jwtService.extractAllClaims(token).getSubject()).isEqualTo("jan");
+        assertThat(jwtKeyRing.getVerificationKeys()).containsKey(retiredKeyId);
+
+        clock.advance(TOKEN_VALIDITY.plusMinutes(1));
+        jwtKeyRing.refresh();
+
+        assertThat(jwtKeyRing.getVerificationKeys()).doesNotContainKey(retiredKeyId);
+        assertThatThrownBy(() -> jwtService.extractAllClaims(token)).isInstanceOf(JwtException.class);
+        assertThatThrownBy(() -> new JwtService(node()).extractAllClaims(token)).isInstanceOf(JwtException.class);
+        assertThat(jdbcTemplate.queryForObject("select count(*) from jwt_key where id = ?", Integer.class,
+                retiredKeyId)).isZero();
+    }
+
+    @Test
+    void shouldSettleOnOneSigningKeyWhenNodesRotateTogether() {
+        JwtKeyRing first = node();
+        Map<String, Object> firstKey = jdbcTemplate.queryForMap("select * from jwt_key");
+        // the other node stores its key at the same moment, before it sees the first one
+        jdbcTemplate.update("delete from jwt_key");
+        JwtKeyRing second = node();
+        jdbcTemplate.update("insert into jwt_key (id, public_key, private_key, created_at) values (?, ?, ?, ?)",
+                firstKey.get("id"), firstKey.get("public_key"), firstKey.get("private_key"),
+                firstKey.get("created_at"));
+        String winner = Stream.of(first.getSigningKey().keyId(), second.getSigningKey().keyId())
+                .max(Comparator.naturalOrder()).orElseThrow();
+
+        first.refresh();
+        second.refresh();
+
+        assertThat(first.getSigningKey().keyId()).isEqualTo(winner);
+        assertThat(second.getSigningKey().keyId()).isEqualTo(winner);
+        assertThat(jdbcTemplate.queryForObject("select count(*) from jwt_key where retired_at is null",
+                Integer.class)).isOne();
+    }
+
+    @Test
+    void shouldStorePrivateKeyEncrypted() {
+        JwtKeyRing jwtKeyRing = node();
+        JwtKeyRing.SigningKey signingKey = jwtKeyRing.getSigningKey();
+
+        String storedPrivateKey = jdbcTemplate.queryForObject("select private_key from jwt_key where id = ?",
+                String.class, signingKey.keyId());
+
+        assertThat(storedPrivateKey)
+                .isNotEqualTo(Base64.getEncoder().encodeToString(signingKey.privateKey().getEncoded()));
+        assertThat(node().getSigningKey().privateKey()).isEqualTo(signingKey.privateKey());
+        assertThatThrownBy(() -> new JwtKeyRing(jdbcTemplate, true, "other secret", ROTATION_INTERVAL.toMillis(),
+                MISS_RELOAD_INTERVAL.toMillis(), clock)).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void shouldVerifyWithoutPrivateKeysOnVerifyingNode() {
+        JwtKeyRing verifyingNode = verifyingNode();
+        assertThat(verifyingNode.getVerificationKeys()).isEmpty();
+
+        String token = new JwtService(node()).generateToken(user());
+
+        assertThat(new JwtService(verifyingNode).extractAllClaims(token).getSubject()).isEqualTo("jan");
+        assertThatThrownBy(verifyingNode::getSigningKey).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> new JwtKeyRing(jdbcTemplate, true, "", ROTATION_INTERVAL.toMillis(),
+                MISS_RELOAD_INTERVAL.toMillis(), clock)).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void shouldReloadKeysForUnknownKeyIdAtMostOncePerInterval() {
+        // rotates on every refresh
+        JwtKeyRing signingNode = new JwtKeyRing(jdbcTemplate, true, SECRET, 0, MISS_RELOAD_INTERVAL.toMillis(), clock);
+        JwtKeyRing verifyingNode = verifyingNode();
+        assertThatThrownBy(() -> verifyingNode.getVerificationKey(UUID.randomUUID().toString()))
+                .isInstanceOf(JwtException.class);
+
+        signingNode.refresh();
+        String rotatedKeyId = signingNode.getSigningKey().keyId();
+
+        assertThatThrownBy(() -> verifyingNode.getVerificationKey(rotatedKeyId)).isInstanceOf(JwtException.class);
+
+        clock.advance(MISS_RELOAD_INTERVAL);
+
+        assertThat(verifyingNode.getVerificationKey(rotatedKeyId)).isEqualTo(signingNode.getVerificationKey());
+    }
+
+    private JwtKeyRing node() {
+        return new JwtKeyRing(jdbcTemplate, true, SECRET, ROTATION_INTERVAL.toMillis(),
+                MISS_RELOAD_INTERVAL.toMillis(), clock);
+    }
+
+    private JwtKeyRing verifyingNode() {
+        return new JwtKeyRing(jdbcTemplate, false, null, ROTATION_INTERVAL.toMillis(),
+                MISS_RELOAD_INTERVAL.toMillis(), clock);
+    }
+
+    private static String keyId(String token) throws IOException {
+        byte[] header = Base64.getUrlDecoder().decode(token.substring(0, token.indexOf('.')));
+        return new ObjectMapper().readTree(header).get("kid").asText();
+    }
+
+    private static User user() {
+        return (User) User.withUsername("jan").password("password").roles("USER").build();
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private Instant instant = Instant.now();
+
+        private void advance(Duration duration) {
+            instant = instant.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
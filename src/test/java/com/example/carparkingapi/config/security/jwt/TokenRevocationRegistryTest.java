@@ -0,0 +1,94 @@
+package com.example.carparkingapi.config.security.jwt;
+
+import com.example.carparkingapi.event.AccountChangedEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@ActiveProfiles("application-test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class TokenRevocationRegistryTest {
+
+    private static final int BLOOM_BITS = 1024;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private String username;
+
+    @BeforeEach
+    void setUp() {
+        username = UUID.randomUUID() + "@email.com";
+        jdbcTemplate.update("insert into customer (first_name, last_name, username, password, role) " +
+                "values ('Jan', 'Kowalski', ?, 'password', 'USER')", username);
+    }
+
+    @Test
+    void shouldKeepRevocationAcrossRestart() {
+        Date issuedBeforeLock = new Date();
+        node().onAccountChanged(new AccountChangedEvent(username, true));
+
+        TokenRevocationRegistry afterRestart = node();
+
+        assertThat(afterRestart.isRevoked(username, issuedBeforeLock)).isTrue();
+        assertThat(afterRestart.isRevoked(username, Date.from(Instant.now().plusSeconds(2)))).isFalse();
+    }
+
+    @Test
+    void shouldRejectCachedTokenOnceRevocationOfAnotherNodeIsRefreshed() {
+        TokenRevocationRegistry lockingNode = node();
+        TokenRevocationRegistry otherNode = node();
+        VerifiedTokenCache otherNodeCache = new VerifiedTokenCache(otherNode, 10, 300);
+        otherNodeCache.put("token", User.withUsername(username).password("password").roles("USER").build(),
+                new Date(), new Date(System.currentTimeMillis() + Duration.ofHours(1).toMillis()));
+
+        lockingNode.onAccountChanged(new AccountChangedEvent(username, true));
+        assertThat(otherNodeCache.get("token")).isPresent();
+
+        otherNode.refresh();
+
+        assertThat(otherNodeCache.get("token")).isEmpty();
+    }
+
+    @Test
+    void shouldNotRevokeOnAccountChangeGivingAccessBack() {
+        TokenRevocationRegistry tokenRevocationRegistry = node();
+
+        tokenRevocationRegistry.onAccountChanged(new AccountChangedEvent(username, false));
+
+        assertThat(tokenRevocationRegistry.isRevoked(username, new Date())).isFalse();
+        assertThat(jdbcTemplate.queryForObject("select revoked_before from customer where username = ?", Long.class,
+                username)).isNull();
+    }
+
+    @Test
+    void shouldRevokeAccountsMadeInactiveWithoutEpoch() {
+        Date issuedBeforeStart = new Date();
+        jdbcTemplate.update("update customer set account_non_locked = ? where username = ?", false, username);
+        TokenRevocationRegistry tokenRevocationRegistry = node();
+        assertThat(tokenRevocationRegistry.isRevoked(username, issuedBeforeStart)).isFalse();
+
+        tokenRevocationRegistry.revokeInactiveAccounts();
+
+        assertThat(tokenRevocationRegistry.isRevoked(username, issuedBeforeStart)).isTrue();
+        assertThat(node().isRevoked(username, issuedBeforeStart)).isTrue();
+    }
+
+    private TokenRevocationRegistry node() {
+        return new TokenRevocationRegistry(jdbcTemplate, BLOOM_BITS);
+    }
+}
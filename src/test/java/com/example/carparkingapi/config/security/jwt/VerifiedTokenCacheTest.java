@@ -0,0 +1,105 @@
+package com.example.carparkingapi.config.security.jwt;
+
+import com.example.carparkingapi.event.AccountChangedEvent;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class VerifiedTokenCacheTest {
+
+    private static final long TTL_SECONDS = 300;
+
+    private final TokenRevocationRegistry tokenRevocationRegistry = mock(TokenRevocationRegistry.class);
+
+    private final AtomicLong nanos = new AtomicLong();
+
+    private final VerifiedTokenCache verifiedTokenCache = new VerifiedTokenCache(tokenRevocationRegistry, 3,
+            TTL_SECONDS, nanos::get);
+
+    @Test
+    void shouldReturnCachedUserDetails() {
+        UserDetails jan = user("jan");
+        verifiedTokenCache.put("token", jan, new Date(), expiresIn(Duration.ofHours(1)));
+
+        assertThat(verifiedTokenCache.get("token")).contains(jan);
+        assertThat(verifiedTokenCache.get("other token")).isEmpty();
+    }
+
+    @Test
+    void shouldExpireAfterTtl() {
+        verifiedTokenCache.put("token", user("jan"), new Date(), expiresIn(Duration.ofHours(1)));
+
+        advance(Duration.ofSeconds(TTL_SECONDS - 1));
+        assertThat(verifiedTokenCache.get("token")).isPresent();
+
+        advance(Duration.ofSeconds(2));
+        assertThat(verifiedTokenCache.get("token")).isEmpty();
+    }
+
+    @Test
+    void shouldExpireWithTokenBeforeTtl() {
+        verifiedTokenCache.put("token", user("jan"), new Date(), expiresIn(Duration.ofSeconds(10)));
+
+        advance(Duration.ofSeconds(11));
+
+        assertThat(verifiedTokenCache.get("token")).isEmpty();
+    }
+
+    @Test
+    void shouldEvictAboveMaxSizeKeepingTokenInUse() {
+        List<String> others = IntStream.range(0, 10).mapToObj(i -> "token " + i).toList();
+        verifiedTokenCache.put("used", user("jan"), new Date(), expiresIn(Duration.ofHours(1)));
+        verifiedTokenCache.put(others.get(0), user("michal"), new Date(), expiresIn(Duration.ofHours(1)));
+        IntStream.range(0, 5).forEach(i -> verifiedTokenCache.get("used"));
+
+        others.subList(1, others.size()).forEach(token -> verifiedTokenCache.put(token, user("michal"), new Date(),
+                expiresIn(Duration.ofHours(1))));
+
+        assertThat(verifiedTokenCache.get("used")).isPresent();
+        assertThat(others.stream().filter(token -> verifiedTokenCache.get(token).isPresent()).count())
+                .isLessThanOrEqualTo(2);
+    }
+
+    @Test
+    void shouldEvictTokensOfChangedAccount() {
+        verifiedTokenCache.put("jan's token", user("jan"), new Date(), expiresIn(Duration.ofHours(1)));
+        verifiedTokenCache.put("michal's token", user("michal"), new Date(), expiresIn(Duration.ofHours(1)));
+
+        verifiedTokenCache.onAccountChanged(new AccountChangedEvent("jan", true));
+
+        assertThat(verifiedTokenCache.get("jan's token")).isEmpty();
+        assertThat(verifiedTokenCache.get("michal's token")).isPresent();
+    }
+
+    @Test
+    void shouldNotReturnRevokedToken() {
+        verifiedTokenCache.put("token", user("jan"), new Date(), expiresIn(Duration.ofHours(1)));
+        when(tokenRevocationRegistry.isRevoked(eq("jan"), any())).thenReturn(true);
+
+        assertThat(verifiedTokenCache.get("token")).isEmpty();
+    }
+
+    private void advance(Duration duration) {
+        nanos.addAndGet(duration.toNanos());
+    }
+
+    private static Date expiresIn(Duration duration) {
+        return new Date(System.currentTimeMillis() + duration.toMillis());
+    }
+
+    private static UserDetails user(String username) {
+        return User.withUsername(username).password("password").roles("USER").build();
+    }
+}
@@ -2,11 +2,14 @@ package com.example.carparkingapi.controller;
 
 import com.example.carparkingapi.action.Action;
 import com.example.carparkingapi.action.edit.action.EditAction;
+import com.example.carparkingapi.command.CarSearchCommand;
 import com.example.carparkingapi.command.EditCommand;
+import com.example.carparkingapi.command.ParkingSpotCommand;
 import com.example.carparkingapi.data.loader.TestDataLoader;
 import com.example.carparkingapi.domain.Car;
 import com.example.carparkingapi.domain.Customer;
 import com.example.carparkingapi.domain.Parking;
+import com.example.carparkingapi.domain.ParkingSpot;
 import com.example.carparkingapi.exception.not.found.CarNotFoundException;
 import com.example.carparkingapi.exception.not.found.CustomerNotFoundException;
 import com.example.carparkingapi.exception.not.found.ParkingNotFoundException;
@@ -17,6 +20,8 @@ import com.example.carparkingapi.repository.ActionRepository;
 import com.example.carparkingapi.repository.CarRepository;
 import com.example.carparkingapi.repository.CustomerRepository;
 import com.example.carparkingapi.repository.ParkingRepository;
+import com.example.carparkingapi.repository.ParkingSpotRepository;
+import com.example.carparkingapi.service.stream.OccupancyBroadcaster;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -29,11 +34,13 @@ import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.web.context.WebApplicationContext;
 
 import javax.transaction.Transactional;
 import java.time.LocalDate;
+import java.util.Set;
 
 import static com.example.carparkingapi.util.Constants.*;
 import static org.assertj.core.api.Assertions.assertThat;
@@ -41,6 +48,7 @@ import static org.junit.jupiter.api.Assertions.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @SpringBootTest
@@ -65,6 +73,9 @@ class AdminControllerTest {
     @Autowired
     private ParkingRepository parkingRepository;
 
+    @Autowired
+    private ParkingSpotRepository parkingSpotRepository;
+
     @Autowired
     private ActionRepository actionRepository;
 
@@ -74,6 +85,9 @@ class AdminControllerTest {
     @Autowired
     private TestDataLoader testDataLoader;
 
+    @Autowired
+    private OccupancyBroadcaster occupancyBroadcaster;
+
     @BeforeEach
     void setUp() {
         mockMvc = MockMvcBuilders.webAppContextSetup(webApplicationContext).build();
@@ -192,6 +206,37 @@ class AdminControllerTest {
                 .andExpect(jsonPath("$.errors").value(PARKING_FIELD_ERROR_MESSAGE));
     }
 
+    @Test
+    @WithMockUser(username = "admin", password = "adminPassword", roles = "ADMIN")
+    void shouldResizeOnlySpotsWithDefaultDimensions() throws Exception {
+        mockMvc.perform(put("/api/v1/admin/parking/update/1")
+                        .content(objectMapper.writeValueAsString(new EditCommand(PARKING_SPOT_WIDTH, "25000")))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(put("/api/v1/admin/parking/1/spots/5")
+                        .content(objectMapper.writeValueAsString(new ParkingSpotCommand(40000, 30000)))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length").value(40000))
+                .andExpect(jsonPath("$.width").value(30000));
+
+        mockMvc.perform(put("/api/v1/admin/parking/update/1")
+                        .content(objectMapper.writeValueAsString(new EditCommand(PARKING_SPOT_WIDTH, "22000")))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+
+        for (ParkingSpot spot : parkingSpotRepository.findAllByParkingIdOrderBySpotNumber(1L)) {
+            if (spot.getSpotNumber() == 5) {
+                assertEquals(40000, spot.getLength());
+                assertEquals(30000, spot.getWidth());
+            } else {
+                assertEquals(30756, spot.getLength());
+                assertEquals(22000, spot.getWidth());
+            }
+        }
+    }
+
     @Test
     @WithMockUser(username = "admin", password = "adminPassword", roles = "ADMIN")
     void shouldDisableCustomerAccount() throws Exception {
@@ -518,6 +563,28 @@ class AdminControllerTest {
                 .andExpect(jsonPath("$").value(3));
     }
 
+    @Test
+    @WithMockUser(username = "admin", password = "adminPassword", roles = "ADMIN")
+    void shouldCountAllCarsFromParkings() throws Exception {
+
+        mockMvc.perform(post("/api/v1/admin/cars/1/park/1")
+                .contentType(MediaType.APPLICATION_JSON));
+
+        mockMvc.perform(post("/api/v1/admin/cars/2/park/1")
+                .contentType(MediaType.APPLICATION_JSON));
+
+        mockMvc.perform(post("/api/v1/admin/cars/4/park/2")
+                .contentType(MediaType.APPLICATION_JSON));
+
+        mockMvc.perform(get("/api/v1/admin/parking/cars/count")
+                        .param("parkingIds", "1", "2", "3")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.1").value(2))
+                .andExpect(jsonPath("$.2").value(1))
+                .andExpect(jsonPath("$.3").value(0));
+    }
+
     @Test
     @WithMockUser(username = "admin", password = "adminPassword", roles = "ADMIN")
     void shouldGetMostExpensiveCarFromParking() throws Exception {
@@ -538,6 +605,28 @@ class AdminControllerTest {
                 .andExpect(jsonPath("$.model").value("Model S"));
     }
 
+    @Test
+    @WithMockUser(username = "admin", password = "adminPassword", roles = "ADMIN")
+    void shouldGetMostExpensiveCarsFromParking() throws Exception {
+
+        mockMvc.perform(post("/api/v1/admin/cars/1/park/1")
+                .contentType(MediaType.APPLICATION_JSON));
+
+        mockMvc.perform(post("/api/v1/admin/cars/2/park/1")
+                .contentType(MediaType.APPLICATION_JSON));
+
+        mockMvc.perform(post("/api/v1/admin/cars/4/park/2")
+                .contentType(MediaType.APPLICATION_JSON));
+
+        mockMvc.perform(get("/api/v1/admin/parking/1/cars/top")
+                        .param("n", "5")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].model").value("M3"))
+                .andExpect(jsonPath("$[1].model").value("c-class"));
+    }
+
     @Test
     @WithMockUser(username = "admin", password = "adminPassword", roles = "ADMIN")
     void shouldGetMostExpensiveCar() throws Exception {
@@ -547,4 +636,85 @@ class AdminControllerTest {
                 .andExpect(jsonPath("$.brand").value("BMW"))
                 .andExpect(jsonPath("$.model").value("M5"));
     }
+
+    @Test
+    @WithMockUser(username = "admin", password = "adminPassword", roles = "ADMIN")
+    void shouldGetMostExpensiveCars() throws Exception {
+        mockMvc.perform(get("/api/v1/admin/cars/top")
+                        .param("k", "2")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].model").value("M5"))
+                .andExpect(jsonPath("$[1].model").value("Model S"));
+    }
+
+    @Test
+    @WithMockUser(username = "admin", password = "adminPassword", roles = "ADMIN")
+    void shouldSearchCarsByCursor() throws Exception {
+        CarSearchCommand carSearchCommand = new CarSearchCommand();
+        carSearchCommand.setBrandPrefix("BM");
+        carSearchCommand.setFuels(Set.of(Fuel.PETROL));
+        carSearchCommand.setMinPrice(300000.0);
+
+        MvcResult firstSlice = mockMvc.perform(post("/api/v1/admin/cars/search")
+                        .param("size", "1")
+                        .content(objectMapper.writeValueAsString(carSearchCommand))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(1))
+                .andExpect(jsonPath("$.content[0].model").value("M3"))
+                .andExpect(jsonPath("$.hasNext").value(true))
+                .andReturn();
+
+        mockMvc.perform(post("/api/v1/admin/cars/search")
+                        .param("size", "1")
+                        .param("cursor", objectMapper.readTree(firstSlice.getResponse().getContentAsString())
+                                .get("nextCursor").asText())
+                        .content(objectMapper.writeValueAsString(carSearchCommand))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(1))
+                .andExpect(jsonPath("$.content[0].model").value("M5"))
+                .andExpect(jsonPath("$.hasNext").value(false));
+
+        mockMvc.perform(post("/api/v1/admin/cars/1/park/1")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+
+        CarSearchCommand parkedCars = new CarSearchCommand();
+        parkedCars.setParked(true);
+
+        mockMvc.perform(post("/api/v1/admin/cars/search")
+                        .content(objectMapper.writeValueAsString(parkedCars))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(1))
+                .andExpect(jsonPath("$.content[0].model").value("c-class"));
+    }
+
+    @Test
+    @WithMockUser(username = "admin", password = "adminPassword", roles = "ADMIN")
+    void shouldStreamParkingOccupancy() throws Exception {
+        MvcResult streamResult = mockMvc.perform(get("/api/v1/admin/parking/occupancy/stream"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(post("/api/v1/admin/cars/1/park/1")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+        mockMvc.perform(post("/api/v1/admin/cars/2/park/1")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+        occupancyBroadcaster.broadcast();
+
+        // a scheduled broadcast may already have sent the occupancy after the first car
+        String expected = "[{\"parkingId\":1,\"takenPlaces\":2,\"takenElectricPlaces\":0}]";
+        for (int i = 0; i < 50 && !streamResult.getResponse().getContentAsString().contains(expected); i++) {
+            Thread.sleep(100);
+        }
+        assertThat(streamResult.getResponse().getContentAsString())
+                .contains("event:occupancy")
+                .contains(expected);
+    }
 }
@@ -24,6 +24,7 @@ import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.web.context.WebApplicationContext;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
@@ -142,5 +143,21 @@ class AuthenticationControllerTest {
         assertEquals(responseClaims.getSubject(), generatedClaims.getSubject());
         assertEquals(responseClaims.get("role"), generatedClaims.get("role"));
     }
-}
 
+    @Test
+    void shouldReturnKeyOfTheTokenSignature() throws Exception {
+        String token = jwtService.generateToken(testDataLoader.createCustomer());
+        String keyId = Jwts.parserBuilder()
+                .setSigningKey(jwtService.getSignInKey())
+                .build()
+                .parseClaimsJws(token)
+                .getHeader()
+                .getKeyId();
+
+        mockMvc.perform(get("/api/v1/auth/keys"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].keyId").value(keyId))
+                .andExpect(jsonPath("$[0].algorithm").value("ES256"))
+                .andExpect(jsonPath("$[0].publicKey").isNotEmpty());
+    }
+}
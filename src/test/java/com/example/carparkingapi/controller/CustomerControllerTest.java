@@ -1,6 +1,7 @@
 package com.example.carparkingapi.controller;
 
 import com.example.carparkingapi.command.CarCommand;
+import com.example.carparkingapi.command.ReservationCommand;
 import com.example.carparkingapi.domain.Car;
 import com.example.carparkingapi.domain.Parking;
 import com.example.carparkingapi.exception.not.found.CarNotFoundException;
@@ -8,6 +9,7 @@ import com.example.carparkingapi.exception.not.found.ParkingNotFoundException;
 import com.example.carparkingapi.model.Fuel;
 import com.example.carparkingapi.repository.CarRepository;
 import com.example.carparkingapi.repository.ParkingRepository;
+import com.example.carparkingapi.repository.ReservationRepository;
 import com.example.carparkingapi.data.loader.TestDataLoader;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
@@ -17,23 +19,32 @@ import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabas
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.test.context.TestSecurityContextHolder;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.web.context.WebApplicationContext;
 
 import javax.transaction.Transactional;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 
+import static com.example.carparkingapi.util.Constants.OVERLAPPING_RESERVATION_ERROR_MESSAGE;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @SpringBootTest
@@ -58,6 +69,9 @@ class CustomerControllerTest {
     @Autowired
     private CarRepository carRepository;
 
+    @Autowired
+    private ReservationRepository reservationRepository;
+
     @Autowired
     private TestDataLoader testDataLoader;
 
@@ -88,6 +102,39 @@ class CustomerControllerTest {
                 .andExpect(jsonPath("$.content[3].model").value("M5"));
     }
 
+    @Test
+    @WithMockUser(username = "jan.kowalski@email.com", password = "customerPassword", roles = "USER")
+    void shouldReturnAllCarsForCustomerByCursor() throws Exception {
+        MvcResult firstSlice = mockMvc.perform(get("/api/v1/customer/cars/cursor")
+                        .param("size", "2")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalElements").doesNotExist())
+                .andExpect(jsonPath("$.content.length()").value(2))
+                .andExpect(jsonPath("$.content[0].model").value("c-class"))
+                .andExpect(jsonPath("$.content[1].model").value("M3"))
+                .andExpect(jsonPath("$.hasNext").value(true))
+                .andReturn();
+
+        String nextCursor = objectMapper.readTree(firstSlice.getResponse().getContentAsString())
+                .get("nextCursor").asText();
+
+        mockMvc.perform(get("/api/v1/customer/cars/cursor")
+                        .param("size", "2")
+                        .param("cursor", nextCursor)
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(2))
+                .andExpect(jsonPath("$.content[0].model").value("Model S"))
+                .andExpect(jsonPath("$.content[1].model").value("M5"))
+                .andExpect(jsonPath("$.hasNext").value(false));
+
+        mockMvc.perform(get("/api/v1/customer/cars/cursor")
+                        .param("cursor", "not a cursor")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     @WithMockUser(username = "jan.kowalski@email.com", password = "customerPassword", roles = "USER")
     void shouldReturnAllCarsForCustomerAndBrand() throws Exception {
@@ -144,6 +191,54 @@ class CustomerControllerTest {
                 .andExpect(jsonPath("$.model").value("M5"));
     }
 
+    @Test
+    @WithMockUser(username = "jan.kowalski@email.com", password = "customerPassword", roles = "USER")
+    void shouldReturnMostExpensiveCarsByCustomerBrandAndFuel() throws Exception {
+        mockMvc.perform(get("/api/v1/customer/cars/top")
+                        .param("k", "5")
+                        .param("brand", "BMW")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].model").value("M5"))
+                .andExpect(jsonPath("$[1].model").value("M3"));
+
+        mockMvc.perform(get("/api/v1/customer/cars/top")
+                        .param("k", "2")
+                        .param("fuel", "ELECTRIC")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].model").value("Model S"));
+    }
+
+    @Test
+    @WithMockUser(username = "jan.kowalski@email.com", password = "customerPassword", roles = "USER")
+    void shouldSuggestCarNamesByPrefix() throws Exception {
+        mockMvc.perform(get("/api/v1/customer/cars/suggest")
+                        .param("prefix", "bm")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(3))
+                .andExpect(jsonPath("$[0].name").value("BMW"))
+                .andExpect(jsonPath("$[0].cars").value(2))
+                .andExpect(jsonPath("$[1].name").value("BMW M3"))
+                .andExpect(jsonPath("$[2].name").value("BMW M5"));
+
+        mockMvc.perform(post("/api/v1/customer/cars/save")
+                        .content(objectMapper.writeValueAsString(new CarCommand("BMW", "X5", 400000,
+                                1, 1, Fuel.DIESEL, LocalDate.of(2023, 10, 10))))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isCreated());
+
+        mockMvc.perform(get("/api/v1/customer/cars/suggest")
+                        .param("prefix", "BMW ")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(3))
+                .andExpect(jsonPath("$[2].name").value("BMW X5"));
+    }
+
     @Test
     @WithMockUser(username = "jan.kowalski@email.com", password = "customerPassword", roles = "USER")
     void shouldSaveNewCar() throws Exception {
@@ -254,4 +349,239 @@ class CustomerControllerTest {
         assertEquals(0, parking.getTakenPlaces());
         assertEquals(0, parking.getTakenElectricPlaces());
     }
+
+    @Test
+    @WithMockUser(username = "jan.kowalski@email.com", password = "customerPassword", roles = "USER")
+    void shouldNotParkCarWhenParkingIsFull() throws Exception {
+        Parking parking = parkingRepository.findById(1L)
+                .orElseThrow(ParkingNotFoundException::new);
+        parking.setCapacity(1);
+        parkingRepository.save(parking);
+
+        mockMvc.perform(post("/api/v1/customer/cars/1/park/1")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(post("/api/v1/customer/cars/2/park/1")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+
+        assertNull(carRepository.findById(2L)
+                .orElseThrow(CarNotFoundException::new).getParking());
+        assertEquals(1, parkingRepository.findById(1L)
+                .orElseThrow(ParkingNotFoundException::new).getTakenPlaces());
+    }
+
+    @Test
+    @WithMockUser(username = "jan.kowalski@email.com", password = "customerPassword", roles = "USER")
+    void shouldAssignParkingSpot() throws Exception {
+        mockMvc.perform(post("/api/v1/customer/cars/1/park/1")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.parkingId").value(1))
+                .andExpect(jsonPath("$.spotNumber").value(3))
+                .andExpect(jsonPath("$.electric").value(false));
+
+        mockMvc.perform(post("/api/v1/customer/cars/3/park/1")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.spotNumber").value(1))
+                .andExpect(jsonPath("$.electric").value(true));
+
+        mockMvc.perform(post("/api/v1/customer/cars/1/leave")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(post("/api/v1/customer/cars/2/park/1")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.spotNumber").value(3));
+    }
+
+    @Test
+    @WithMockUser(username = "jan.kowalski@email.com", password = "customerPassword", roles = "USER")
+    void shouldReturnCompatibleParkingsWithMostFreePlacesFirst() throws Exception {
+        mockMvc.perform(post("/api/v1/customer/cars/1/park/1")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/v1/customer/cars/2/compatible-parkings")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(2))
+                .andExpect(jsonPath("$.hasNext").value(false))
+                .andExpect(jsonPath("$.content[0].parkingId").value(2))
+                .andExpect(jsonPath("$.content[0].freePlaces").value(10))
+                .andExpect(jsonPath("$.content[1].parkingId").value(1))
+                .andExpect(jsonPath("$.content[1].freePlaces").value(9));
+    }
+
+    @Test
+    @WithMockUser(username = "jan.kowalski@email.com", password = "customerPassword", roles = "USER")
+    void shouldHandFreedPlaceToWaitlistedCar() throws Exception {
+        Parking parking = parkingRepository.findById(1L).orElseThrow(ParkingNotFoundException::new);
+        parking.setCapacity(1);
+        parking.setPlacesForElectricCars(0);
+        parkingRepository.save(parking);
+
+        mockMvc.perform(post("/api/v1/customer/cars/1/park/1")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+
+        MvcResult waitlistResult = mockMvc.perform(post("/api/v1/customer/cars/2/waitlist/1")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(post("/api/v1/customer/cars/4/park/1")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+
+        mockMvc.perform(post("/api/v1/customer/cars/1/leave")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(asyncDispatch(waitlistResult))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.parkingId").value(1))
+                .andExpect(jsonPath("$.spotNumber").value(1));
+
+        assertEquals(1L, carRepository.findById(2L).orElseThrow(CarNotFoundException::new)
+                .getParking().getId());
+    }
+
+    @Test
+    @WithMockUser(username = "jan.kowalski@email.com", password = "customerPassword", roles = "USER")
+    void shouldParkRegularCarPastElectricCarWaitingForElectricPlace() throws Exception {
+        Parking parking = parkingRepository.findById(1L).orElseThrow(ParkingNotFoundException::new);
+        parking.setCapacity(2);
+        parking.setPlacesForElectricCars(0);
+        parkingRepository.save(parking);
+
+        mockMvc.perform(post("/api/v1/customer/cars/3/waitlist/1")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted());
+
+        mockMvc.perform(post("/api/v1/customer/cars/2/park/1")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+
+        assertEquals(1L, carRepository.findById(2L).orElseThrow(CarNotFoundException::new)
+                .getParking().getId());
+        assertNull(carRepository.findById(3L).orElseThrow(CarNotFoundException::new).getParking());
+    }
+
+    @Test
+    @WithMockUser(username = "jan.kowalski@email.com", password = "customerPassword", roles = "USER")
+    void shouldHoldBackReservedPlaces() throws Exception {
+        Parking parking = parkingRepository.findById(1L).orElseThrow(ParkingNotFoundException::new);
+        parking.setCapacity(2);
+        parking.setPlacesForElectricCars(0);
+        parkingRepository.save(parking);
+
+        ReservationCommand reservationCommand = new ReservationCommand(LocalDateTime.now().plusMinutes(1),
+                LocalDateTime.now().plusHours(2));
+        mockMvc.perform(post("/api/v1/customer/cars/2/reservations/1")
+                        .content(objectMapper.writeValueAsString(reservationCommand))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.carId").value(2))
+                .andExpect(jsonPath("$.parkingId").value(1));
+
+        mockMvc.perform(post("/api/v1/customer/cars/4/reservations/1")
+                        .content(objectMapper.writeValueAsString(reservationCommand))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isCreated());
+
+        mockMvc.perform(post("/api/v1/customer/cars/1/reservations/1")
+                        .content(objectMapper.writeValueAsString(reservationCommand))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+
+        mockMvc.perform(post("/api/v1/customer/cars/1/park/1")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+
+        mockMvc.perform(post("/api/v1/customer/cars/2/park/1")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/v1/customer/cars/2/reservations")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$").isEmpty());
+    }
+
+    @Test
+    @WithMockUser(username = "jan.kowalski@email.com", password = "customerPassword", roles = "USER")
+    void shouldRejectOverlappingReservationOfCar() throws Exception {
+        LocalDateTime from = LocalDateTime.now().plusHours(1).truncatedTo(ChronoUnit.SECONDS);
+        mockMvc.perform(post("/api/v1/customer/cars/2/reservations/1")
+                        .content(objectMapper.writeValueAsString(new ReservationCommand(from, from.plusHours(2))))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isCreated());
+
+        mockMvc.perform(post("/api/v1/customer/cars/2/reservations/2")
+                        .content(objectMapper.writeValueAsString(
+                                new ReservationCommand(from.plusHours(1), from.plusHours(3))))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errors").value(OVERLAPPING_RESERVATION_ERROR_MESSAGE));
+
+        mockMvc.perform(post("/api/v1/customer/cars/2/reservations/2")
+                        .content(objectMapper.writeValueAsString(
+                                new ReservationCommand(from.plusHours(2), from.plusHours(3))))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isCreated());
+    }
+
+    @Test
+    @WithMockUser(username = "jan.kowalski@email.com", password = "customerPassword", roles = "USER")
+    void shouldNotCancelReservationOfAnotherCustomer() throws Exception {
+        LocalDateTime from = LocalDateTime.now().plusHours(1);
+        mockMvc.perform(post("/api/v1/customer/cars/2/reservations/1")
+                        .content(objectMapper.writeValueAsString(new ReservationCommand(from, from.plusHours(2))))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isCreated());
+        Long reservationId = reservationRepository.findAllByCarIdOrderByReservedFrom(2L).get(0).getId();
+
+        Authentication owner = TestSecurityContextHolder.getContext().getAuthentication();
+        TestSecurityContextHolder.setAuthentication(new UsernamePasswordAuthenticationToken(
+                "Michal.Nowak@email.com", null, List.of(new SimpleGrantedAuthority("ROLE_USER"))));
+        mockMvc.perform(delete("/api/v1/customer/reservations/" + reservationId))
+                .andExpect(status().isNotFound());
+        assertTrue(reservationRepository.existsById(reservationId));
+
+        TestSecurityContextHolder.setAuthentication(owner);
+        mockMvc.perform(delete("/api/v1/customer/reservations/" + reservationId))
+                .andExpect(status().isOk());
+        assertFalse(reservationRepository.existsById(reservationId));
+    }
+
+    @Test
+    @WithMockUser(username = "Michal.Nowak@email.com", password = "customerPassword", roles = "USER")
+    void shouldNotReserveForCarOfAnotherCustomer() throws Exception {
+        LocalDateTime from = LocalDateTime.now().plusHours(1);
+        mockMvc.perform(post("/api/v1/customer/cars/2/reservations/1")
+                        .content(objectMapper.writeValueAsString(new ReservationCommand(from, from.plusHours(2))))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotFound());
+        assertTrue(reservationRepository.findAllByCarIdOrderByReservedFrom(2L).isEmpty());
+
+        mockMvc.perform(get("/api/v1/customer/cars/2/reservations")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @WithMockUser(username = "jan.kowalski@email.com", password = "customerPassword", roles = "USER")
+    void shouldRejectReservationStartingInThePast() throws Exception {
+        LocalDateTime from = LocalDateTime.now().minusHours(1);
+        mockMvc.perform(post("/api/v1/customer/cars/2/reservations/1")
+                        .content(objectMapper.writeValueAsString(new ReservationCommand(from, from.plusHours(2))))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errors").value("reservedFrom: Reservation cannot start in the past"));
+        assertTrue(reservationRepository.findAllByCarIdOrderByReservedFrom(2L).isEmpty());
+    }
 }
@@ -0,0 +1,170 @@
+package com.example.carparkingapi.controller;
+
+import com.example.carparkingapi.config.security.jwt.JwtService;
+import com.example.carparkingapi.data.loader.TestDataLoader;
+import com.example.carparkingapi.domain.Admin;
+import com.example.carparkingapi.domain.Customer;
+import com.example.carparkingapi.repository.AdminRepository;
+import com.example.carparkingapi.repository.CarRepository;
+import com.example.carparkingapi.repository.CustomerRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Requests with real tokens through the security filter chain, with the role and id of the token trusted as they are.
+ */
+@SpringBootTest(properties = "security.authorization.stateless=true")
+@AutoConfigureTestDatabase
+@ActiveProfiles("application-test")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+class StatelessAuthorizationTest {
+
+    private static final String CUSTOMER_USERNAME = "jan.kowalski@email.com";
+
+    @Autowired
+    private WebApplicationContext webApplicationContext;
+
+    @Autowired
+    private TestDataLoader testDataLoader;
+
+    @Autowired
+    private JwtService jwtService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private CarRepository carRepository;
+
+    @SpyBean
+    private CustomerRepository customerRepository;
+
+    @SpyBean
+    private AdminRepository adminRepository;
+
+    private MockMvc mockMvc;
+
+    private Customer customer;
+
+    private Admin admin;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(webApplicationContext).apply(springSecurity()).build();
+        testDataLoader.createCustomersCarsAndParkings();
+        customer = customerRepository.findCustomerByUsername(CUSTOMER_USERNAME).orElseThrow();
+        admin = testDataLoader.createAdmin();
+        clearInvocations(customerRepository, adminRepository);
+    }
+
+    @Test
+    void shouldServeCustomerCarsWithoutLookingUpCustomer() throws Exception {
+        mockMvc.perform(get("/api/v1/customer/cars")
+                        .header(HttpHeaders.AUTHORIZATION, bearer(jwtService.generateToken(customer))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalElements").value(4));
+        mockMvc.perform(get("/api/v1/customer/cars/cursor")
+                        .param("size", "2")
+                        .header(HttpHeaders.AUTHORIZATION, bearer(jwtService.generateToken(customer))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(2));
+        mockMvc.perform(get("/api/v1/customer/cars/most-expensive")
+                        .header(HttpHeaders.AUTHORIZATION, bearer(jwtService.generateToken(customer))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.model").value("M5"));
+
+        verify(customerRepository, never()).findCustomerByUsername(any());
+    }
+
+    @Test
+    void shouldSaveCarForCustomerReferencedByTokenId() throws Exception {
+        mockMvc.perform(post("/api/v1/customer/cars/save")
+                        .header(HttpHeaders.AUTHORIZATION, bearer(jwtService.generateToken(customer)))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(testDataLoader.createCarCommand())))
+                .andExpect(status().isCreated());
+
+        verify(customerRepository, never()).findCustomerByUsername(any());
+        verify(customerRepository).getReferenceById(customer.getId());
+        assertEquals(customer.getId(), carRepository.findCarByCustomerUsernameAndBrandAndModel(CUSTOMER_USERNAME,
+                "Audi", "A4").orElseThrow().getCustomer().getId());
+    }
+
+    @Test
+    void shouldRecordAdminActionAgainstReferenceFromToken() throws Exception {
+        mockMvc.perform(get("/api/v1/admin/action/all")
+                        .header(HttpHeaders.AUTHORIZATION, bearer(jwtService.generateToken(admin))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalElements").value(1))
+                .andExpect(jsonPath("$.content[0].actionType").value("RETRIEVING_ALL_ACTIONS"));
+
+        verify(adminRepository, never()).existsAdminByUsername(any());
+        verify(adminRepository, never()).findAdminByUsername(any());
+        verify(adminRepository, atLeastOnce()).getReferenceById(admin.getId());
+    }
+
+    @Test
+    void shouldRejectTokenOfOtherRole() throws Exception {
+        mockMvc.perform(get("/api/v1/admin/action/all")
+                        .header(HttpHeaders.AUTHORIZATION, bearer(jwtService.generateToken(customer))))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(get("/api/v1/customer/cars")
+                        .header(HttpHeaders.AUTHORIZATION, bearer(jwtService.generateToken(admin))))
+                .andExpect(status().isUnauthorized());
+
+        verify(customerRepository, never()).findCustomerByUsername(any());
+        verify(adminRepository, never()).existsAdminByUsername(any());
+    }
+
+    @Test
+    void shouldRejectTokensOfDeletedAccounts() throws Exception {
+        Customer deletedCustomer = customerRepository.findCustomerByUsername("Michal.Nowak@email.com").orElseThrow();
+        String customerToken = jwtService.generateToken(deletedCustomer);
+        String adminToken = jwtService.generateToken(admin);
+        carRepository.deleteAll(carRepository.findAll().stream()
+                .filter(car -> car.getCustomer().getId().equals(deletedCustomer.getId()))
+                .toList());
+        customerRepository.delete(deletedCustomer);
+        adminRepository.delete(admin);
+
+        mockMvc.perform(post("/api/v1/customer/cars/save")
+                        .header(HttpHeaders.AUTHORIZATION, bearer(customerToken))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(testDataLoader.createCarCommand())))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(get("/api/v1/admin/action/all")
+                        .header(HttpHeaders.AUTHORIZATION, bearer(adminToken)))
+                .andExpect(status().isUnauthorized());
+
+        verify(customerRepository, never()).getReferenceById(any());
+        verify(adminRepository, never()).getReferenceById(any());
+    }
+
+    private static String bearer(String token) {
+        return "Bearer " + token;
+    }
+}
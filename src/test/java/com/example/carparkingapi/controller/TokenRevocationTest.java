@@ -0,0 +1,115 @@
+package com.example.carparkingapi.controller;
+
+import com.example.carparkingapi.config.security.jwt.JwtService;
+import com.example.carparkingapi.data.loader.TestDataLoader;
+import com.example.carparkingapi.domain.Customer;
+import com.example.carparkingapi.model.AuthenticationRequest;
+import com.example.carparkingapi.model.AuthenticationResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Tokens of a locked customer through the security filter chain, with the revocation epoch stored in the database.
+ */
+@SpringBootTest
+@AutoConfigureTestDatabase
+@ActiveProfiles("application-test")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+class TokenRevocationTest {
+
+    @Autowired
+    private WebApplicationContext webApplicationContext;
+
+    @Autowired
+    private TestDataLoader testDataLoader;
+
+    @Autowired
+    private JwtService jwtService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private MockMvc mockMvc;
+
+    private Customer customer;
+
+    private String adminToken;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(webApplicationContext).apply(springSecurity()).build();
+        customer = testDataLoader.createCustomer();
+        adminToken = jwtService.generateToken(testDataLoader.createAdmin());
+    }
+
+    @Test
+    void shouldRejectTokensOfLockedCustomerUntilTheyLogInAgain() throws Exception {
+        String cachedToken = login();
+        String unusedToken = login();
+        getCars(cachedToken).andExpect(status().isOk());
+
+        mockMvc.perform(put("/api/v1/admin/customers/lock-account/{customerId}", customer.getId())
+                        .header(HttpHeaders.AUTHORIZATION, bearer(adminToken)))
+                .andExpect(status().isOk());
+
+        getCars(cachedToken).andExpect(status().isUnauthorized());
+        getCars(unusedToken).andExpect(status().isUnauthorized());
+
+        mockMvc.perform(put("/api/v1/admin/customers/unlock-account/{customerId}", customer.getId())
+                        .header(HttpHeaders.AUTHORIZATION, bearer(adminToken)))
+                .andExpect(status().isOk());
+        waitForRevocationEpoch();
+
+        getCars(cachedToken).andExpect(status().isUnauthorized());
+        getCars(login()).andExpect(status().isOk());
+    }
+
+    private String login() throws Exception {
+        AuthenticationRequest request = new AuthenticationRequest(customer.getUsername(), "password");
+        String response = mockMvc.perform(post("/api/v1/auth/customer/authenticate")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readValue(response, AuthenticationResponse.class).getToken();
+    }
+
+    private ResultActions getCars(String token) throws Exception {
+        return mockMvc.perform(get("/api/v1/customer/cars").header(HttpHeaders.AUTHORIZATION, bearer(token)));
+    }
+
+    /**
+     * Tokens carry their issue time in whole seconds, one issued in the second of the lock is still revoked.
+     */
+    private void waitForRevocationEpoch() throws InterruptedException {
+        Long revokedBefore = jdbcTemplate.queryForObject("select revoked_before from customer where id = ?",
+                Long.class, customer.getId());
+        Thread.sleep(Math.max(0, revokedBefore - System.currentTimeMillis()));
+    }
+
+    private static String bearer(String token) {
+        return "Bearer " + token;
+    }
+}
@@ -0,0 +1,209 @@
+package com.example.carparkingapi.repository;
+
+import com.example.carparkingapi.command.CarSearchCommand;
+import com.example.carparkingapi.domain.Admin;
+import com.example.carparkingapi.model.Fuel;
+import com.example.carparkingapi.repository.specification.CarSpecifications;
+import com.example.carparkingapi.service.dictionary.CarNameDictionary;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.persistence.EntityManager;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Calls each repository query and runs {@code EXPLAIN} on the embedded database for the SQL Hibernate generated for
+ * it, failing if any table is read with a full scan or the plan does not use the index the query was written for,
+ * so every query keeps a matching index from the Liquibase changesets.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector=" +
+        "com.example.carparkingapi.repository.RepositoryIndexUsageTest$CapturingStatementInspector")
+@ActiveProfiles("application-test")
+@Import({CarNameDictionary.class, RepositoryIndexUsageTest.Repositories.class})
+class RepositoryIndexUsageTest {
+
+    private static final PageRequest PAGE = PageRequest.of(0, 15);
+
+    private static final LocalDateTime NOW = LocalDateTime.now();
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private Repositories repositories;
+
+    @BeforeEach
+    void setUp() {
+        repositories.carNameDictionary().register("BMW", "X5");
+        CapturingStatementInspector.STATEMENTS.clear();
+    }
+
+    static Stream<Arguments> repositoryQueries() {
+        return Stream.of(
+                query("CarRepository.findFirstByOrderByPriceDesc", sortedBy("IDX_CAR_PRICE_DESC"),
+                        r -> r.cars().findFirstByOrderByPriceDesc()),
+                query("CarRepository.findAllByOrderByPriceDesc", sortedBy("IDX_CAR_PRICE_DESC"),
+                        r -> r.cars().findAllByOrderByPriceDesc(PAGE)),
+                query("CarRepository.findCarDTOsByParkingId", lookup("PARKING_ID"),
+                        r -> r.cars().findCarDTOsByParkingId(1L, PAGE)),
+                query("CarRepository.findAllByParkingIdOrderByPriceDesc", lookup("PARKING_ID"),
+                        r -> r.cars().findAllByParkingIdOrderByPriceDesc(1L, PAGE)),
+                query("CarRepository.findAllByParkingIdAndIdGreaterThanOrderByIdAsc", lookup("PARKING_ID"),
+                        r -> r.cars().findAllByParkingIdAndIdGreaterThanOrderByIdAsc(1L, 0L, PAGE)),
+                query("CarRepository.countByParkingId", lookup("PARKING_ID"),
+                        r -> r.cars().countByParkingId(1L)),
+                query("CarRepository.countByParkingIds", lookup("PARKING_ID"),
+                        r -> r.cars().countByParkingIds(List.of(1L, 2L))),
+                query("CarRepository.findOccupiedSpotIds", lookup("PARKING_ID"),
+                        r -> r.cars().findOccupiedSpotIds(1L)),
+                query("CarRepository.findCarDTOsByCustomerId", lookup("CUSTOMER_ID"),
+                        r -> r.cars().findCarDTOsByCustomerId(1L, PAGE.withSort(Sort.by("price")))),
+                query("CarRepository.findCarDTOsByCustomerIdAndFuel", lookup("CUSTOMER_ID"),
+                        r -> r.cars().findCarDTOsByCustomerIdAndFuel(1L, Fuel.PETROL,
+                                PAGE.withSort(Sort.by("price")))),
+                query("CarRepository.findCarDTOsByCustomerIdAndBrand", lookup("CUSTOMER_ID"),
+                        r -> r.cars().findCarDTOsByCustomerIdAndBrand(1L, "BMW",
+                                PAGE.withSort(Sort.by("price")))),
+                query("CarRepository.findAllByCustomerIdOrderByPriceDesc", lookup("CUSTOMER_ID"),
+                        r -> r.cars().findAllByCustomerIdOrderByPriceDesc(1L, PAGE)),
+                query("CarRepository.findAllByCustomerIdAndBrandOrderByPriceDesc", lookup("CUSTOMER_ID"),
+                        r -> r.cars().findAllByCustomerIdAndBrandOrderByPriceDesc(1L, "BMW", PAGE)),
+                query("CarRepository.findAllByCustomerIdAndFuelOrderByPriceDesc", lookup("CUSTOMER_ID"),
+                        r -> r.cars().findAllByCustomerIdAndFuelOrderByPriceDesc(1L, Fuel.PETROL, PAGE)),
+                query("CarRepository.findAllByCustomerIdAndBrandAndFuelOrderByPriceDesc", lookup("CUSTOMER_ID"),
+                        r -> r.cars().findAllByCustomerIdAndBrandAndFuelOrderByPriceDesc(1L, "BMW",
+                                Fuel.PETROL, PAGE)),
+                query("CarRepository.findAllByCustomerIdAfter", lookup("CUSTOMER_ID"),
+                        r -> r.cars().findAllByCustomerIdAfter(1L, 10, 1L, PAGE)),
+                query("CarRepository.findAllByCustomerIdAndBrandAfter", lookup("CUSTOMER_ID"),
+                        r -> r.cars().findAllByCustomerIdAndBrandAfter(1L, "BMW", 10, 1L, PAGE)),
+                query("CarRepository.findAllByCustomerIdAndFuelAfter", lookup("CUSTOMER_ID"),
+                        r -> r.cars().findAllByCustomerIdAndFuelAfter(1L, Fuel.PETROL, 10, 1L, PAGE)),
+                query("CarRepository.search by brand and model prefix", lookup("BRAND_ID"),
+                        r -> r.cars().search(CarSpecifications.matching(byNamePrefix("BM", "X"), r.carNameDictionary()),
+                                PAGE)),
+                query("CarRepository.search by production date", lookup("DATE_OF_PRODUCTION"),
+                        r -> r.cars().search(CarSpecifications.matching(byProductionDate(LocalDate.of(2020, 1, 1),
+                                LocalDate.of(2021, 1, 1)), r.carNameDictionary()), PAGE)),
+                query("CustomerRepository.findCustomerByUsername", lookup("USERNAME"),
+                        r -> r.customers().findCustomerByUsername("jan")),
+                query("AdminRepository.findAdminByUsername", lookup("USERNAME"),
+                        r -> r.admins().findAdminByUsername("admin")),
+                query("ActionRepository.findByCreatedBy", lookup("CREATED_BY_ADMIN_ID"),
+                        r -> r.actions().findByCreatedBy(r.admin(),
+                                PAGE.withSort(Sort.by(Sort.Direction.DESC, "createdDate")))),
+                query("ActionRepository.findByCreatedByAndIdLessThanOrderByIdDesc", lookup("CREATED_BY_ADMIN_ID"),
+                        r -> r.actions().findByCreatedByAndIdLessThanOrderByIdDesc(r.admin(), 100L, PAGE)),
+                query("ParkingSpotRepository.findAllByParkingIdOrderBySpotNumber", lookup("PARKING_ID"),
+                        r -> r.parkingSpots().findAllByParkingIdOrderBySpotNumber(1L)),
+                query("ParkingSpotRepository.findByParkingIdAndSpotNumber", lookup("PARKING_ID"),
+                        r -> r.parkingSpots().findByParkingIdAndSpotNumber(1L, 1)),
+                query("ParkingSpotRepository.findSpotSizesByParkingId", lookup("PARKING_ID"),
+                        r -> r.parkingSpots().findSpotSizesByParkingId(1L)),
+                query("ParkingOccupancySlotRepository.findAllByParkingIdOrderBySlot", lookup("PARKING_ID"),
+                        r -> r.occupancySlots().findAllByParkingIdOrderBySlot(1L)),
+                query("ParkingOccupancySlotRepository.sumOccupancy", lookup("PARKING_ID"),
+                        r -> r.occupancySlots().sumOccupancy(1L)),
+                query("ReservationRepository.findAllByParkingIdAndReservedToAfter", lookup("PARKING_ID"),
+                        r -> r.reservations().findAllByParkingIdAndReservedToAfter(1L, NOW)),
+                query("ReservationRepository.findAllByCarIdOrderByReservedFrom", lookup("CAR_ID"),
+                        r -> r.reservations().findAllByCarIdOrderByReservedFrom(1L)),
+                query("ReservationRepository.existsByCarIdAndReservedFromBeforeAndReservedToAfter", lookup("CAR_ID"),
+                        r -> r.reservations().existsByCarIdAndReservedFromBeforeAndReservedToAfter(1L, NOW, NOW)),
+                query("ReservationRepository.findAllByCarIdAndParkingIdAndReservedFromLessThanEqualAndReservedToAfter",
+                        lookup("CAR_ID"),
+                        r -> r.reservations()
+                                .findAllByCarIdAndParkingIdAndReservedFromLessThanEqualAndReservedToAfter(
+                                        1L, 1L, NOW, NOW, PageRequest.of(0, 1)))
+        );
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("repositoryQueries")
+    void shouldUseIndex(String repositoryMethod, String expectedAccess, Consumer<Repositories> call) {
+        call.accept(repositories);
+        List<String> statements = List.copyOf(CapturingStatementInspector.STATEMENTS);
+
+        assertThat(statements).as("SQL of %s", repositoryMethod).isNotEmpty();
+        for (String sql : statements) {
+            assertThat(jdbcTemplate.queryForObject("explain " + sql, String.class))
+                    .as("plan of %s: %s", repositoryMethod, sql)
+                    .doesNotContainIgnoringCase("tableScan");
+        }
+        assertThat(jdbcTemplate.queryForObject("explain " + statements.get(0), String.class))
+                .as("plan of %s", repositoryMethod)
+                .containsPattern(expectedAccess);
+    }
+
+    private static Arguments query(String repositoryMethod, String expectedAccess, Consumer<Repositories> call) {
+        return Arguments.of(repositoryMethod, expectedAccess, call);
+    }
+
+    /**
+     * A table read through an index with a condition on the column, not a primary key range that only looks like
+     * an index lookup in the plan.
+     */
+    private static String lookup(String column) {
+        return "/\\* PUBLIC\\.\\w+: [^*]*\\b" + column + " (=|IN|>|<|BETWEEN)";
+    }
+
+    private static String sortedBy(String index) {
+        return "/\\* PUBLIC\\." + index + " \\*/[\\s\\S]*index sorted";
+    }
+
+    private static CarSearchCommand byNamePrefix(String brandPrefix, String modelPrefix) {
+        CarSearchCommand carSearchCommand = new CarSearchCommand();
+        carSearchCommand.setBrandPrefix(brandPrefix);
+        carSearchCommand.setModelPrefix(modelPrefix);
+        return carSearchCommand;
+    }
+
+    private static CarSearchCommand byProductionDate(LocalDate from, LocalDate to) {
+        CarSearchCommand carSearchCommand = new CarSearchCommand();
+        carSearchCommand.setProducedFrom(from);
+        carSearchCommand.setProducedTo(to);
+        return carSearchCommand;
+    }
+
+    /**
+     * Records the SQL of every statement Hibernate prepares.
+     */
+    public static class CapturingStatementInspector implements StatementInspector {
+
+        static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+
+    @org.springframework.stereotype.Component
+    record Repositories(CarRepository cars, CustomerRepository customers, AdminRepository admins,
+                        ActionRepository actions, ParkingSpotRepository parkingSpots,
+                        ParkingOccupancySlotRepository occupancySlots, ReservationRepository reservations,
+                        CarNameDictionary carNameDictionary, EntityManager entityManager) {
+
+        Admin admin() {
+            return entityManager.getReference(Admin.class, 1L);
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.carparkingapi.service;
+
+import com.example.carparkingapi.domain.Car;
+import com.example.carparkingapi.domain.Parking;
+import com.example.carparkingapi.dto.ParkingSpotDTO;
+import com.example.carparkingapi.exception.parking.FullParkingException;
+import com.example.carparkingapi.model.Fuel;
+import com.example.carparkingapi.model.ParkingType;
+import com.example.carparkingapi.repository.CarRepository;
+import com.example.carparkingapi.repository.ParkingRepository;
+import com.example.carparkingapi.repository.ParkingSpotRepository;
+import com.example.carparkingapi.service.dictionary.CarNameDictionary;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Two services over the same database stand for two nodes, each with a free-spot index of its own.
+ */
+@DataJpaTest
+@ActiveProfiles("application-test")
+@Import(CarNameDictionary.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ParkingSpotServiceTest {
+
+    @Autowired
+    private ParkingRepository parkingRepository;
+
+    @Autowired
+    private ParkingSpotRepository parkingSpotRepository;
+
+    @Autowired
+    private CarRepository carRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void shouldCheckFitWithoutCreatingSpots() {
+        Parking parking = parking(3);
+
+        assertThat(node().fits(parking, car(4, 2))).isTrue();
+        assertThat(node().fits(parking, car(6, 2))).isFalse();
+        assertThat(parkingSpotRepository.findAllByParkingIdOrderBySpotNumber(parking.getId())).isEmpty();
+    }
+
+    @Test
+    void shouldTakeNextSpotWhenAnotherNodeTookTheSameOne() {
+        Parking parking = parking(3);
+        ParkingSpotService firstNode = node();
+        ParkingSpotService secondNode = node();
+
+        assertThat(firstNode.assignSpot(parking, car(4, 2)).getSpotNumber()).isEqualTo(1);
+        assertThat(secondNode.assignSpot(parking, car(4, 2)).getSpotNumber()).isEqualTo(2);
+        ParkingSpotDTO staleSpot = firstNode.assignSpot(parking, car(4, 2));
+
+        assertThat(staleSpot.getSpotNumber()).isEqualTo(3);
+        assertThat(carRepository.findOccupiedSpotIds(parking.getId())).hasSize(3);
+        assertThatThrownBy(() -> secondNode.assignSpot(parking, car(4, 2)))
+                .isInstanceOf(FullParkingException.class);
+    }
+
+    private ParkingSpotService node() {
+        return new ParkingSpotService(parkingSpotRepository, carRepository, event -> {
+        }, new TransactionTemplate(transactionManager));
+    }
+
+    private Parking parking(int capacity) {
+        Parking parking = new Parking();
+        parking.setName("Spots");
+        parking.setAdress("Street 1");
+        parking.setCapacity(capacity);
+        parking.setParkingType(ParkingType.UNDERGROUND);
+        parking.setParkingSpotLength(5);
+        parking.setParkingSpotWidth(2);
+        parking.setPlacesForElectricCars(0);
+        return parkingRepository.save(parking);
+    }
+
+    private Car car(int length, int width) {
+        Car car = new Car();
+        car.setBrand("Audi");
+        car.setModel("A4");
+        car.setPrice(100000);
+        car.setLength(length);
+        car.setWidth(width);
+        car.setFuel(Fuel.PETROL);
+        car.setDateOfProduction(LocalDate.of(2023, 10, 10));
+        return carRepository.save(car);
+    }
+}
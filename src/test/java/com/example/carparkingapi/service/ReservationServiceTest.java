@@ -0,0 +1,142 @@
+package com.example.carparkingapi.service;
+
+import com.example.carparkingapi.command.ReservationCommand;
+import com.example.carparkingapi.domain.Car;
+import com.example.carparkingapi.domain.Parking;
+import com.example.carparkingapi.domain.Reservation;
+import com.example.carparkingapi.event.ParkingChangedEvent;
+import com.example.carparkingapi.exception.not.found.CarNotFoundException;
+import com.example.carparkingapi.exception.parking.FullParkingException;
+import com.example.carparkingapi.exception.parking.InvalidReservationException;
+import com.example.carparkingapi.repository.CarRepository;
+import com.example.carparkingapi.repository.ReservationRepository;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ReservationServiceTest {
+
+    private static final int CAPACITY = 5;
+
+    private static final int THREADS = 16;
+
+    private final ReservationRepository reservationRepository = mock(ReservationRepository.class);
+
+    private final CarRepository carRepository = mock(CarRepository.class);
+
+    private final ParkingService parkingService = mock(ParkingService.class);
+
+    private final List<Reservation> saved = new CopyOnWriteArrayList<>();
+
+    @Test
+    void shouldNotReserveMorePlacesThanCapacityWhileTimelineIsRebuilt() throws Exception {
+        Parking parking = new Parking();
+        parking.setId(1L);
+        parking.setCapacity(CAPACITY);
+        AtomicLong ids = new AtomicLong();
+        when(parkingService.findById(1L)).thenReturn(parking);
+        when(carRepository.findByIdAndCustomerId(anyLong(), anyLong())).thenAnswer(invocation -> {
+            Car car = new Car();
+            car.setId(invocation.getArgument(0));
+            return Optional.of(car);
+        });
+        when(reservationRepository.save(any())).thenAnswer(invocation -> {
+            Reservation reservation = invocation.getArgument(0);
+            Thread.yield();
+            reservation.setId(ids.incrementAndGet());
+            saved.add(reservation);
+            return reservation;
+        });
+        when(reservationRepository.findAllByParkingIdAndReservedToAfter(any(), any()))
+                .thenAnswer(invocation -> List.copyOf(saved));
+
+        ReservationService reservationService = new ReservationService(reservationRepository, carRepository,
+                parkingService, 15, 30);
+        LocalDateTime from = LocalDateTime.now().plusHours(1);
+        ReservationCommand reservationCommand = new ReservationCommand(from, from.plusHours(2));
+
+        AtomicInteger rejected = new AtomicInteger();
+        AtomicBoolean running = new AtomicBoolean(true);
+        Thread invalidator = new Thread(() -> {
+            while (running.get()) {
+                reservationService.onParkingChanged(new ParkingChangedEvent(1L));
+            }
+        });
+        invalidator.start();
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new CopyOnWriteArrayList<>();
+        for (long carId = 1; carId <= THREADS * 4; carId++) {
+            long id = carId;
+            futures.add(executor.submit(() -> {
+                start.await();
+                try {
+                    reservationService.reserve(id, 1L, reservationCommand, 1L);
+                } catch (FullParkingException e) {
+                    rejected.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(10, TimeUnit.SECONDS);
+        }
+        running.set(false);
+        invalidator.join();
+        executor.shutdown();
+
+        assertThat(saved).hasSize(CAPACITY);
+        assertThat(rejected.get()).isEqualTo(THREADS * 4 - CAPACITY);
+    }
+
+    @Test
+    void shouldRejectWindowStartingInThePast() {
+        Parking parking = new Parking();
+        parking.setId(1L);
+        parking.setCapacity(CAPACITY);
+        Car car = new Car();
+        car.setId(1L);
+        when(parkingService.findById(1L)).thenReturn(parking);
+        when(carRepository.findByIdAndCustomerId(1L, 1L)).thenReturn(Optional.of(car));
+        ReservationService reservationService = new ReservationService(reservationRepository, carRepository,
+                parkingService, 15, 30);
+        LocalDateTime from = LocalDateTime.now().minusHours(1);
+
+        assertThatThrownBy(() -> reservationService.reserve(1L, 1L,
+                new ReservationCommand(from, from.plusHours(2)), 1L))
+                .isInstanceOf(InvalidReservationException.class);
+        verify(reservationRepository, never()).save(any());
+    }
+
+    @Test
+    void shouldNotFindCarOfAnotherCustomer() {
+        when(carRepository.findByIdAndCustomerId(1L, 2L)).thenReturn(Optional.empty());
+        ReservationService reservationService = new ReservationService(reservationRepository, carRepository,
+                parkingService, 15, 30);
+        LocalDateTime from = LocalDateTime.now().plusHours(1);
+
+        assertThatThrownBy(() -> reservationService.reserve(1L, 1L,
+                new ReservationCommand(from, from.plusHours(2)), 2L))
+                .isInstanceOf(CarNotFoundException.class);
+        assertThatThrownBy(() -> reservationService.getReservations(1L, 2L))
+                .isInstanceOf(CarNotFoundException.class);
+        verify(reservationRepository, never()).findAllByCarIdOrderByReservedFrom(any());
+    }
+}
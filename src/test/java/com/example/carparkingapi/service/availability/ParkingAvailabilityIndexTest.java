@@ -0,0 +1,173 @@
+package com.example.carparkingapi.service.availability;
+
+import com.example.carparkingapi.domain.Car;
+import com.example.carparkingapi.domain.Parking;
+import com.example.carparkingapi.dto.CompatibleParkingDTO;
+import com.example.carparkingapi.dto.CursorSlice;
+import com.example.carparkingapi.dto.ParkingOccupancyDTO;
+import com.example.carparkingapi.event.ParkingOccupancyChangedEvent;
+import com.example.carparkingapi.model.Fuel;
+import com.example.carparkingapi.model.ParkingType;
+import com.example.carparkingapi.model.SpotSize;
+import com.example.carparkingapi.repository.ParkingRepository;
+import com.example.carparkingapi.repository.ParkingSpotRepository;
+import com.example.carparkingapi.service.occupancy.ParkingOccupancyStrategy;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ParkingAvailabilityIndexTest {
+
+    private final ParkingRepository parkingRepository = mock(ParkingRepository.class);
+
+    private final ParkingSpotRepository parkingSpotRepository = mock(ParkingSpotRepository.class);
+
+    private final ParkingOccupancyStrategy parkingOccupancyStrategy = mock(ParkingOccupancyStrategy.class);
+
+    private ParkingAvailabilityIndex parkingAvailabilityIndex;
+
+    @BeforeEach
+    void setUp() {
+        parkingAvailabilityIndex = new ParkingAvailabilityIndex(parkingRepository, parkingSpotRepository,
+                parkingOccupancyStrategy);
+        when(parkingSpotRepository.findAllSpotSizes()).thenReturn(List.of());
+        when(parkingRepository.findAll()).thenReturn(List.of(parking(1L, 10, 2), parking(2L, 10, 2),
+                parking(3L, 10, 2)));
+        when(parkingOccupancyStrategy.occupancy(any())).thenAnswer(invocation -> {
+            Parking parking = invocation.getArgument(0);
+            return new ParkingOccupancyDTO(parking.getId(), parking.getId().intValue(), 0);
+        });
+    }
+
+    @Test
+    void shouldSeedOccupancyFromStrategyInsteadOfParkingRow() {
+        assertThat(parkingAvailabilityIndex.getOccupancy(3L))
+                .contains(new ParkingOccupancyDTO(3L, 3, 0));
+    }
+
+    @Test
+    void shouldSliceParkingsByFreePlaces() {
+        CursorSlice<CompatibleParkingDTO> firstSlice = parkingAvailabilityIndex
+                .findCompatibleParkings(car(Fuel.PETROL), null, 2);
+        CursorSlice<CompatibleParkingDTO> secondSlice = parkingAvailabilityIndex
+                .findCompatibleParkings(car(Fuel.PETROL), firstSlice.getNextCursor(), 2);
+
+        assertThat(firstSlice.getContent()).extracting(CompatibleParkingDTO::getParkingId).containsExactly(1L, 2L);
+        assertThat(firstSlice.isHasNext()).isTrue();
+        assertThat(secondSlice.getContent()).extracting(CompatibleParkingDTO::getParkingId).containsExactly(3L);
+        assertThat(secondSlice.isHasNext()).isFalse();
+    }
+
+    @Test
+    void shouldMatchElectricCarsAgainstElectricSpotsOnly() {
+        when(parkingSpotRepository.findAllSpotSizes()).thenReturn(List.of(spotSize(1L, 500, 250, false),
+                spotSize(1L, 350, 180, true), spotSize(2L, 500, 250, true), spotSize(3L, 500, 250, false)));
+
+        assertThat(parkingAvailabilityIndex.findCompatibleParkings(car(Fuel.ELECTRIC), null, 3).getContent())
+                .extracting(CompatibleParkingDTO::getParkingId).containsExactly(2L);
+        assertThat(parkingAvailabilityIndex.findCompatibleParkings(car(Fuel.PETROL), null, 3).getContent())
+                .extracting(CompatibleParkingDTO::getParkingId).containsExactly(1L, 2L, 3L);
+    }
+
+    @Test
+    void shouldReRankParkingAfterOccupancyChange() {
+        parkingAvailabilityIndex.getOccupancy(1L);
+        parkingAvailabilityIndex.onOccupancyChanged(new ParkingOccupancyChangedEvent(1L, false, 5));
+        parkingAvailabilityIndex.onOccupancyChanged(new ParkingOccupancyChangedEvent(3L, true, -1));
+
+        assertThat(parkingAvailabilityIndex.findCompatibleParkings(car(Fuel.PETROL), null, 3).getContent())
+                .extracting(CompatibleParkingDTO::getParkingId).containsExactly(2L, 3L, 1L);
+        assertThat(parkingAvailabilityIndex.findCompatibleParkings(car(Fuel.ELECTRIC), null, 3).getContent())
+                .extracting(CompatibleParkingDTO::getParkingId).containsExactly(3L, 1L, 2L);
+    }
+
+    @Test
+    void shouldApplyChangesPublishedWhileLoading() {
+        doAnswer(invocation -> {
+            Parking parking = invocation.getArgument(0);
+            if (parking.getId() == 1L) {
+                parkingAvailabilityIndex.onOccupancyChanged(new ParkingOccupancyChangedEvent(3L, false, 1));
+            }
+            return new ParkingOccupancyDTO(parking.getId(), 0, 0);
+        }).when(parkingOccupancyStrategy).occupancy(any());
+
+        assertThat(parkingAvailabilityIndex.getOccupancy(3L))
+                .contains(new ParkingOccupancyDTO(3L, 1, 0));
+    }
+
+    @Test
+    void shouldIgnoreChangesPublishedBeforeLoading() {
+        parkingAvailabilityIndex.onOccupancyChanged(new ParkingOccupancyChangedEvent(3L, false, 1));
+
+        assertThat(parkingAvailabilityIndex.getOccupancy(3L))
+                .contains(new ParkingOccupancyDTO(3L, 3, 0));
+    }
+
+    @Test
+    void shouldReconcileWithStrategy() {
+        parkingAvailabilityIndex.getOccupancy(2L);
+        parkingAvailabilityIndex.onOccupancyChanged(new ParkingOccupancyChangedEvent(2L, true, 4));
+
+        parkingAvailabilityIndex.reconcile();
+
+        assertThat(parkingAvailabilityIndex.getOccupancy(2L))
+                .contains(new ParkingOccupancyDTO(2L, 2, 0));
+        assertThat(parkingAvailabilityIndex.findCompatibleParkings(car(Fuel.PETROL), null, 3).getContent())
+                .extracting(CompatibleParkingDTO::getParkingId).containsExactly(1L, 2L, 3L);
+    }
+
+    private static Parking parking(Long id, int capacity, int placesForElectricCars) {
+        Parking parking = new Parking();
+        parking.setId(id);
+        parking.setName("Parking " + id);
+        parking.setAdress("Address " + id);
+        parking.setParkingType(ParkingType.NORMAL);
+        parking.setCapacity(capacity);
+        parking.setPlacesForElectricCars(placesForElectricCars);
+        parking.setParkingSpotLength(500);
+        parking.setParkingSpotWidth(250);
+        return parking;
+    }
+
+    private static SpotSize spotSize(Long parkingId, int length, int width, boolean electric) {
+        return new TestSpotSize(parkingId, length, width, electric);
+    }
+
+    private static Car car(Fuel fuel) {
+        Car car = new Car();
+        car.setLength(400);
+        car.setWidth(200);
+        car.setFuel(fuel);
+        return car;
+    }
+
+    private record TestSpotSize(Long parkingId, int length, int width, boolean electric) implements SpotSize {
+
+        @Override
+        public Long getParkingId() {
+            return parkingId;
+        }
+
+        @Override
+        public int getLength() {
+            return length;
+        }
+
+        @Override
+        public int getWidth() {
+            return width;
+        }
+
+        @Override
+        public boolean isElectric() {
+            return electric;
+        }
+    }
+}
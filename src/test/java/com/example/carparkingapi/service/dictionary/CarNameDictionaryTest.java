@@ -0,0 +1,69 @@
+package com.example.carparkingapi.service.dictionary;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@ActiveProfiles("application-test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class CarNameDictionaryTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void shouldFindNameRegisteredByAnotherInstance() {
+        CarNameDictionary thisInstance = new CarNameDictionary(jdbcTemplate);
+        CarNameDictionary otherInstance = new CarNameDictionary(jdbcTemplate);
+        assertThat(thisInstance.brandId("Lancia")).isEqualTo(CarNameDictionary.UNKNOWN_ID);
+
+        otherInstance.register("Lancia", "Delta");
+
+        assertThat(thisInstance.brandId("Lancia")).isEqualTo(otherInstance.brandId("Lancia"));
+        assertThat(thisInstance.modelId("Delta")).isEqualTo(otherInstance.modelId("Delta"));
+        assertThat(thisInstance.brandsStartingWith("Lan")).containsExactly("Lancia");
+    }
+
+    @Test
+    void shouldKeepNamesDifferingOnlyInCaseApart() {
+        CarNameDictionary thisInstance = new CarNameDictionary(jdbcTemplate);
+        CarNameDictionary otherInstance = new CarNameDictionary(jdbcTemplate);
+
+        thisInstance.register("Mini", "Cooper");
+        otherInstance.register("MINI", "Cooper");
+
+        assertThat(otherInstance.brandId("MINI")).isNotEqualTo(thisInstance.brandId("Mini"));
+        assertThat(thisInstance.brandName(otherInstance.brandId("MINI"))).isEqualTo("MINI");
+        assertThat(otherInstance.brandName(thisInstance.brandId("Mini"))).isEqualTo("Mini");
+        assertThat(otherInstance.modelId("Cooper")).isEqualTo(thisInstance.modelId("Cooper"));
+    }
+
+    @Test
+    void shouldRegisterInTransactionOfCallerAndForgetNamesItRolledBack() {
+        CarNameDictionary carNameDictionary = new CarNameDictionary(jdbcTemplate);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            carNameDictionary.register("Lada", "Niva");
+            assertThat(carNameDictionary.brandId("Lada")).isNotEqualTo(CarNameDictionary.UNKNOWN_ID);
+            status.setRollbackOnly();
+        });
+
+        assertThat(carNameDictionary.brandId("Lada")).isEqualTo(CarNameDictionary.UNKNOWN_ID);
+        assertThat(carNameDictionary.modelId("Niva")).isEqualTo(CarNameDictionary.UNKNOWN_ID);
+        assertThat(jdbcTemplate.queryForObject("select count(*) from car_brand where name = 'Lada'", Integer.class))
+                .isZero();
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.carparkingapi.service.occupancy;
+
+import com.example.carparkingapi.domain.Car;
+import com.example.carparkingapi.domain.Parking;
+import com.example.carparkingapi.exception.not.found.ParkingNotFoundException;
+import com.example.carparkingapi.exception.parking.FullParkingException;
+import com.example.carparkingapi.exception.parking.NoMoreElectricPlacesException;
+import com.example.carparkingapi.model.Fuel;
+import com.example.carparkingapi.model.ParkingType;
+import com.example.carparkingapi.repository.ParkingRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DataJpaTest
+@ActiveProfiles("application-test")
+@Import(GuardedUpdateOccupancyStrategy.class)
+@TestPropertySource(properties = "parking.occupancy.mode=database")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class GuardedUpdateOccupancyStrategyTest {
+
+    @Autowired
+    private GuardedUpdateOccupancyStrategy strategy;
+
+    @Autowired
+    private ParkingRepository parkingRepository;
+
+    @Test
+    void shouldNotReleaseRegularCarFromPlacesTakenByElectricCars() {
+        Parking parking = parking(4, 2);
+        strategy.admit(parking, car(Fuel.ELECTRIC), 0);
+
+        strategy.release(parking, car(Fuel.PETROL));
+
+        assertThat(reload(parking).getTakenPlaces()).isEqualTo(1);
+        assertThat(reload(parking).getTakenElectricPlaces()).isEqualTo(1);
+
+        strategy.release(parking, car(Fuel.ELECTRIC));
+
+        assertThat(reload(parking).getTakenPlaces()).isZero();
+        assertThat(reload(parking).getTakenElectricPlaces()).isZero();
+    }
+
+    @Test
+    void shouldTellFullParkingFromMissingElectricPlaces() {
+        Parking parking = parking(2, 1);
+        strategy.admit(parking, car(Fuel.ELECTRIC), 0);
+
+        assertThatThrownBy(() -> strategy.admit(parking, car(Fuel.ELECTRIC), 0))
+                .isInstanceOf(NoMoreElectricPlacesException.class);
+
+        strategy.admit(parking, car(Fuel.PETROL), 0);
+
+        assertThatThrownBy(() -> strategy.admit(parking, car(Fuel.ELECTRIC), 0))
+                .isInstanceOf(FullParkingException.class);
+        assertThatThrownBy(() -> strategy.admit(parking, car(Fuel.PETROL), 0))
+                .isInstanceOf(FullParkingException.class);
+    }
+
+    private Parking reload(Parking parking) {
+        return parkingRepository.findById(parking.getId()).orElseThrow(ParkingNotFoundException::new);
+    }
+
+    private Parking parking(int capacity, int electricCapacity) {
+        Parking parking = new Parking();
+        parking.setName("Guarded");
+        parking.setAdress("Street 1");
+        parking.setCapacity(capacity);
+        parking.setParkingType(ParkingType.UNDERGROUND);
+        parking.setParkingSpotLength(5);
+        parking.setParkingSpotWidth(2);
+        parking.setPlacesForElectricCars(electricCapacity);
+        return parkingRepository.save(parking);
+    }
+
+    private static Car car(Fuel fuel) {
+        Car car = new Car();
+        car.setFuel(fuel);
+        return car;
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.carparkingapi.service.occupancy;
+
+import com.example.carparkingapi.domain.Car;
+import com.example.carparkingapi.domain.Parking;
+import com.example.carparkingapi.exception.parking.FullParkingException;
+import com.example.carparkingapi.exception.parking.NoMoreElectricPlacesException;
+import com.example.carparkingapi.model.Fuel;
+import com.example.carparkingapi.repository.ParkingRepository;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.example.carparkingapi.service.occupancy.OccupancyCounterTest.parking;
+import static com.example.carparkingapi.service.occupancy.OccupancyCounterTest.runConcurrently;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+class InMemoryOccupancyStrategyTest {
+
+    private final ParkingRepository parkingRepository = mock(ParkingRepository.class);
+
+    private final InMemoryOccupancyStrategy strategy = new InMemoryOccupancyStrategy(parkingRepository,
+            Optional.empty());
+
+    @Test
+    void shouldAdmitConcurrentlyUpToTheLimits() throws Exception {
+        Parking parking = parking(20, 5);
+        AtomicInteger full = new AtomicInteger();
+        AtomicInteger noElectricPlaces = new AtomicInteger();
+        AtomicInteger admittedElectric = new AtomicInteger();
+
+        runConcurrently(thread -> {
+            for (int i = 0; i < 10; i++) {
+                try {
+                    boolean electric = thread % 2 == 0;
+                    strategy.admit(parking, car(electric ? Fuel.ELECTRIC : Fuel.PETROL), 0);
+                    if (electric) {
+                        admittedElectric.incrementAndGet();
+                    }
+                } catch (FullParkingException e) {
+                    full.incrementAndGet();
+                } catch (NoMoreElectricPlacesException e) {
+                    noElectricPlaces.incrementAndGet();
+                }
+            }
+        });
+
+        // petrol cars may take the last places before all electric ones got in
+        assertThat(full.get() + noElectricPlaces.get()).isEqualTo(16 * 10 - 20);
+        assertThat(admittedElectric.get()).isBetween(0, 5);
+        strategy.flush();
+        verify(parkingRepository).updateOccupancy(1L, 20, admittedElectric.get());
+    }
+
+    @Test
+    void shouldFlushOnlyChangedCounters() {
+        Parking parking = parking(10, 2);
+        strategy.admit(parking, car(Fuel.ELECTRIC), 0);
+        strategy.admit(parking, car(Fuel.PETROL), 0);
+
+        strategy.flush();
+        strategy.flush();
+
+        verify(parkingRepository, times(1)).updateOccupancy(1L, 2, 1);
+        verifyNoMoreInteractions(parkingRepository);
+    }
+
+    @Test
+    void shouldRetryFailedFlush() {
+        Parking parking = parking(10, 2);
+        strategy.admit(parking, car(Fuel.PETROL), 0);
+        when(parkingRepository.updateOccupancy(anyLong(), anyInt(), anyInt()))
+                .thenThrow(new IllegalStateException("database down"))
+                .thenReturn(1);
+
+        strategy.flush();
+        strategy.flush();
+
+        verify(parkingRepository, times(2)).updateOccupancy(1L, 1, 0);
+    }
+
+    @Test
+    void shouldRejectWhenFullAndReleaseBackToEmpty() throws Exception {
+        Parking parking = parking(1, 1);
+        strategy.admit(parking, car(Fuel.ELECTRIC), 0);
+
+        assertThatThrownBy(() -> strategy.admit(parking, car(Fuel.PETROL), 0))
+                .isInstanceOf(FullParkingException.class);
+
+        strategy.release(parking, car(Fuel.ELECTRIC));
+        runConcurrently(thread -> strategy.release(parking, car(Fuel.PETROL)));
+        strategy.flush();
+
+        verify(parkingRepository).updateOccupancy(1L, 0, 0);
+    }
+
+    private static Car car(Fuel fuel) {
+        Car car = new Car();
+        car.setFuel(fuel);
+        return car;
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.carparkingapi.service.occupancy;
+
+import com.example.carparkingapi.domain.Parking;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OccupancyCounterTest {
+
+    private static final int THREADS = 16;
+
+    @Test
+    void shouldNeverAdmitMoreThanCapacityAndElectricPlaces() throws Exception {
+        OccupancyCounter counter = new OccupancyCounter(parking(50, 10));
+        AtomicInteger admitted = new AtomicInteger();
+        AtomicInteger admittedElectric = new AtomicInteger();
+
+        runConcurrently(thread -> {
+            for (int i = 0; i < 20; i++) {
+                boolean electric = (thread + i) % 2 == 0;
+                if (counter.tryAdmit(electric, 0) == AdmissionResult.ADMITTED) {
+                    admitted.incrementAndGet();
+                    if (electric) {
+                        admittedElectric.incrementAndGet();
+                    }
+                }
+            }
+        });
+
+        long snapshot = counter.snapshot();
+        assertThat(admitted.get()).isEqualTo(50);
+        assertThat(admittedElectric.get()).isEqualTo(10);
+        assertThat(OccupancyCounter.taken(snapshot)).isEqualTo(50);
+        assertThat(OccupancyCounter.takenElectric(snapshot)).isEqualTo(10);
+    }
+
+    @Test
+    void shouldReturnToEmptyAfterConcurrentAdmitsAndReleases() throws Exception {
+        OccupancyCounter counter = new OccupancyCounter(parking(8, 4));
+
+        runConcurrently(thread -> {
+            boolean electric = thread % 2 == 0;
+            for (int i = 0; i < 1000; i++) {
+                if (counter.tryAdmit(electric, 0) == AdmissionResult.ADMITTED) {
+                    long snapshot = counter.snapshot();
+                    assertThat(OccupancyCounter.taken(snapshot)).isLessThanOrEqualTo(8);
+                    assertThat(OccupancyCounter.takenElectric(snapshot)).isLessThanOrEqualTo(4);
+                    counter.release(electric);
+                }
+            }
+        });
+
+        assertThat(OccupancyCounter.taken(counter.snapshot())).isZero();
+        assertThat(OccupancyCounter.takenElectric(counter.snapshot())).isZero();
+    }
+
+    @Test
+    void shouldKeepHeldBackPlacesFree() {
+        OccupancyCounter counter = new OccupancyCounter(parking(3, 1));
+
+        assertThat(counter.tryAdmit(false, 2)).isEqualTo(AdmissionResult.ADMITTED);
+        assertThat(counter.tryAdmit(false, 2)).isEqualTo(AdmissionResult.FULL);
+        assertThat(counter.tryAdmit(true, 1)).isEqualTo(AdmissionResult.ADMITTED);
+        assertThat(counter.tryAdmit(true, 0)).isEqualTo(AdmissionResult.NO_ELECTRIC_PLACES);
+    }
+
+    @Test
+    void shouldNotReleaseBelowZero() {
+        OccupancyCounter counter = new OccupancyCounter(parking(3, 1));
+
+        counter.release(true);
+
+        assertThat(OccupancyCounter.taken(counter.snapshot())).isZero();
+        assertThat(OccupancyCounter.takenElectric(counter.snapshot())).isZero();
+    }
+
+    @Test
+    void shouldReportChangesOnlyOnce() {
+        OccupancyCounter counter = new OccupancyCounter(parking(3, 1));
+
+        assertThat(counter.markClean()).isFalse();
+        counter.tryAdmit(false, 0);
+        assertThat(counter.markClean()).isTrue();
+        assertThat(counter.markClean()).isFalse();
+    }
+
+    static Parking parking(int capacity, int electricCapacity) {
+        Parking parking = new Parking();
+        parking.setId(1L);
+        parking.setCapacity(capacity);
+        parking.setPlacesForElectricCars(electricCapacity);
+        return parking;
+    }
+
+    static void runConcurrently(ThreadTask task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int thread = 0; thread < THREADS; thread++) {
+            int number = thread;
+            futures.add(executor.submit(() -> {
+                start.await();
+                task.run(number);
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+    }
+
+    interface ThreadTask {
+        void run(int thread) throws Exception;
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.carparkingapi.service.occupancy;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OccupancyJournalTest {
+
+    private static final int RECORD_SIZE = 32;
+
+    private static final int SEGMENT_BYTES = 4 * RECORD_SIZE;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldReplayRecordsWrittenBeforeCrash() {
+        OccupancyJournal journal = open();
+        journal.baseline(1L, 3, 1);
+        journal.park(1L, true);
+        journal.park(2L, false);
+        journal.leave(1L, false);
+        journal.sync();
+
+        OccupancyJournal restarted = open();
+
+        assertThat(restarted.occupancy(1L)).containsExactly(3, 2);
+        assertThat(restarted.occupancy(2L)).containsExactly(1, 0);
+        assertThat(restarted.occupancy(3L)).isNull();
+    }
+
+    @Test
+    void shouldReplaySnapshotAfterCleanShutdown() {
+        OccupancyJournal journal = open();
+        journal.baseline(1L, 5, 2);
+        journal.park(2L, true);
+        journal.evict(1L);
+        journal.snapshot();
+
+        OccupancyJournal restarted = open();
+
+        assertThat(restarted.occupancy(1L)).isNull();
+        assertThat(restarted.occupancy(2L)).containsExactly(1, 1);
+    }
+
+    @Test
+    void shouldRotateSegmentsWhenFullAndKeepOnlyCurrentOne() throws IOException {
+        OccupancyJournal journal = open();
+        for (int i = 0; i < 3 * SEGMENT_BYTES / RECORD_SIZE + 1; i++) {
+            journal.park(1L, i % 2 == 0);
+        }
+        journal.sync();
+
+        assertThat(segments()).hasSize(1);
+        assertThat(Files.exists(directory.resolve("occupancy.snapshot"))).isTrue();
+
+        OccupancyJournal restarted = open();
+
+        assertThat(restarted.occupancy(1L)).containsExactly(13, 7);
+        assertThat(segments()).hasSize(1);
+    }
+
+    @Test
+    void shouldStopReplayAtTornTrailingRecord() throws IOException {
+        OccupancyJournal journal = open();
+        journal.park(1L, false);
+        journal.park(1L, false);
+        journal.sync();
+        Path segment = segments().get(0);
+        // a record whose body made it to disk but whose sequence did not
+        writeAt(segment, 2 * RECORD_SIZE, ByteBuffer.allocate(RECORD_SIZE)
+                .putLong(0).putLong(1L).putInt(2).putInt(0).putInt(0).putInt(0).flip());
+
+        OccupancyJournal restarted = open();
+
+        assertThat(restarted.occupancy(1L)).containsExactly(2, 0);
+        restarted.park(1L, true);
+        restarted.sync();
+        assertThat(open().occupancy(1L)).containsExactly(3, 1);
+    }
+
+    @Test
+    void shouldStopReplayAtPartialTrailingRecord() throws IOException {
+        OccupancyJournal journal = open();
+        journal.park(1L, false);
+        journal.park(1L, true);
+        journal.park(1L, false);
+        journal.sync();
+        Path segment = segments().get(0);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.truncate(2 * RECORD_SIZE + RECORD_SIZE / 2);
+        }
+
+        OccupancyJournal restarted = open();
+
+        assertThat(restarted.occupancy(1L)).containsExactly(2, 1);
+        restarted.leave(1L, true);
+        restarted.sync();
+        assertThat(open().occupancy(1L)).containsExactly(1, 0);
+    }
+
+    private OccupancyJournal open() {
+        return new OccupancyJournal(directory.toString(), SEGMENT_BYTES);
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.getFileName().toString().endsWith(".journal")).toList();
+        }
+    }
+
+    private static void writeAt(Path path, long position, ByteBuffer buffer) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.write(buffer, position);
+        }
+    }
+}
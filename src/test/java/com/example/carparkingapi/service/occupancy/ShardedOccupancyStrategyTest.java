@@ -0,0 +1,145 @@
+package com.example.carparkingapi.service.occupancy;
+
+import com.example.carparkingapi.domain.Car;
+import com.example.carparkingapi.domain.Parking;
+import com.example.carparkingapi.domain.ParkingOccupancySlot;
+import com.example.carparkingapi.exception.parking.FullParkingException;
+import com.example.carparkingapi.exception.parking.NoMoreElectricPlacesException;
+import com.example.carparkingapi.model.Fuel;
+import com.example.carparkingapi.model.OccupancyTotals;
+import com.example.carparkingapi.model.ParkingType;
+import com.example.carparkingapi.repository.ParkingOccupancySlotRepository;
+import com.example.carparkingapi.repository.ParkingRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.example.carparkingapi.service.occupancy.OccupancyCounterTest.runConcurrently;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DataJpaTest
+@ActiveProfiles("application-test")
+@Import(ShardedOccupancyStrategy.class)
+@TestPropertySource(properties = {"parking.occupancy.mode=sharded", "parking.occupancy.shards=4"})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ShardedOccupancyStrategyTest {
+
+    @Autowired
+    private ShardedOccupancyStrategy strategy;
+
+    @Autowired
+    private ParkingRepository parkingRepository;
+
+    @Autowired
+    private ParkingOccupancySlotRepository slotRepository;
+
+    @Test
+    void shouldAdmitElectricCarWhenFreePlacesAreInDifferentSlots() {
+        Parking parking = parking(4, 2);
+        slotRepository.saveAll(List.of(
+                new ParkingOccupancySlot(null, parking.getId(), 0, 1, 0, 0, 0),
+                new ParkingOccupancySlot(null, parking.getId(), 1, 1, 2, 1, 0),
+                new ParkingOccupancySlot(null, parking.getId(), 2, 1, 0, 1, 0),
+                new ParkingOccupancySlot(null, parking.getId(), 3, 1, 0, 1, 0)));
+
+        strategy.admit(parking, car(Fuel.ELECTRIC), 0);
+
+        List<ParkingOccupancySlot> slots = slotRepository.findAllByParkingIdOrderBySlot(parking.getId());
+        assertThat(slots).allMatch(slot -> slot.getTakenPlaces() == 1);
+        assertThat(slots.get(0).getTakenElectricPlaces()).isEqualTo(1);
+        assertThat(slots.stream().mapToInt(ParkingOccupancySlot::getElectricCapacity).sum()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldRejectWhenParkingOrElectricPlacesAreUsedUp() {
+        Parking parking = parking(4, 1);
+        strategy.admit(parking, car(Fuel.ELECTRIC), 0);
+
+        assertThatThrownBy(() -> strategy.admit(parking, car(Fuel.ELECTRIC), 0))
+                .isInstanceOf(NoMoreElectricPlacesException.class);
+
+        for (int i = 0; i < 3; i++) {
+            strategy.admit(parking, car(Fuel.PETROL), 0);
+        }
+        assertThatThrownBy(() -> strategy.admit(parking, car(Fuel.PETROL), 0))
+                .isInstanceOf(FullParkingException.class);
+    }
+
+    @Test
+    void shouldNeverOverbookUnderConcurrentAdmissions() throws Exception {
+        Parking parking = parking(40, 10);
+        AtomicInteger admitted = new AtomicInteger();
+        AtomicInteger admittedElectric = new AtomicInteger();
+
+        runConcurrently(thread -> {
+            for (int i = 0; i < 10; i++) {
+                boolean electric = (thread + i) % 3 == 0;
+                try {
+                    strategy.admit(parking, car(electric ? Fuel.ELECTRIC : Fuel.PETROL), 0);
+                    admitted.incrementAndGet();
+                    if (electric) {
+                        admittedElectric.incrementAndGet();
+                    }
+                } catch (FullParkingException | NoMoreElectricPlacesException e) {
+                    // rejected, counted by the totals below
+                }
+            }
+        });
+
+        OccupancyTotals totals = totals(parking);
+        assertThat(admitted.get()).isEqualTo(40);
+        assertThat(admittedElectric.get()).isLessThanOrEqualTo(10);
+        assertThat(totals.getTakenPlaces()).isEqualTo(40);
+        assertThat(totals.getTakenElectricPlaces()).isEqualTo(admittedElectric.get());
+    }
+
+    @Test
+    void shouldKeepTakenPlacesOfEverySlotWhenLimitsAreRefreshed() {
+        Parking parking = parking(4, 2);
+        slotRepository.saveAll(List.of(
+                new ParkingOccupancySlot(null, parking.getId(), 0, 1, 1, 0, 0),
+                new ParkingOccupancySlot(null, parking.getId(), 1, 1, 0, 1, 0),
+                new ParkingOccupancySlot(null, parking.getId(), 2, 1, 0, 0, 0),
+                new ParkingOccupancySlot(null, parking.getId(), 3, 1, 1, 1, 1)));
+        parking.setCapacity(3);
+
+        strategy.refresh(parking);
+
+        List<ParkingOccupancySlot> slots = slotRepository.findAllByParkingIdOrderBySlot(parking.getId());
+        assertThat(slots).allMatch(slot -> slot.getCapacity() >= slot.getTakenPlaces()
+                && slot.getElectricCapacity() >= slot.getTakenElectricPlaces());
+        assertThat(slots).extracting(ParkingOccupancySlot::getCapacity).containsExactly(1, 1, 0, 1);
+        assertThat(slots).extracting(ParkingOccupancySlot::getElectricCapacity).containsExactly(1, 0, 0, 1);
+    }
+
+    private OccupancyTotals totals(Parking parking) {
+        return slotRepository.sumOccupancy(parking.getId());
+    }
+
+    private Parking parking(int capacity, int electricCapacity) {
+        Parking parking = new Parking();
+        parking.setName("Sharded");
+        parking.setAdress("Street 1");
+        parking.setCapacity(capacity);
+        parking.setParkingType(ParkingType.UNDERGROUND);
+        parking.setParkingSpotLength(5);
+        parking.setParkingSpotWidth(2);
+        parking.setPlacesForElectricCars(electricCapacity);
+        return parkingRepository.save(parking);
+    }
+
+    private static Car car(Fuel fuel) {
+        Car car = new Car();
+        car.setFuel(fuel);
+        return car;
+    }
+}
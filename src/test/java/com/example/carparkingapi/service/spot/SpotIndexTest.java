@@ -0,0 +1,89 @@
+package com.example.carparkingapi.service.spot;
+
+import com.example.carparkingapi.domain.ParkingSpot;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SpotIndexTest {
+
+    @Test
+    void shouldTakeShortestAndThenNarrowestFittingSpot() {
+        SpotIndex spotIndex = new SpotIndex(List.of(
+                spot(1, false, 600, 300),
+                spot(2, false, 500, 300),
+                spot(3, false, 500, 250),
+                spot(4, false, 450, 200)), Set.of());
+
+        assertThat(spotIndex.allocate(480, 240, false)).isEqualTo(2);
+        assertThat(spotIndex.allocate(480, 240, false)).isEqualTo(1);
+        assertThat(spotIndex.allocate(480, 240, false)).isEqualTo(0);
+        assertThat(spotIndex.allocate(480, 240, false)).isEqualTo(-1);
+    }
+
+    @Test
+    void shouldSkipLengthsWithoutWideEnoughFreeSpot() {
+        SpotIndex spotIndex = new SpotIndex(List.of(
+                spot(1, false, 450, 200),
+                spot(2, false, 500, 200),
+                spot(3, false, 550, 300)), Set.of());
+
+        assertThat(spotIndex.allocate(400, 250, false)).isEqualTo(2);
+    }
+
+    @Test
+    void shouldNotHandOutOccupiedSpotsAndReuseFreedOnes() {
+        SpotIndex spotIndex = new SpotIndex(List.of(
+                spot(1, false, 500, 250),
+                spot(2, false, 500, 250),
+                spot(3, false, 600, 300)), Set.of(1L));
+
+        assertThat(spotIndex.allocate(500, 250, false)).isEqualTo(1);
+        assertThat(spotIndex.allocate(500, 250, false)).isEqualTo(2);
+        assertThat(spotIndex.allocate(500, 250, false)).isEqualTo(-1);
+
+        spotIndex.free(1L);
+
+        assertThat(spotIndex.allocate(500, 250, false)).isZero();
+    }
+
+    @Test
+    void shouldFallBackToElectricSpotsOnlyForRegularCars() {
+        SpotIndex spotIndex = new SpotIndex(List.of(
+                spot(1, true, 500, 250),
+                spot(2, false, 500, 250)), Set.of());
+
+        assertThat(spotIndex.allocate(500, 250, false)).isEqualTo(1);
+        assertThat(spotIndex.allocate(500, 250, false)).isZero();
+        assertThat(spotIndex.isElectric(0)).isTrue();
+        assertThat(spotIndex.allocate(500, 250, true)).isEqualTo(-1);
+    }
+
+    @Test
+    void shouldNotFitElectricCarThatOnlyFitsRegularSpot() {
+        SpotIndex spotIndex = new SpotIndex(List.of(
+                spot(1, true, 450, 200),
+                spot(2, false, 600, 300)), Set.of());
+
+        assertThat(spotIndex.fits(500, 250, false)).isTrue();
+        assertThat(spotIndex.fits(500, 250, true)).isFalse();
+        assertThat(spotIndex.fits(400, 200, true)).isTrue();
+    }
+
+    @Test
+    void shouldFitButNeverHandOutSpotsNotStoredYet() {
+        ParkingSpot unsaved = new ParkingSpot(null, null, 2, false, 600, 300);
+        SpotIndex spotIndex = new SpotIndex(List.of(spot(1, false, 450, 200), unsaved), Set.of());
+
+        assertThat(spotIndex.fits(500, 250, false)).isTrue();
+        assertThat(spotIndex.allocate(500, 250, false)).isEqualTo(-1);
+        assertThat(spotIndex.allocate(400, 200, false)).isZero();
+    }
+
+    private static ParkingSpot spot(int spotNumber, boolean electric, int length, int width) {
+        return new ParkingSpot((long) spotNumber, null, spotNumber, electric, length, width);
+    }
+}
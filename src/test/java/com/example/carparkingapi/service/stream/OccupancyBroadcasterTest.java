@@ -0,0 +1,131 @@
+package com.example.carparkingapi.service.stream;
+
+import com.example.carparkingapi.dto.ParkingOccupancyDTO;
+import com.example.carparkingapi.event.ParkingOccupancyChangedEvent;
+import com.example.carparkingapi.service.availability.ParkingAvailabilityIndex;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+class OccupancyBroadcasterTest {
+
+    private static final int MAX_PENDING = 3;
+
+    private final ParkingAvailabilityIndex parkingAvailabilityIndex = mock(ParkingAvailabilityIndex.class);
+
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private OccupancyBroadcaster occupancyBroadcaster;
+
+    @BeforeEach
+    void setUp() {
+        occupancyBroadcaster = new OccupancyBroadcaster(parkingAvailabilityIndex, new ObjectMapper());
+        ReflectionTestUtils.setField(occupancyBroadcaster, "maxPending", MAX_PENDING);
+        ReflectionTestUtils.setField(occupancyBroadcaster, "sendThreads", 2);
+        occupancyBroadcaster.startSender();
+        when(parkingAvailabilityIndex.getOccupancy(anyLong()))
+                .thenAnswer(invocation -> Optional.of(new ParkingOccupancyDTO(invocation.getArgument(0), 1, 0)));
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        occupancyBroadcaster.stopSender();
+    }
+
+    @Test
+    void shouldNotWaitForSlowSubscriberAndDropItOnceTooFarBehind() throws Exception {
+        RecordingEmitter slow = new RecordingEmitter(release);
+        RecordingEmitter fast = new RecordingEmitter(null);
+        occupancyBroadcaster.subscribe(slow);
+        occupancyBroadcaster.subscribe(fast);
+
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+            for (long parkingId = 1; parkingId <= MAX_PENDING + 2; parkingId++) {
+                occupancyBroadcaster.onOccupancyChanged(new ParkingOccupancyChangedEvent(parkingId, false, 1));
+                occupancyBroadcaster.broadcast();
+                assertThat(fast.received.tryAcquire(1, TimeUnit.SECONDS)).isTrue();
+            }
+        });
+
+        assertThat(slow.completed).isTrue();
+        assertThat(fast.completed).isFalse();
+        assertThat(occupancyBroadcaster.subscriberCount()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldDropSubscriberThatTimedOut() {
+        SseEmitter emitter = mock(SseEmitter.class);
+        occupancyBroadcaster.subscribe(emitter);
+        ArgumentCaptor<Runnable> onTimeout = ArgumentCaptor.forClass(Runnable.class);
+        verify(emitter).onTimeout(onTimeout.capture());
+
+        onTimeout.getValue().run();
+
+        verify(emitter).complete();
+        assertThat(occupancyBroadcaster.subscriberCount()).isZero();
+    }
+
+    @Test
+    void shouldDropSubscriberThatFailedToReceive() throws Exception {
+        SseEmitter emitter = mock(SseEmitter.class);
+        doThrow(new IllegalStateException("closed")).when(emitter).send(any(SseEmitter.SseEventBuilder.class));
+        occupancyBroadcaster.subscribe(emitter);
+
+        occupancyBroadcaster.onOccupancyChanged(new ParkingOccupancyChangedEvent(1L, false, 1));
+        occupancyBroadcaster.broadcast();
+
+        verify(emitter, timeout(2000)).completeWithError(any(IllegalStateException.class));
+        assertThat(occupancyBroadcaster.subscriberCount()).isZero();
+    }
+
+    /**
+     * Counts received payloads, blocking in every send until {@code blocker} is released when there is one.
+     */
+    private static final class RecordingEmitter extends SseEmitter {
+
+        private final CountDownLatch blocker;
+
+        private final Semaphore received = new Semaphore(0);
+
+        private volatile boolean completed;
+
+        private RecordingEmitter(CountDownLatch blocker) {
+            this.blocker = blocker;
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            try {
+                if (blocker != null) {
+                    blocker.await(10, TimeUnit.SECONDS);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            received.release();
+        }
+
+        @Override
+        public void complete() {
+            completed = true;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.carparkingapi.service.waitlist;
+
+import com.example.carparkingapi.exception.parking.CarParkingStatusException;
+import com.example.carparkingapi.exception.parking.WaitlistFullException;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ParkingWaitlistTest {
+
+    private static final long HOUR = 3_600_000L;
+
+    @Test
+    void shouldNotLetElectricWaiterBlockRegularCars() {
+        ParkingWaitlist parkingWaitlist = new ParkingWaitlist(10, HOUR);
+        parkingWaitlist.join(1L, 1L, true);
+
+        assertThat(parkingWaitlist.hasCompetingCars(1L, false)).isFalse();
+        assertThat(parkingWaitlist.hasCompetingCars(1L, true)).isTrue();
+    }
+
+    @Test
+    void shouldLetRegularWaiterBlockAllCars() {
+        ParkingWaitlist parkingWaitlist = new ParkingWaitlist(10, HOUR);
+        parkingWaitlist.join(1L, 1L, true);
+        parkingWaitlist.join(2L, 1L, false);
+
+        assertThat(parkingWaitlist.hasCompetingCars(1L, false)).isTrue();
+        assertThat(parkingWaitlist.hasCompetingCars(1L, true)).isTrue();
+        assertThat(parkingWaitlist.hasCompetingCars(2L, false)).isFalse();
+    }
+
+    @Test
+    void shouldIgnoreAndRemoveExpiredEntries() {
+        ParkingWaitlist parkingWaitlist = new ParkingWaitlist(10, -1);
+        WaitlistEntry entry = parkingWaitlist.join(1L, 1L, false);
+
+        assertThat(entry.isExpired(Instant.now())).isTrue();
+        assertThat(parkingWaitlist.hasCompetingCars(1L, false)).isFalse();
+
+        parkingWaitlist.removeExpired();
+
+        assertThat(parkingWaitlist.hasWaitingCars(1L)).isFalse();
+        assertThat(entry.getSpot()).isCompletedExceptionally();
+        assertThatThrownBy(() -> parkingWaitlist.findEntry(1L)).isInstanceOf(CarParkingStatusException.class);
+    }
+
+    @Test
+    void shouldRejectCarsOverCapacity() {
+        ParkingWaitlist parkingWaitlist = new ParkingWaitlist(1, HOUR);
+        parkingWaitlist.join(1L, 1L, false);
+
+        assertThatThrownBy(() -> parkingWaitlist.join(2L, 1L, false)).isInstanceOf(WaitlistFullException.class);
+        assertThatThrownBy(() -> parkingWaitlist.join(1L, 2L, false))
+                .isInstanceOf(CarParkingStatusException.class);
+    }
+}